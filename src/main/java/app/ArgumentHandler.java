@@ -94,6 +94,51 @@ public class ArgumentHandler {
      */
     private AugmentationMethod augmentationMethod;
     
+    /**
+     * A string like 3/10 that selects one shard of the search tree.
+     */
+    private String shardString;
+    
+    /**
+     * Path to a file to write checkpoints to.
+     */
+    private String checkpointFilepath;
+    
+    /**
+     * Path to a checkpoint file to resume the run from.
+     */
+    private String resumeFilepath;
+    
+    /**
+     * The number of threads to search with.
+     */
+    private int threadCount = 1;
+    
+    /**
+     * If true, augment a single working molecule in place instead of cloning.
+     */
+    private boolean isInPlace;
+    
+    /**
+     * If true, search on packed molecules.
+     */
+    private boolean isPacked;
+    
+    /**
+     * The names of the atom invariants for the initial partition.
+     */
+    private String invariantNames;
+    
+    /**
+     * The name of the automorphism engine for the ATOM method.
+     */
+    private String engineName;
+    
+    /**
+     * If true, print the statistics of the canonical checks.
+     */
+    private boolean isPrintingStatistics;
+    
     private Options options;
     
     public ArgumentHandler() {
@@ -115,6 +160,15 @@ public class ArgumentHandler {
 
         // long options
         options.addOption(lopt("augmentation", "method", "Augmentation method (ATOM, BOND)"));
+        options.addOption(lopt("threads", "n", "Number of threads to use"));
+        options.addOption(lopt("shard", "res/mod", "Only generate shard res of mod"));
+        options.addOption(lopt("checkpoint", "path", "Write checkpoints of the run to a file"));
+        options.addOption(lopt("resume", "path", "Resume the run from a checkpoint file"));
+        options.addOption(lopt("inplace", "Augment in place instead of cloning (ATOM only)"));
+        options.addOption(lopt("packed", "Search on packed molecules (ATOM only)"));
+        options.addOption(lopt("invariants", "names", "Atom invariants for the initial partition, e.g. degree,ring (BOND only)"));
+        options.addOption(lopt("engine", "name", "Automorphism engine (CDK, GROUP) (ATOM only)"));
+        options.addOption(lopt("stats", "Print the canonical check statistics (ATOM only)"));
     }
     
     @SuppressWarnings("static-access")
@@ -131,6 +185,13 @@ public class ArgumentHandler {
                             .create(o);
     }
     
+    @SuppressWarnings("static-access")
+    private Option lopt(String lo, String desc) {
+        return OptionBuilder.withDescription(desc)
+                            .withLongOpt(lo)
+                            .create();
+    }
+    
     @SuppressWarnings("static-access")
     private Option lopt(String lo, String argName, String desc) {
         return OptionBuilder.hasArg()
@@ -205,6 +266,46 @@ public class ArgumentHandler {
                 AugmentationMethod.valueOf(line.getOptionValue("augmentation"));
             setAugmentationMethod(chosenAugmentation);
         }
+        
+        if (line.hasOption("shard")) {
+            setShardString(line.getOptionValue("shard"));
+        }
+        
+        if (line.hasOption("checkpoint")) {
+            setCheckpointFilepath(line.getOptionValue("checkpoint"));
+        }
+        
+        if (line.hasOption("resume")) {
+            setResumeFilepath(line.getOptionValue("resume"));
+        }
+        
+        if (line.hasOption("threads")) {
+            try {
+                setThreadCount(Integer.parseInt(line.getOptionValue("threads")));
+            } catch (NumberFormatException nfe) {
+                throw new ParseException("Thread count not a number : " + line.getOptionValue("threads"));
+            }
+        }
+        
+        if (line.hasOption("inplace")) {
+            setIsInPlace(true);
+        }
+        
+        if (line.hasOption("packed")) {
+            setIsPacked(true);
+        }
+        
+        if (line.hasOption("invariants")) {
+            setInvariantNames(line.getOptionValue("invariants"));
+        }
+        
+        if (line.hasOption("engine")) {
+            setEngineName(line.getOptionValue("engine"));
+        }
+        
+        if (line.hasOption("stats")) {
+            setIsPrintingStatistics(true);
+        }
     }
     
     public void setIsHelp(boolean isHelp) {
@@ -417,6 +518,82 @@ public class ArgumentHandler {
 		this.isZipOutput = isZipOutput;
 	}
 
+    public String getShardString() {
+        return shardString;
+    }
+
+    public void setShardString(String shardString) {
+        this.shardString = shardString;
+    }
+
+    public String getCheckpointFilepath() {
+        return checkpointFilepath;
+    }
+
+    public void setCheckpointFilepath(String checkpointFilepath) {
+        this.checkpointFilepath = checkpointFilepath;
+    }
+
+    public String getResumeFilepath() {
+        return resumeFilepath;
+    }
+
+    public void setResumeFilepath(String resumeFilepath) {
+        this.resumeFilepath = resumeFilepath;
+    }
+    
+    public boolean isResuming() {
+        return resumeFilepath != null;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public boolean isInPlace() {
+        return isInPlace;
+    }
+
+    public void setIsInPlace(boolean isInPlace) {
+        this.isInPlace = isInPlace;
+    }
+
+    public boolean isPacked() {
+        return isPacked;
+    }
+
+    public void setIsPacked(boolean isPacked) {
+        this.isPacked = isPacked;
+    }
+
+    public String getInvariantNames() {
+        return invariantNames;
+    }
+
+    public void setInvariantNames(String invariantNames) {
+        this.invariantNames = invariantNames;
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public void setEngineName(String engineName) {
+        this.engineName = engineName;
+    }
+
+    public boolean isPrintingStatistics() {
+        return isPrintingStatistics;
+    }
+
+    public void setIsPrintingStatistics(boolean isPrintingStatistics) {
+        this.isPrintingStatistics = isPrintingStatistics;
+    }
+
 	public boolean isComparingToFile() {
 		return isComparingToFile;
 	}
@@ -3,13 +3,22 @@ package app;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
 
 import org.openscience.cdk.interfaces.IAtomContainer;
 
 import augment.AugmentingGenerator;
+import augment.Checkpoint;
+import augment.Checkpointer;
+import augment.Shard;
 import augment.atom.AtomGenerator;
 import augment.bond.BondGenerator;
 import augment.vertex.VertexGenerator;
+import group.invariant.AtomInvariant;
+import group.invariant.AtomInvariants;
+import group.molecule.AutomorphismEngine;
+import handler.Counter;
 import handler.Handler;
 import handler.graph.MoleculeAdaptor;
 import handler.molecule.CountingHandler;
@@ -35,15 +44,101 @@ public class AugmentingGeneratorFactory {
             return null;
         }
         
+        Shard shard = null;
+        if (argsH.getShardString() != null) {
+            try {
+                shard = Shard.fromString(argsH.getShardString());
+            } catch (IllegalArgumentException iae) {
+                error(iae.getMessage());
+                return null;
+            }
+        }
+        
+        String checkpointFilepath = argsH.getCheckpointFilepath();
+        if (checkpointFilepath == null) {
+            checkpointFilepath = argsH.getResumeFilepath();
+        }
+        if (checkpointFilepath != null && argsH.getThreadCount() > 1) {
+            error("Checkpointing only works with a single thread");
+            return null;
+        }
+        if (argsH.isResuming() && argsH.isZipOutput()) {
+            error("Cannot resume a run with zipped output");
+            return null;
+        }
+        Checkpoint checkpoint = null;
+        if (argsH.isResuming()) {
+            checkpoint = Checkpoint.read(argsH.getResumeFilepath());
+            if (checkpoint.getFormula() != null && !checkpoint.getFormula().equals(formula)) {
+                error("Checkpoint is for " + checkpoint.getFormula() + " not " + formula);
+                return null;
+            }
+        }
+        
+        List<AtomInvariant> invariants = Collections.emptyList();
+        if (argsH.getInvariantNames() != null) {
+            try {
+                invariants = AtomInvariants.fromNames(argsH.getInvariantNames());
+            } catch (IllegalArgumentException iae) {
+                error(iae.getMessage());
+                return null;
+            }
+        }
+        
+        AutomorphismEngine.Type engineType = AutomorphismEngine.Type.CDK;
+        if (argsH.getEngineName() != null) {
+            try {
+                engineType = AutomorphismEngine.Type.valueOf(argsH.getEngineName().toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                error("Unknown automorphism engine : " + argsH.getEngineName());
+                return null;
+            }
+        }
+        
         AugmentationMethod augmentationMethod = (argsH.getAugmentationMethod() == null)? 
                 AugmentationMethod.ATOM : argsH.getAugmentationMethod();
         
+        String outputFilepath = getOutputFilepath(argsH);
+        if (checkpoint != null && outputFilepath != null) {
+            // anything written after the checkpoint is written again on resume
+            checkpoint.truncateOutput(outputFilepath);
+        }
+        
+        Handler<IAtomContainer> handler = getHandler(argsH);
+        Checkpointer checkpointer = null;
+        if (checkpointFilepath != null) {
+            Counter counter = (handler instanceof Counter)? (Counter) handler : null;
+            checkpointer = new Checkpointer(formula, checkpointFilepath, counter, handler);
+            checkpointer.setOutputFilepath(outputFilepath);
+            if (checkpoint != null) {
+                checkpointer.resumeFrom(checkpoint);
+            }
+        }
+        
         if (augmentationMethod == AugmentationMethod.ATOM) {
-            return new AtomGenerator(formula, getHandler(argsH));
+            AtomGenerator generator = new AtomGenerator(formula, handler);
+            generator.setThreadCount(argsH.getThreadCount());
+            generator.setShard(shard);
+            generator.setCheckpointer(checkpointer);
+            generator.setInPlace(argsH.isInPlace());
+            generator.setPacked(argsH.isPacked());
+            generator.setEngineType(engineType);
+            generator.setPrintingStatistics(argsH.isPrintingStatistics());
+            generator.setCountingOnly(isCounting(argsH));
+            return generator;
         } else if (augmentationMethod == AugmentationMethod.VERTEX) {
-            return new VertexGenerator(formula, getGraphHandler(argsH));
+            VertexGenerator generator = new VertexGenerator(formula, getGraphHandler(argsH, handler));
+            generator.setThreadCount(argsH.getThreadCount());
+            generator.setShard(shard);
+            generator.setCheckpointer(checkpointer);
+            return generator;
         } else {
-            return new BondGenerator(formula, getHandler(argsH));
+            BondGenerator generator = new BondGenerator(formula, handler);
+            generator.setThreadCount(argsH.getThreadCount());
+            generator.setShard(shard);
+            generator.setCheckpointer(checkpointer);
+            generator.setInvariants(invariants);
+            return generator;
         }
     }
     
@@ -51,9 +146,22 @@ public class AugmentingGeneratorFactory {
         return argsH.getOutputFormat() == DataFormat.NONE && !argsH.isComparingToFile();
     }
     
-    private static Handler<Graph> getGraphHandler(ArgumentHandler argsH) throws IOException {
+    /**
+     * @return the plain file the structures are written to, or null if they 
+     * are only counted, or written to stdout or a zip
+     */
+    private static String getOutputFilepath(ArgumentHandler argsH) {
+        if (isCounting(argsH) || argsH.isStdOut() || argsH.isZipOutput()) {
+            return null;
+        } else {
+            return argsH.getOutputFilepath();
+        }
+    }
+    
+    private static Handler<Graph> getGraphHandler(
+            ArgumentHandler argsH, Handler<IAtomContainer> handler) {
         return new MoleculeAdaptor(
-                new HBondCheckingHandler(argsH.getFormula(), getHandler(argsH)));
+                new HBondCheckingHandler(argsH.getFormula(), handler));
     }
     
     private static Handler<IAtomContainer> getHandler(ArgumentHandler argsH) throws IOException {
@@ -74,14 +182,15 @@ public class AugmentingGeneratorFactory {
             } else {
                 String outputFilename = argsH.getOutputFilepath();
                 if (format == DataFormat.SDF) {
-                    return new SDFHandler(outputFilename);
+                    return new SDFHandler(outputFilename, argsH.isResuming());
                 } else {
                     if (argsH.isZipOutput()) {
                         String zipEntryName = argsH.getFormula() + ".txt"; // TODO?
                         return new ZipDecoratingHandler(
                                 outputFilename, zipEntryName, format, shouldNumberLines);
                     } else {
-                        PrintStream printStream = new PrintStream(new FileOutputStream(outputFilename)); 
+                        PrintStream printStream = 
+                                new PrintStream(new FileOutputStream(outputFilename, argsH.isResuming())); 
                         return new PrintStreamStringHandler(printStream, format, shouldNumberLines);
                     }
                 }
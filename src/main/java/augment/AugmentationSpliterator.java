@@ -0,0 +1,113 @@
+package augment;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Walks an augmentation tree on demand, using an explicit stack of the nodes
+ * still to visit instead of recursion, so the caller pulls one structure at a
+ * time. Nodes are expanded in the same depth-first order as the push-style
+ * generators, and nothing is expanded beyond the last structure asked for.
+ *
+ * Splitting hands over the half of the stack nearest the root - the largest
+ * subtrees - so that parallel streams share out the work at the top levels.
+ *
+ * @author maclean
+ *
+ * @param <N> the type of node in the tree (an augmentation)
+ * @param <T> the type of structure produced
+ */
+public class AugmentationSpliterator<N, T> implements Spliterator<T> {
+
+    /**
+     * The rules for a particular kind of augmentation tree.
+     */
+    public interface SearchTree<N, T> {
+
+        /**
+         * @param node a node in the tree
+         * @return the canonical children of the node, in search order
+         */
+        public List<N> getChildren(N node);
+
+        /**
+         * @param node a node in the tree
+         * @return the structure to produce for the node, or null
+         */
+        public T getResult(N node);
+
+    }
+
+    private final SearchTree<N, T> tree;
+
+    /**
+     * Nodes still to visit; the first is the next to visit, the last is the
+     * nearest to the root.
+     */
+    private final Deque<N> stack;
+
+    public AugmentationSpliterator(SearchTree<N, T> tree, List<N> roots) {
+        this.tree = tree;
+        this.stack = new ArrayDeque<N>();
+        for (int index = roots.size() - 1; index >= 0; index--) {
+            stack.push(roots.get(index));
+        }
+    }
+
+    private AugmentationSpliterator(SearchTree<N, T> tree, Deque<N> stack) {
+        this.tree = tree;
+        this.stack = stack;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!stack.isEmpty()) {
+            N node = stack.pop();
+            pushChildren(node);
+            T result = tree.getResult(node);
+            if (result != null) {
+                action.accept(result);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void pushChildren(N node) {
+        List<N> children = tree.getChildren(node);
+        for (int index = children.size() - 1; index >= 0; index--) {
+            stack.push(children.get(index));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // a single node with nothing to produce itself can be opened up to split its children
+        while (stack.size() == 1 && tree.getResult(stack.peek()) == null) {
+            pushChildren(stack.pop());
+        }
+        if (stack.size() < 2) {
+            return null;
+        }
+        Deque<N> split = new ArrayDeque<N>();
+        int splitSize = stack.size() / 2;
+        for (int count = 0; count < splitSize; count++) {
+            split.push(stack.removeLast());
+        }
+        return new AugmentationSpliterator<N, T>(tree, split);
+    }
+
+    @Override
+    public long estimateSize() {
+        return (stack.isEmpty())? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+
+}
@@ -1,16 +1,21 @@
 package augment;
 
 import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import handler.Handler;
 
-import handler.Handler;
-
 /**
  * Runs an {@link Augmentor}.
  * 
  * @author maclean
  *
  */
-public interface AugmentingGenerator<T> extends Serializable {
+public interface AugmentingGenerator<T> extends Serializable {
     
     public void run();
     
@@ -19,5 +24,31 @@ public interface AugmentingGenerator<T> extends Serializable {
     public void finish();
     
     public Handler<T> getHandler();
+    
+    /**
+     * Pull-style alternative to {@link #run()} - the tree is only searched as far 
+     * as the structures taken from the spliterator. The handler is not used.
+     * 
+     * @return a spliterator over the structures for the whole tree
+     */
+    public Spliterator<T> spliterator();
+    
+    /**
+     * @param initial the structure to augment
+     * @return a spliterator over the structures made from the initial structure
+     */
+    public Spliterator<T> spliterator(T initial);
+    
+    public default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    public default Stream<T> stream(T initial) {
+        return StreamSupport.stream(spliterator(initial), false);
+    }
+    
+    public default Iterator<T> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
 
 }
@@ -0,0 +1,186 @@
+package augment;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The position of a search, as the path of child positions from the root,
+ * along with the number of structures found before reaching it and the length
+ * of the output file at that point, if known. Stored as a small text file like:
+ * 
+ * <pre>
+ * formula=C4H8
+ * count=3
+ * path=0,0,2,1
+ * output=96
+ * </pre>
+ * 
+ * @author maclean
+ *
+ */
+public class Checkpoint {
+    
+    private final String formula;
+    
+    private final int count;
+    
+    private final int[] path;
+    
+    /**
+     * The length of the output file when the checkpoint was written, or -1.
+     */
+    private final long outputLength;
+    
+    public Checkpoint(String formula, int count, int[] path) {
+        this(formula, count, path, -1);
+    }
+    
+    public Checkpoint(String formula, int count, int[] path, long outputLength) {
+        this.formula = formula;
+        this.count = count;
+        this.path = path;
+        this.outputLength = outputLength;
+    }
+    
+    /**
+     * Read a checkpoint from a file.
+     * 
+     * @param filepath the path to the checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(String filepath) throws IOException {
+        String formula = null;
+        int count = 0;
+        int[] path = null;
+        long outputLength = -1;
+        BufferedReader reader = new BufferedReader(new FileReader(filepath));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int equalsIndex = line.indexOf('=');
+                if (equalsIndex == -1) continue;
+                String key = line.substring(0, equalsIndex).trim();
+                String value = line.substring(equalsIndex + 1).trim();
+                if (key.equals("formula")) {
+                    formula = value;
+                } else if (key.equals("count")) {
+                    count = Integer.parseInt(value);
+                } else if (key.equals("path")) {
+                    path = parsePath(value);
+                } else if (key.equals("output")) {
+                    outputLength = Long.parseLong(value);
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IOException("Bad checkpoint file " + filepath, nfe);
+        } finally {
+            reader.close();
+        }
+        if (path == null) {
+            throw new IOException("No path in checkpoint file " + filepath);
+        }
+        return new Checkpoint(formula, count, path, outputLength);
+    }
+    
+    private static int[] parsePath(String pathString) {
+        if (pathString.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = pathString.split(",");
+        int[] path = new int[parts.length];
+        for (int index = 0; index < parts.length; index++) {
+            path[index] = Integer.parseInt(parts[index].trim());
+        }
+        return path;
+    }
+    
+    /**
+     * Write to a temporary file and then move it over the target, so that a 
+     * crash part way through never leaves a broken checkpoint.
+     * 
+     * @param filepath the path to the checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String filepath) throws IOException {
+        File target = new File(filepath).getAbsoluteFile();
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        PrintWriter writer = new PrintWriter(temp);
+        try {
+            writer.println("formula=" + formula);
+            writer.println("count=" + count);
+            writer.println("path=" + pathToString());
+            if (outputLength >= 0) {
+                writer.println("output=" + outputLength);
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Could not write checkpoint " + temp);
+        }
+        Path from = temp.toPath();
+        Path to = target.toPath();
+        Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Cut an output file back to its length at this checkpoint, dropping the 
+     * structures written after it - the resumed run writes them again. Call 
+     * before the file is opened to append to.
+     * 
+     * @param outputFilepath the path to the output file
+     * @throws IOException if the file cannot be truncated
+     */
+    public void truncateOutput(String outputFilepath) throws IOException {
+        File file = new File(outputFilepath);
+        if (outputLength < 0 || file.length() <= outputLength) {
+            return;
+        }
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(outputLength);
+        } finally {
+            output.close();
+        }
+    }
+    
+    private String pathToString() {
+        StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < path.length; index++) {
+            if (index > 0) {
+                sb.append(',');
+            }
+            sb.append(path[index]);
+        }
+        return sb.toString();
+    }
+
+    public String getFormula() {
+        return formula;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int[] getPath() {
+        return path;
+    }
+
+    public long getOutputLength() {
+        return outputLength;
+    }
+    
+    public String toString() {
+        return formula + " " + count + " [" + pathToString() + "]";
+    }
+
+}
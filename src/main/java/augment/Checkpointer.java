@@ -0,0 +1,215 @@
+package augment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import handler.Counter;
+import handler.Handler;
+
+/**
+ * Keeps track of the position of a depth-first search, writing it out to a
+ * checkpoint file every so often, and skips the part of the search done before
+ * a checkpoint when resuming from it.
+ *
+ * The position is the list of child positions from the root. A generator calls
+ * {@link #skip(int, int)} for each child, and {@link #enter(int, int)} just
+ * before searching below it; so a checkpoint always points to a subtree that
+ * has not been started, with everything before it in the search finished.
+ *
+ * Only suitable for single-threaded searches, where the order is fixed.
+ *
+ * @author maclean
+ *
+ */
+public class Checkpointer {
+
+    /**
+     * The default time between checkpoints, in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL = 60 * 1000;
+
+    /**
+     * Only look at the clock once in this many calls to enter.
+     */
+    private static final int CLOCK_CHECK_MASK = 0x3FF;
+
+    private final String formula;
+
+    private final String filepath;
+
+    private final Counter counter;
+
+    private final Handler<?> output;
+
+    /**
+     * The file the output handler writes to, or null.
+     */
+    private String outputFilepath;
+
+    private long interval;
+
+    private long nextWriteTime;
+
+    private int enterCount;
+
+    /**
+     * The child positions along the current path of the search.
+     */
+    private int[] positions;
+
+    /**
+     * The path to resume from, or null once the search has got there.
+     */
+    private int[] resumePath;
+
+    /**
+     * The number of levels of the resume path that have been followed.
+     */
+    private int resumeDepth;
+
+    /**
+     * @param formula the formula being generated, to check on resume
+     * @param filepath the checkpoint file to write to
+     * @param counter the counting handler to save the count of, or null
+     */
+    public Checkpointer(String formula, String filepath, Counter counter) {
+        this(formula, filepath, counter, null);
+    }
+
+    /**
+     * @param formula the formula being generated, to check on resume
+     * @param filepath the checkpoint file to write to
+     * @param counter the counting handler to save the count of, or null
+     * @param output the handler to flush before each checkpoint, or null
+     */
+    public Checkpointer(String formula, String filepath, Counter counter, Handler<?> output) {
+        this.formula = formula;
+        this.filepath = filepath;
+        this.counter = counter;
+        this.output = output;
+        this.positions = new int[16];
+        setInterval(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Save the length of this file with each checkpoint, once the output has 
+     * been flushed; so a resumed run can cut off what was written after it.
+     *
+     * @param outputFilepath the file the output handler writes to
+     */
+    public void setOutputFilepath(String outputFilepath) {
+        this.outputFilepath = outputFilepath;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+        this.nextWriteTime = System.currentTimeMillis() + interval;
+    }
+
+    /**
+     * Skip the search up to this checkpoint, and restore the handler count.
+     *
+     * @param checkpoint the checkpoint to resume from
+     */
+    public void resumeFrom(Checkpoint checkpoint) {
+        if (checkpoint.getFormula() != null && !checkpoint.getFormula().equals(formula)) {
+            throw new IllegalArgumentException(
+                    "Checkpoint is for " + checkpoint.getFormula() + " not " + formula);
+        }
+        int[] path = checkpoint.getPath();
+        this.resumePath = (path.length == 0)? null : path;
+        this.resumeDepth = 0;
+        if (counter != null) {
+            counter.setCount(checkpoint.getCount());
+        }
+    }
+
+    public boolean isResuming() {
+        return resumePath != null;
+    }
+
+    /**
+     * While resuming, the nodes entered along the path to the checkpoint were
+     * already visited before it - and any structures at them handled - except 
+     * for the last, which is where the search carries on from.
+     *
+     * @return true if the node just entered was visited before the checkpoint
+     */
+    public boolean isReplaying() {
+        return resumePath != null && resumeDepth > 0;
+    }
+
+    /**
+     * @param depth the depth of the child in the search
+     * @param position the position of the child among its siblings
+     * @return true if the child was searched before the checkpoint being resumed
+     */
+    public boolean skip(int depth, int position) {
+        if (resumePath == null || depth != resumeDepth) {
+            return false;
+        }
+        if (position < resumePath[depth]) {
+            return true;
+        } else if (position > resumePath[depth]) {
+            resumePath = null;  // the checkpointed node was not reached; carry on from here
+        }
+        return false;
+    }
+
+    /**
+     * Record that the search is about to go below this child.
+     *
+     * @param depth the depth of the child in the search
+     * @param position the position of the child among its siblings
+     */
+    public void enter(int depth, int position) {
+        if (depth >= positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[depth] = position;
+
+        if (resumePath != null) {
+            if (depth == resumeDepth && position == resumePath[depth]) {
+                resumeDepth++;
+                if (resumeDepth == resumePath.length) {
+                    resumePath = null;
+                }
+            }
+            return;
+        }
+
+        if (filepath != null && (++enterCount & CLOCK_CHECK_MASK) == 0) {
+            long now = System.currentTimeMillis();
+            if (now >= nextWriteTime) {
+                write(depth);
+                nextWriteTime = now + interval;
+            }
+        }
+    }
+
+    private void write(int depth) {
+        if (output != null) {
+            output.flush();
+        }
+        int count = (counter == null)? 0 : counter.getCount();
+        long outputLength = (outputFilepath == null)? -1 : new File(outputFilepath).length();
+        Checkpoint checkpoint = new Checkpoint(
+                formula, count, Arrays.copyOf(positions, depth + 1), outputLength);
+        try {
+            checkpoint.write(filepath);
+        } catch (IOException ioe) {
+            System.err.println("Could not write checkpoint : " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Called at the end of a complete run; the checkpoint is no longer needed.
+     */
+    public void finish() {
+        if (filepath != null) {
+            new File(filepath).delete();
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package augment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Searches the subtrees below a list of nodes on a fork-join pool. Children
+ * are forked off as new tasks while there are few tasks queued and the subtree
+ * below them is deep enough, otherwise they are searched in the same task; so
+ * the order the nodes are visited in is not fixed.
+ *
+ * @author maclean
+ *
+ * @param <N> the type of node in the tree (an augmentation)
+ */
+public class ParallelSearch<N> {
+
+    /**
+     * The rules for a particular kind of augmentation tree.
+     */
+    public interface Expander<N> {
+
+        /**
+         * Handle the node if it is a structure to output, and list the nodes
+         * to search below it. Called from several threads at once.
+         *
+         * @param node a node in the tree
+         * @return the canonical children of the node, in search order
+         */
+        public List<N> expand(N node);
+
+        /**
+         * @param node a node in the tree
+         * @return the number of levels of the tree left below the node
+         */
+        public int getDepthLeft(N node);
+
+    }
+
+    /**
+     * Subtrees with fewer than this many levels left are always searched
+     * on the current thread, as they are too small to be worth a task.
+     */
+    private static final int MIN_SPLIT_DEPTH = 2;
+
+    /**
+     * Only fork new tasks while the worker has fewer than this many queued.
+     */
+    private static final int MAX_SURPLUS_TASKS = 3;
+
+    private final Expander<N> expander;
+
+    private final int threadCount;
+
+    private ForkJoinPool pool;
+
+    public ParallelSearch(Expander<N> expander, int threadCount) {
+        this.expander = expander;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Search below each of the starts, returning when all are done.
+     *
+     * @param starts the nodes to search from
+     */
+    public void searchAll(List<N> starts) {
+        if (pool == null) {
+            pool = new ForkJoinPool(threadCount);
+        }
+        List<SearchTask> tasks = new ArrayList<SearchTask>();
+        for (N start : starts) {
+            SearchTask task = new SearchTask(start);
+            pool.execute(task);
+            tasks.add(task);
+        }
+        for (SearchTask task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Stop the worker threads; called once the generator is finished with.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Searches the subtree below one node.
+     */
+    private class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -1928311245386232750L;
+
+        private final N parent;
+
+        public SearchTask(N parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        protected void compute() {
+            search(parent);
+        }
+
+        private void search(N parent) {
+            List<SearchTask> forked = new ArrayList<SearchTask>();
+            for (N child : expander.expand(parent)) {
+                if (shouldSplit(child)) {
+                    SearchTask task = new SearchTask(child);
+                    task.fork();
+                    forked.add(task);
+                } else {
+                    search(child);
+                }
+            }
+            for (SearchTask task : forked) {
+                task.join();
+            }
+        }
+
+        private boolean shouldSplit(N node) {
+            return expander.getDepthLeft(node) >= MIN_SPLIT_DEPTH
+                    && ForkJoinTask.getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS;
+        }
+    }
+
+}
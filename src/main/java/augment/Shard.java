@@ -0,0 +1,98 @@
+package augment;
+
+import java.io.Serializable;
+
+/**
+ * Selects one part of the search tree, for splitting a run over several
+ * independent processes. The nodes at a fixed split level are numbered in the
+ * order they are reached, and only those with number = residue (mod modulus)
+ * are kept; each of the modulus runs then produces a disjoint part of the output.
+ * A structure that is not below any node at the split level - a complete seed,
+ * which has no children to split - is not numbered, and belongs to shard 0.
+ *
+ * @author maclean
+ *
+ */
+public class Shard implements Serializable {
+
+    private static final long serialVersionUID = -3146930291675283641L;
+
+    private final int residue;
+
+    private final int modulus;
+
+    /**
+     * The number of nodes at the split level seen so far.
+     */
+    private long nodeCount;
+
+    public Shard(int residue, int modulus) {
+        if (modulus < 1 || residue < 0 || residue >= modulus) {
+            throw new IllegalArgumentException(
+                    "Shard must be res/mod with 0 <= res < mod : " + residue + "/" + modulus);
+        }
+        this.residue = residue;
+        this.modulus = modulus;
+        this.nodeCount = 0;
+    }
+
+    /**
+     * @param shardString a string like "3/10"
+     * @return the shard
+     */
+    public static Shard fromString(String shardString) {
+        int slashIndex = shardString.indexOf("/");
+        if (slashIndex == -1) {
+            throw new IllegalArgumentException("Shard must be res/mod : " + shardString);
+        }
+        try {
+            int residue = Integer.parseInt(shardString.substring(0, slashIndex).trim());
+            int modulus = Integer.parseInt(shardString.substring(slashIndex + 1).trim());
+            return new Shard(residue, modulus);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Shard must be res/mod : " + shardString);
+        }
+    }
+
+    /**
+     * Call once for each node reached at the split level, in a fixed order.
+     *
+     * @return true if the subtree below the node belongs to this shard
+     */
+    public boolean next() {
+        boolean isKept = nodeCount % modulus == residue;
+        nodeCount++;
+        return isKept;
+    }
+
+    /**
+     * @return true if the structures not below the split level belong to this shard
+     */
+    public boolean ownsUnsplit() {
+        return residue == 0;
+    }
+
+    /**
+     * The split level used for a search tree with this many levels. This only
+     * depends on the formula, so that every shard of a run uses the same level.
+     *
+     * @param levelCount the number of levels in the tree
+     * @return the level to split at
+     */
+    public static int getSplitLevel(int levelCount) {
+        return levelCount / 2;
+    }
+
+    public int getResidue() {
+        return residue;
+    }
+
+    public int getModulus() {
+        return modulus;
+    }
+
+    public String toString() {
+        return residue + "/" + modulus;
+    }
+
+}
@@ -5,7 +5,11 @@ import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond.Order;
 
 import augment.Augmentation;
+import augment.chem.HCountExtensionChecker;
 import augment.constraints.ElementConstraints;
+import group.PermutationGroup;
+import util.graph.BlockCutTree;
+import util.molecule.CutCalculator;
 
 /**
  * An augmentation of an atom container by atom.
@@ -13,7 +17,7 @@ import augment.constraints.ElementConstraints;
  * @author maclean
  *
  */
-public class AtomAugmentation implements Augmentation<IAtomContainer> {
+public class AtomAugmentation implements Augmentation<IAtomContainer> {
     
     private final IAtomContainer augmentedMolecule;
     
@@ -21,6 +25,27 @@ public class AtomAugmentation implements Augmentation<IAtomContainer> {
     
     private final ElementConstraints elementConstraints;
     
+    /**
+     * The automorphisms of the augmented molecule, if the canonical check found them.
+     */
+    private transient PermutationGroup automorphismGroup;
+    
+    /**
+     * The block-cut tree of the parent, until the one for this is made from it.
+     */
+    private transient BlockCutTree parentBlockCutTree;
+    
+    private transient BlockCutTree blockCutTree;
+    
+    /**
+     * The running totals for the hydrogen count check, if they were made.
+     */
+    private transient HCountExtensionChecker.Bounds hydrogenBounds;
+    
+    /**
+     * The codes of the elements of the atoms in the valence table, if known.
+     */
+    private transient byte[] elementCodes;
    
     /**
      * Construct the initial state.
@@ -52,9 +77,24 @@ public class AtomAugmentation implements Augmentation<IAtomContainer> {
      * @param augmentation a list of bond orders to augment
      */
     public AtomAugmentation(IAtomContainer parent, IAtom atomToAdd, int[] bondOrders, ElementConstraints elementConstraints) {
+        this(parent, null, atomToAdd, bondOrders, elementConstraints);
+    }
+    
+    /**
+     * Make an augmentation whose block-cut tree will be made from the parent's.
+     * 
+     * @param parent the atom container to augment
+     * @param parentBlockCutTree the block-cut tree of the parent, or null
+     * @param atomToAdd the additional atom
+     * @param bondOrders a list of bond orders to augment
+     * @param elementConstraints the elements left to add
+     */
+    public AtomAugmentation(IAtomContainer parent, BlockCutTree parentBlockCutTree, 
+            IAtom atomToAdd, int[] bondOrders, ElementConstraints elementConstraints) {
         this.atomExtension = new AtomExtension(atomToAdd.getSymbol(), bondOrders);
         this.augmentedMolecule = make(parent, atomToAdd, bondOrders);
         this.elementConstraints = elementConstraints;
+        this.parentBlockCutTree = parentBlockCutTree;
     }
     
     public IAtomContainer getAugmentedObject() {
@@ -99,6 +139,47 @@ public class AtomAugmentation implements Augmentation<IAtomContainer> {
         return atomExtension;
     }
     
+    /**
+     * @return the blocks and cut vertices of the augmented molecule, made from 
+     * the parent's if that was given
+     */
+    public BlockCutTree getBlockCutTree() {
+        if (blockCutTree == null) {
+            if (parentBlockCutTree == null) {
+                blockCutTree = CutCalculator.getBlockCutTree(augmentedMolecule);
+            } else {
+                blockCutTree = new BlockCutTree(parentBlockCutTree);
+                blockCutTree.addVertex(atomExtension.getNeighbours());
+                parentBlockCutTree = null;
+            }
+        }
+        return blockCutTree;
+    }
+    
+    public PermutationGroup getAutomorphismGroup() {
+        return automorphismGroup;
+    }
+    
+    public void setAutomorphismGroup(PermutationGroup automorphismGroup) {
+        this.automorphismGroup = automorphismGroup;
+    }
+    
+    public HCountExtensionChecker.Bounds getHydrogenBounds() {
+        return hydrogenBounds;
+    }
+    
+    public void setHydrogenBounds(HCountExtensionChecker.Bounds hydrogenBounds) {
+        this.hydrogenBounds = hydrogenBounds;
+    }
+    
+    public byte[] getElementCodes() {
+        return elementCodes;
+    }
+    
+    public void setElementCodes(byte[] elementCodes) {
+        this.elementCodes = elementCodes;
+    }
+    
     public String toString() {
         return io.AtomContainerPrinter.toString(augmentedMolecule)
                 + " -> " + atomExtension
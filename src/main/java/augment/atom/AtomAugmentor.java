@@ -4,10 +4,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.openscience.cdk.group.AtomContainerDiscretePartitionRefiner;
-import org.openscience.cdk.group.PartitionRefinement;
-import org.openscience.cdk.group.Permutation;
-import org.openscience.cdk.group.PermutationGroup;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IChemObjectBuilder;
@@ -15,10 +11,11 @@ import org.openscience.cdk.silent.SilentChemObjectBuilder;
 
 import augment.Augmentor;
 import augment.chem.SaturationCalculator;
+import augment.chem.ValenceTable;
 import augment.constraints.ElementConstraints;
-//import group.Permutation;
-//import group.PermutationGroup;
-//import group.molecule.AtomDiscretePartitionRefiner;
+import group.PermutationGroup;
+import group.StabilizerChain;
+import group.molecule.AutomorphismEngine;
 
 public class AtomAugmentor implements Augmentor<AtomAugmentation> {
     
@@ -33,20 +30,40 @@ public class AtomAugmentor implements Augmentor<AtomAugmentation> {
      */
     private List<String> elementSymbols;
     
-    private SaturationCalculator saturationCalculator = new SaturationCalculator();
+    private SaturationCalculator saturationCalculator;
+    
+    private AutomorphismEngine.Type engineType = AutomorphismEngine.Type.CDK;
     
     public AtomAugmentor(String elementString) {
         elementSymbols = new ArrayList<String>();
         for (int i = 0; i < elementString.length(); i++) {
             elementSymbols.add(String.valueOf(elementString.charAt(i)));
         }
+        this.saturationCalculator = new SaturationCalculator(new ValenceTable(elementSymbols));
      }
     
     public AtomAugmentor(List<String> elementSymbols) {
-        this.elementSymbols = elementSymbols;
+        this(elementSymbols, new ValenceTable(elementSymbols));
      }
+    
+    /**
+     * @param elementSymbols the elements of the run
+     * @param valenceTable the valences, indexed by the codes of the run
+     */
+    public AtomAugmentor(List<String> elementSymbols, ValenceTable valenceTable) {
+        this.elementSymbols = elementSymbols;
+        this.saturationCalculator = new SaturationCalculator(valenceTable);
+    }
 
     
+    /**
+     * @param engineType the kind of engine to find the automorphisms of a 
+     * parent with, when the canonical check did not keep them
+     */
+    public void setEngineType(AutomorphismEngine.Type engineType) {
+        this.engineType = engineType;
+    }
+    
     @Override
     public List<AtomAugmentation> augment(AtomAugmentation parent) {
         IAtomContainer atomContainer = parent.getAugmentedObject();
@@ -54,59 +71,124 @@ public class AtomAugmentor implements Augmentor<AtomAugmentation> {
         ElementConstraints constraints = parent.getConstraints();
         if (constraints == null)
             throw new UnsupportedOperationException("Constraints are null - should not be");
-        IChemObjectBuilder builder = getBuilder();
-        for (String elementSymbol : constraints) {
-            for (int[] bondOrders : getBondOrderArrays(atomContainer, elementSymbol)) {
-                IAtom atomToAdd = builder.newInstance(IAtom.class, elementSymbol);
-                augmentations.add(
-                        new AtomAugmentation(atomContainer, atomToAdd, bondOrders, constraints.minus(elementSymbol)));
-            }
+        byte[] elementCodes = getElementCodes(parent);
+        for (AtomExtension extension : getExtensions(
+                atomContainer, elementCodes, constraints, parent.getAutomorphismGroup())) {
+            augmentations.add(augment(parent, extension));
         }
         
         return augmentations;
     }
     
-    private List<int[]> getBondOrderArrays(IAtomContainer atomContainer, String symbol) {
-        AtomContainerDiscretePartitionRefiner refiner = PartitionRefinement.forAtoms().create();
-        PermutationGroup autG = refiner.getAutomorphismGroup(atomContainer);
-        int atomCount = atomContainer.getAtomCount();
-
-        // these are the atom indices that can have bonds added
-        int[] saturationCapacity = saturationCalculator.getSaturationCapacity(atomContainer);
-        List<Integer> baseSet = saturationCalculator.getUndersaturatedAtoms(atomCount, saturationCapacity);
-        
-        int maxDegreeSumForCurrent = saturationCalculator.getMaxBondOrderSum(symbol);
-        int maxDegreeForCurrent = saturationCalculator.getMaxBondOrder(symbol);
-        
-        List<int[]> representatives = new ArrayList<int[]>();
-        for (int[] bondOrderArray : saturationCalculator.getBondOrderArrays(
-                baseSet, atomCount, maxDegreeSumForCurrent, maxDegreeForCurrent, saturationCapacity)) {
-            if (isMinimal(bondOrderArray, autG)) {
-                representatives.add(bondOrderArray);
-            }
+    /**
+     * Make the child of a parent for one of its extensions.
+     * 
+     * @param parent the augmentation to extend
+     * @param extension one of the extensions of the parent
+     * @return the child augmentation
+     */
+    public AtomAugmentation augment(AtomAugmentation parent, AtomExtension extension) {
+        String elementSymbol = extension.getElementSymbol();
+        IAtom atomToAdd = getBuilder().newInstance(IAtom.class, elementSymbol);
+        AtomAugmentation augmentation = new AtomAugmentation(
+                parent.getAugmentedObject(), parent.getBlockCutTree(), atomToAdd, 
+                extension.getBondOrderList(), parent.getConstraints().minus(elementSymbol));
+        byte[] parentCodes = parent.getElementCodes();
+        if (parentCodes != null && extension.getElementCode() != -1) {
+            byte[] elementCodes = Arrays.copyOf(parentCodes, parentCodes.length + 1);
+            elementCodes[parentCodes.length] = (byte) extension.getElementCode();
+            augmentation.setElementCodes(elementCodes);
         }
-
-        return representatives;
+        return augmentation;
     }
     
-    private boolean isMinimal(int[] bondOrderArray, PermutationGroup autG) {
-        String oStr = Arrays.toString(bondOrderArray);
-        for (Permutation p : autG.all()) {
-//            System.out.println("comparing " + oStr + " and " + p + " of " + Arrays.toString(bondOrderArray));
-            String pStr = Arrays.toString(permute(bondOrderArray, p));
-            if (oStr.compareTo(pStr) < 0) {
-                return false;
-            }
+    /**
+     * @return the codes of the elements of the atoms of an augmentation, made 
+     * and kept on it if they were not known; or null if they cannot be made
+     */
+    public byte[] getElementCodes(AtomAugmentation augmentation) {
+        byte[] elementCodes = augmentation.getElementCodes();
+        if (elementCodes == null) {
+            elementCodes = getElementCodes(augmentation.getAugmentedObject());
+            augmentation.setElementCodes(elementCodes);
         }
-        return true;
+        return elementCodes;
+    }
+    
+    /**
+     * @param atomContainer a structure
+     * @return the codes of the elements of its atoms, or null if any is not of the run
+     */
+    public byte[] getElementCodes(IAtomContainer atomContainer) {
+        return saturationCalculator.getElementCodes(atomContainer);
     }
     
-    private int[] permute(int[] a, Permutation p) {
-        int[] pA = new int[a.length];
-        for (int i = 0; i < a.length; i++) {
-            pA[p.get(i)] = a[i];
+    /**
+     * The same children as {@link #augment(AtomAugmentation)}, in the same order,
+     * but only as extensions - no child molecules are made.
+     * 
+     * @param atomContainer the parent
+     * @param constraints the elements left to add
+     * @param autG the automorphisms of the parent, or null if they are not known yet
+     * @return a list of extensions
+     */
+    public List<AtomExtension> getExtensions(
+            IAtomContainer atomContainer, ElementConstraints constraints, PermutationGroup autG) {
+        return getExtensions(atomContainer, getElementCodes(atomContainer), constraints, autG);
+    }
+    
+    /**
+     * The extensions of a structure whose element codes are known.
+     * 
+     * @param atomContainer the parent
+     * @param elementCodes the codes of the elements of its atoms, or null if not known
+     * @param constraints the elements left to add
+     * @param autG the automorphisms of the parent, or null if they are not known yet
+     * @return a list of extensions
+     */
+    public List<AtomExtension> getExtensions(IAtomContainer atomContainer, 
+            byte[] elementCodes, ElementConstraints constraints, PermutationGroup autG) {
+        if (autG == null) {
+            autG = engineType.create().getAutomorphismGroup(atomContainer);
         }
-        return pA;
+        StabilizerChain chain = StabilizerChain.of(autG);
+        
+        // these are the atom indices that can have bonds added
+        int[] saturationCapacity = (elementCodes == null)? 
+                saturationCalculator.getSaturationCapacity(atomContainer) : 
+                saturationCalculator.getSaturationCapacity(atomContainer, elementCodes);
+        List<Integer> baseSet = saturationCalculator.getUndersaturatedAtoms(
+                atomContainer.getAtomCount(), saturationCapacity);
+        
+        List<AtomExtension> extensions = new ArrayList<AtomExtension>();
+        ValenceTable valenceTable = saturationCalculator.getValenceTable();
+        for (String elementSymbol : constraints) {
+            int code = valenceTable.getCode(elementSymbol);
+            for (int[] bondOrders : getBondOrderArrays(
+                    atomContainer.getAtomCount(), baseSet, saturationCapacity, elementSymbol, code, chain)) {
+                extensions.add(new AtomExtension(elementSymbol, code, bondOrders));
+            }
+        }
+        return extensions;
+    }
+    
+    private List<int[]> getBondOrderArrays(int atomCount, List<Integer> baseSet, int[] saturationCapacity, 
+            String symbol, int code, StabilizerChain chain) {
+        int maxDegreeSumForCurrent = (code == -1)? 
+                saturationCalculator.getMaxBondOrderSum(symbol) : saturationCalculator.getMaxBondOrderSum(code);
+        int maxDegreeForCurrent = (code == -1)? 
+                saturationCalculator.getMaxBondOrder(symbol) : saturationCalculator.getMaxBondOrder(code);
+        
+        List<int[]> representatives = new ArrayList<int[]>();
+        saturationCalculator.forEachBondOrderArray(
+                baseSet, atomCount, maxDegreeSumForCurrent, maxDegreeForCurrent, saturationCapacity, 
+                bondOrderArray -> {
+                    if (chain.isLargestImage(bondOrderArray)) {
+                        representatives.add(bondOrderArray.clone());
+                    }
+                });
+
+        return representatives;
     }
     
 }
@@ -1,42 +1,150 @@
 package augment.atom;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.SortedSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-import org.openscience.cdk.group.AtomContainerDiscretePartitionRefiner;
-import org.openscience.cdk.group.Partition;
-import org.openscience.cdk.group.PartitionRefinement;
-import org.openscience.cdk.group.Permutation;
+import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
 
 import augment.CanonicalChecker;
-//import group.Partition;
-//import group.Permutation;
-//import group.molecule.AtomDiscretePartitionRefiner;
-import util.molecule.CutCalculator;
+import group.Partition;
+import group.Permutation;
+import group.PermutationGroup;
+import group.molecule.AutomorphismEngine;
+import util.graph.BlockCutTree;
 
 public class AtomCanonicalChecker implements CanonicalChecker<AtomAugmentation> {
+    
+    private final AutomorphismEngine.Type engineType;
+    
+    private final CanonicalCheckStatistics statistics;
+    
+    public AtomCanonicalChecker() {
+        this(AutomorphismEngine.Type.CDK);
+    }
+    
+    /**
+     * @param engineType the kind of engine to find the automorphisms with
+     */
+    public AtomCanonicalChecker(AutomorphismEngine.Type engineType) {
+        this(engineType, new CanonicalCheckStatistics());
+    }
+    
+    /**
+     * @param engineType the kind of engine to find the automorphisms with
+     * @param statistics where to count the checks
+     */
+    AtomCanonicalChecker(AutomorphismEngine.Type engineType, CanonicalCheckStatistics statistics) {
+        this.engineType = engineType;
+        this.statistics = statistics;
+    }
 
+    /**
+     * Check the augmentation, and keep the automorphism group if one was found
+     * on the way, for when it is augmented in turn.
+     * 
+     * @param atomAugmentation the augmentation to check
+     * @return true if the last atom is in the orbit of the canonical deletion atom
+     */
     public boolean isCanonical(AtomAugmentation atomAugmentation) {
-        IAtomContainer augmentedMolecule = atomAugmentation.getAugmentedObject();
-        
+        return isCanonical(atomAugmentation.getAugmentedObject(), 
+                atomAugmentation::getBlockCutTree, atomAugmentation::setAutomorphismGroup);
+    }
+    
+    /**
+     * Check the current structure of a working molecule, and keep the automorphism
+     * group if one was found on the way, for when it is augmented in turn.
+     * 
+     * @param workingMolecule a molecule whose last atom was the one added
+     * @return true if the last atom is in the orbit of the canonical deletion atom
+     */
+    public boolean isCanonical(WorkingMolecule workingMolecule) {
+        return isCanonical(workingMolecule.getAtomContainer(), 
+                workingMolecule::getBlockCutTree, workingMolecule::setAutomorphismGroup);
+    }
+    
+    private boolean isCanonical(IAtomContainer augmentedMolecule, 
+            Supplier<BlockCutTree> blockCutTreeSource, Consumer<PermutationGroup> groupSink) {
+        statistics.countCheck();
         if (augmentedMolecule.getAtomCount() <= 2) {
             return true;
         }
         
-        Set<Integer> nonSeparatingAtoms = getNonSeparatingAtoms(augmentedMolecule);
-//        System.out.println(nonSeparatingAtoms);
-        if (nonSeparatingAtoms.size() == 0) {
-            return true;
+        BlockCutTree blockCutTree = blockCutTreeSource.get();
+        int last = augmentedMolecule.getAtomCount() - 1;
+        InvariantStage stage = new InvariantStage(
+                getInvariants(augmentedMolecule), blockCutTree::isCutVertex);
+        InvariantStage.Decision decision = stage.decide(last);
+        statistics.countInvariantStage(decision);
+        if (decision != InvariantStage.Decision.REFINE) {
+            return decision == InvariantStage.Decision.ACCEPT;
         }
+        
+        AutomorphismEngine refiner = engineType.create();
+        groupSink.accept(refiner.getAutomorphismGroup(augmentedMolecule));
 
-        AtomContainerDiscretePartitionRefiner refiner = PartitionRefinement.forAtoms().create();
-        refiner.getAutomorphismGroup(augmentedMolecule);
-
-        int chosen = getChosen(nonSeparatingAtoms, refiner.getBest());
-        int last = augmentedMolecule.getAtomCount() - 1;
-        return inOrbit(chosen, last, refiner.getAutomorphismPartition());
+        int chosen = stage.getChosen(refiner.getBest());
+        if (inOrbit(chosen, last, refiner.getAutomorphismPartition())) {
+            return true;
+        } else {
+            statistics.countRefineReject();
+            return false;
+        }
+    }
+    
+    /**
+     * @return the invariants of the atoms, as described at {@link InvariantStage#pack}
+     */
+    private long[] getInvariants(IAtomContainer atomContainer) {
+        int atomCount = atomContainer.getAtomCount();
+        int[] degrees = new int[atomCount];
+        int[] bondOrders = new int[atomCount];
+        int[][] ends = new int[atomContainer.getBondCount()][];
+        for (int bondIndex = 0; bondIndex < ends.length; bondIndex++) {
+            IBond bond = atomContainer.getBond(bondIndex);
+            int a0 = atomContainer.getAtomNumber(bond.getAtom(0));
+            int a1 = atomContainer.getAtomNumber(bond.getAtom(1));
+            int orderWeight = InvariantStage.getOrderWeight(bond.getOrder().numeric());
+            degrees[a0]++;
+            degrees[a1]++;
+            bondOrders[a0] += orderWeight;
+            bondOrders[a1] += orderWeight;
+            ends[bondIndex] = new int[] { a0, a1 };
+        }
+        int[] neighbourDegrees = new int[atomCount];
+        for (int[] end : ends) {
+            neighbourDegrees[end[0]] += degrees[end[1]];
+            neighbourDegrees[end[1]] += degrees[end[0]];
+        }
+        
+        List<String> symbols = new ArrayList<String>(); 
+        for (IAtom atom : atomContainer.atoms()) {
+            if (!symbols.contains(atom.getSymbol())) {
+                symbols.add(atom.getSymbol());
+            }
+        }
+        Collections.sort(symbols);
+        
+        long[] invariants = new long[atomCount];
+        for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+            long rank = symbols.indexOf(atomContainer.getAtom(atomIndex).getSymbol());
+            invariants[atomIndex] = InvariantStage.pack(
+                    rank, degrees[atomIndex], bondOrders[atomIndex], neighbourDegrees[atomIndex]);
+        }
+        return invariants;
+    }
+    
+    /**
+     * @return the statistics of the checks made so far, as the number at each 
+     * stage, with the fraction of all checks for the stages that decide
+     */
+    public String getStatistics() {
+        return statistics.toString();
     }
     
     private boolean inOrbit(int chosen, int last, Partition orbits) {
@@ -49,33 +157,5 @@ public class AtomCanonicalChecker implements CanonicalChecker<AtomAugmentation>
         }
         return false;   
     }
-    
-    // TODO : combine this method with get non separating atoms
-    private int getChosen(Set<Integer> nonSeparatingAtoms, Permutation labelling) {
-        for (int index = labelling.size() - 1; index >= 0; index--) {
-            int label = labelling.get(index);
-            if (nonSeparatingAtoms.contains(label)) {
-                return label;
-            } else {
-                continue;
-            }
-        }
-        return -1;  // XXX shouldn't happen...
-    }
-    
-    private Set<Integer> getNonSeparatingAtoms(IAtomContainer mol) {
-        Set<Integer> nonSeparatingVertices = new HashSet<>();
-        Set<Integer> cutVertices = CutCalculator.getCutVertices(mol);
-//        System.out.println(cutVertices);
-        for (int index = 0; index < mol.getAtomCount(); index++) {
-            if (cutVertices.contains(index)) {
-                continue;
-            } else {
-                nonSeparatingVertices.add(index);
-            }
-        }
-//        System.out.println(io.AtomContainerPrinter.toString(mol) + " " + nonSeparatingVertices);
-        return nonSeparatingVertices;
-    }
  
 }
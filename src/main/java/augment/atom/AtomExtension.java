@@ -1,21 +1,31 @@
 package augment.atom;
 
-import java.io.Serializable;
-
+import java.io.Serializable;
+
 /**
  * The atom and bond information to add when augmenting.
  * 
  * @author maclean
  *
  */
-public class AtomExtension implements Serializable {
+public class AtomExtension implements Serializable {
     
     private final String elementSymbol;
     
+    /**
+     * The code of the element in the valence table of the run, or -1.
+     */
+    private final int elementCode;
+    
     private final int[] bondOrderList;
 
     public AtomExtension(String elementSymbol, int[] bondOrderList) {
+        this(elementSymbol, -1, bondOrderList);
+    }
+
+    public AtomExtension(String elementSymbol, int elementCode, int[] bondOrderList) {
         this.elementSymbol = elementSymbol;
+        this.elementCode = elementCode;
         this.bondOrderList = bondOrderList;
     }
 
@@ -23,8 +33,36 @@ public class AtomExtension implements Serializable {
         return elementSymbol;
     }
 
+    /**
+     * @return the code of the element, or -1 if it is not known
+     */
+    public int getElementCode() {
+        return elementCode;
+    }
+
     public int[] getBondOrderList() {
         return bondOrderList;
     }
+    
+    /**
+     * @return the indices of the existing atoms that the new one is bonded to
+     */
+    public int[] getNeighbours() {
+        int count = 0;
+        for (int order : bondOrderList) {
+            if (order > 0) {
+                count++;
+            }
+        }
+        int[] neighbours = new int[count];
+        int position = 0;
+        for (int index = 0; index < bondOrderList.length; index++) {
+            if (bondOrderList[index] > 0) {
+                neighbours[position] = index;
+                position++;
+            }
+        }
+        return neighbours;
+    }
 
 }
@@ -1,18 +1,33 @@
 package augment.atom;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Supplier;
 
+import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
 
 import app.FormulaParser;
+import augment.AugmentationSpliterator;
 import augment.AugmentingGenerator;
+import augment.Checkpointer;
+import augment.ParallelSearch;
+import augment.Shard;
 import augment.chem.HCountExtensionChecker;
 import augment.chem.HCountValidator;
+import augment.chem.ValenceTable;
 import augment.constraints.ElementConstraintSource;
 import augment.constraints.ElementConstraints;
+import group.PermutationGroup;
+import group.molecule.AutomorphismEngine;
 import handler.CanonicalHandler;
+import handler.Counter;
 import handler.Handler;
+import handler.SynchronizedHandler;
+import model.PackedMolecule;
 import util.molecule.CDKUtilities;
 
 
@@ -42,62 +57,350 @@ public class AtomGenerator implements AugmentingGenerator<IAtomContainer> {
     
     private int counter;
     
+    private int threadCount = 1;
+    
+    private transient ParallelSearch<AtomAugmentation> parallelSearch;
+    
+    private Shard shard;
+    
+    private Checkpointer checkpointer;
+    
+    /**
+     * The number of searches started, over all calls to run.
+     */
+    private int startCount;
+    
+    /**
+     * If true, sequential searches augment a single working molecule in place.
+     */
+    private boolean inPlace;
+    
+    /**
+     * If true, sequential searches augment a single packed molecule in place.
+     */
+    private boolean packed;
+    
+    /**
+     * The symbols of the valence table, indexed by the element codes of packed molecules.
+     */
+    private String[] packedSymbols;
+    
+    private PackedAtomAugmentor packedAugmentor;
+    
+    private PackedAtomCanonicalChecker packedCanonicalChecker;
+    
+    /**
+     * The index of the structures at the top of the current sequential search.
+     */
+    private int rootIndex;
+    
+    private boolean printingStatistics;
+    
+    /**
+     * The counts of the canonical checks, shared by the checkers of every path.
+     */
+    private final CanonicalCheckStatistics statistics = new CanonicalCheckStatistics();
+    
+    /**
+     * If true, the children at the last level of the current sequential search 
+     * are filtered by their hydrogen counts before they are made, and so are 
+     * not validated again when complete.
+     */
+    private boolean filteringLastLevel;
+    
+    /**
+     * If not null, the handler only counts the structures, so the ones that 
+     * need no validation are counted on this without being made.
+     */
+    private Counter countingOnly;
+    
     public AtomGenerator(String elementFormula, Handler<IAtomContainer> handler) {
         // XXX - parse the formula once and pass down the parser!
         this.initialConstraints = new ElementConstraints(elementFormula);
         FormulaParser formulaParser = new FormulaParser(elementFormula);
-        this.hCountValidator = new HCountValidator(formulaParser);
-        this.hCountExtensionChecker = new HCountExtensionChecker(formulaParser.getHydrogenCount());
+        // one table, with the codes of the constraints, for all the checks
+        ValenceTable valenceTable = new ValenceTable(initialConstraints.getCodes());
+        this.hCountValidator = new HCountValidator(formulaParser, valenceTable);
+        this.hCountExtensionChecker = new HCountExtensionChecker(
+                formulaParser.getHydrogenCount(), valenceTable);
         initialStateSource = new ElementConstraintSource(initialConstraints);
-        this.augmentor = new AtomAugmentor(formulaParser.getElementSymbols());
-        this.canonicalChecker = new AtomCanonicalChecker();
+        this.augmentor = new AtomAugmentor(formulaParser.getElementSymbols(), valenceTable);
+        this.canonicalChecker = new AtomCanonicalChecker(AutomorphismEngine.Type.CDK, statistics);
         this.handler = handler;
         this.maxIndex = formulaParser.getElementSymbols().size() - 1;
+        this.packedSymbols = valenceTable.getCodes().getSymbols();
+        this.packedAugmentor = new PackedAtomAugmentor(valenceTable);
+        this.packedCanonicalChecker = new PackedAtomCanonicalChecker(statistics);
     }
     
     public void setCanonicalHandler(CanonicalHandler<IAtomContainer> canonicalHandler) {
         this.canonicalHandler = canonicalHandler;
      }
     
+    /**
+     * Set the number of worker threads to search with. With more than one
+     * thread, the handler is wrapped so that it is only called by one thread 
+     * at a time - the order of the output is then not fixed.
+     * 
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        if (threadCount > 1) {
+            handler = SynchronizedHandler.wrap(handler);
+        }
+    }
+    
+    public int getThreadCount() {
+        return threadCount;
+    }
+    
+    /**
+     * Only search the subtrees that belong to this shard of the run.
+     * 
+     * @param shard the shard, or null to search the whole tree
+     */
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+    
+    /**
+     * Record the position of the search with this checkpointer, which may also 
+     * be resuming from an earlier checkpoint. Only used with a single thread.
+     * 
+     * @param checkpointer the checkpointer, or null for none
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+    
+    /**
+     * Search by adding to and then undoing changes to a single working molecule, 
+     * rather than cloning the parent for each child. Only the structures passed
+     * to the handler are copied. Not used for multi-threaded searches or when 
+     * there is a canonical handler, as these need the child objects.
+     * 
+     * @param inPlace true to augment in place
+     */
+    public void setInPlace(boolean inPlace) {
+        this.inPlace = inPlace;
+    }
+    
+    public boolean isInPlace() {
+        return inPlace;
+    }
+    
+    /**
+     * Search on a {@link PackedMolecule} that is augmented in place, converting 
+     * to an atom container only for the complete structures. Only used for 
+     * sequential searches of up to {@link PackedMolecule#MAX_ATOM_COUNT} atoms 
+     * without a canonical handler; otherwise the other settings apply.
+     * 
+     * @param packed true to search on packed molecules
+     */
+    public void setPacked(boolean packed) {
+        this.packed = packed;
+    }
+    
+    public boolean isPacked() {
+        return packed;
+    }
+    
+    /**
+     * Find the automorphisms of the atom containers with this kind of engine; 
+     * the default is CDK's refiner. The packed search always uses its own.
+     * 
+     * @param engineType the kind of automorphism engine
+     */
+    public void setEngineType(AutomorphismEngine.Type engineType) {
+        augmentor.setEngineType(engineType);
+        canonicalChecker = new AtomCanonicalChecker(engineType, statistics);
+    }
+    
+    /**
+     * Print how many canonical checks were decided at each stage when the run
+     * finishes, on the error stream so that they do not mix with the structures
+     * written to the standard output.
+     * 
+     * @param printingStatistics true to print the statistics
+     */
+    public void setPrintingStatistics(boolean printingStatistics) {
+        this.printingStatistics = printingStatistics;
+    }
+    
+    /**
+     * Count the complete structures of the sequential search without making 
+     * them, where that can be done. The handler - or the one it synchronizes - 
+     * must be a {@link Counter}, and is never given those structures; so a 
+     * handler that needs them should not set this.
+     * 
+     * @param countingOnly true if the handler only counts
+     * @throws IllegalArgumentException if the handler is not a counter
+     */
+    public void setCountingOnly(boolean countingOnly) {
+        this.countingOnly = countingOnly? toCounter(handler) : null;
+    }
+    
+    private static Counter toCounter(Handler<?> handler) {
+        if (handler instanceof SynchronizedHandler) {
+            return toCounter(((SynchronizedHandler<?>) handler).getDelegate());
+        } else if (handler instanceof Counter) {
+            return (Counter) handler;
+        } else {
+            throw new IllegalArgumentException("Only a Counter can count without the structures");
+        }
+    }
+    
     public void run() {
         for (IAtomContainer start : initialStateSource.get()) {
             String symbol = start.getAtom(0).getSymbol();
-            augment(new AtomAugmentation(start, initialConstraints.minus(symbol)), 0);
+            search(new AtomAugmentation(start, initialConstraints.minus(symbol)), 0);
         }
         // System.out.println("counter = " + counter);
     }
     
     public void run(IAtomContainer initial) {
+        search(getStart(initial), initial.getAtomCount() - 1);
+    }
+    
+    private AtomAugmentation getStart(IAtomContainer initial) {
         List<String> elements = new ArrayList<String>();
         for (int index = 0; index < initial.getAtomCount(); index++) {
             elements.add(initial.getAtom(index).getSymbol());
         }
         ElementConstraints remaining = new ElementConstraints(initialConstraints, new ElementConstraints(elements));
-        augment(new AtomAugmentation(initial, remaining), initial.getAtomCount() - 1);  
+        return new AtomAugmentation(initial, remaining);
+    }
+    
+    @Override
+    public Spliterator<IAtomContainer> spliterator() {
+        List<AtomAugmentation> roots = new ArrayList<AtomAugmentation>();
+        for (IAtomContainer start : initialStateSource.get()) {
+            String symbol = start.getAtom(0).getSymbol();
+            roots.add(new AtomAugmentation(start, initialConstraints.minus(symbol)));
+        }
+        return new AugmentationSpliterator<AtomAugmentation, IAtomContainer>(new AtomSearchTree(), roots);
+    }
+    
+    @Override
+    public Spliterator<IAtomContainer> spliterator(IAtomContainer initial) {
+        return new AugmentationSpliterator<AtomAugmentation, IAtomContainer>(
+                new AtomSearchTree(), Collections.singletonList(getStart(initial)));
+    }
+    
+    private void search(AtomAugmentation start, int index) {
+        boolean isSkipped = isSkipped(0, startCount++);
+        if (shard == null) {
+            if (!isSkipped) {
+                searchAll(Collections.singletonList(start), index);
+            }
+        } else {
+            // a start searched before the checkpoint is still split, so that 
+            // the shard numbers the nodes after it as it did the first time
+            int splitIndex = Math.max(index, Shard.getSplitLevel(maxIndex + 1));
+            List<AtomAugmentation> kept = new ArrayList<AtomAugmentation>();
+            split(start, index, splitIndex, kept);
+            if (!isSkipped) {
+                searchAll(kept, splitIndex);
+            }
+        }
+    }
+    
+    private void searchAll(List<AtomAugmentation> starts, int index) {
+        if (threadCount > 1) {
+            getParallelSearch().searchAll(starts);
+        } else {
+            rootIndex = index;
+            filteringLastLevel = canonicalHandler == null && hCountValidator.isCountedByValenceTable();
+            for (int position = 0; position < starts.size(); position++) {
+                if (isSkipped(1, position)) continue;
+                AtomAugmentation start = starts.get(position);
+                PackedMolecule packedStart = getPackedStart(start);
+                if (packedStart != null) {
+                    augmentPacked(packedStart, null, start.getAugmentedObject(), start.getConstraints(), 
+                            hCountExtensionChecker.getBounds(packedStart, start.getConstraints()), index);
+                } else if (inPlace && canonicalHandler == null) {
+                    WorkingMolecule working = new WorkingMolecule(
+                            start.getAugmentedObject(), augmentor.getElementCodes(start.getAugmentedObject()));
+                    augmentInPlace(working, start.getConstraints(), 
+                            hCountExtensionChecker.getBounds(working.getAtomContainer(), start.getConstraints()), index);
+                } else {
+                    augment(start, index);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return true if this point in the search was done before the checkpoint 
+     * being resumed from, otherwise records that the search is going here
+     */
+    private boolean isSkipped(int depth, int position) {
+        if (checkpointer == null) {
+            return false;
+        } else if (checkpointer.skip(depth, position)) {
+            return true;
+        } else {
+            checkpointer.enter(depth, position);
+            return false;
+        }
+    }
+    
+    /**
+     * Search down to the split level in a fixed order, keeping the nodes there 
+     * that belong to the shard.
+     */
+    private void split(AtomAugmentation parent, int index, int splitIndex, List<AtomAugmentation> kept) {
+        if (index >= splitIndex) {
+            if (shard.next()) {
+                kept.add(parent);
+            }
+            return;
+        }
+        
+        if (!canExtend(parent)) return;
+        
+        for (AtomAugmentation augmentation : extend(parent)) {
+            if (canonicalChecker.isCanonical(augmentation)) {
+                report(true, parent, augmentation);
+                split(augmentation, index + 1, splitIndex, kept);
+            } else {
+                report(false, parent, augmentation);
+            }
+        }
+    }
+    
+    private ParallelSearch<AtomAugmentation> getParallelSearch() {
+        if (parallelSearch == null) {
+            parallelSearch = new ParallelSearch<AtomAugmentation>(new AtomExpander(), threadCount);
+        }
+        return parallelSearch;
     }
     
     private void augment(AtomAugmentation parent, int index) {
         
         counter++;
         if (index >= maxIndex) {
-            IAtomContainer atomContainer = parent.getAugmentedObject();
-            if(SHOW_INTERMEDIATE_DATA)
-                System.out.println(CDKUtilities.atomContainerToString(atomContainer));
-            if (hCountValidator.isValidMol(atomContainer, maxIndex + 1)) {
-                handler.handle(atomContainer);
-                if(SHOW_INTERMEDIATE_DATA)
-                    System.out.println("OK " + CDKUtilities.atomContainerToString(atomContainer));
-
-//                System.out.println("SOLN " + io.AtomContainerPrinter.toString(atomContainer));
-            }
+            handleComplete(parent);
             return;
         }
         
-        if (!hCountExtensionChecker.canExtend(parent.getAugmentedObject(), parent.getConstraints())) return;
+        if (!canExtend(parent)) return;
         
-        for (AtomAugmentation augmentation : augmentor.augment(parent)) {
+        int depth = index - rootIndex + 2;
+        if (filteringLastLevel && index == maxIndex - 1) {
+            augmentLastLevel(parent, depth);
+            return;
+        }
+        List<AtomAugmentation> augmentations = extend(parent);
+        for (int position = 0; position < augmentations.size(); position++) {
+            if (checkpointer != null && checkpointer.skip(depth, position)) continue;
+            AtomAugmentation augmentation = augmentations.get(position);
             if (canonicalChecker.isCanonical(augmentation)) {
                 report(true, parent, augmentation);
+                if (checkpointer != null) {
+                    checkpointer.enter(depth, position);
+                }
                 augment(augmentation, index + 1);
             } else {
                 report(false, parent, augmentation);
@@ -105,17 +408,312 @@ public class AtomGenerator implements AugmentingGenerator<IAtomContainer> {
         }
     }
     
+    /**
+     * Make and check only the children of a parent one atom short that have 
+     * the target hydrogen count, and handle the canonical ones directly.
+     */
+    private void augmentLastLevel(AtomAugmentation parent, int depth) {
+        HCountExtensionChecker.Bounds bounds = parent.getHydrogenBounds();
+        List<AtomExtension> extensions = augmentor.getExtensions(parent.getAugmentedObject(), 
+                augmentor.getElementCodes(parent), parent.getConstraints(), parent.getAutomorphismGroup());
+        for (int position = 0; position < extensions.size(); position++) {
+            if (checkpointer != null && checkpointer.skip(depth, position)) continue;
+            AtomExtension extension = extensions.get(position);
+            if (!hasTargetHCount(bounds, extension)) continue;
+            AtomAugmentation augmentation = augmentor.augment(parent, extension);
+            if (canonicalChecker.isCanonical(augmentation)) {
+                if (checkpointer != null) {
+                    checkpointer.enter(depth, position);
+                }
+                handleFiltered(augmentation::getAugmentedObject);
+            }
+        }
+    }
+    
+    private void augmentInPlace(WorkingMolecule working, 
+            ElementConstraints constraints, HCountExtensionChecker.Bounds bounds, int index) {
+        
+        counter++;
+        IAtomContainer atomContainer = working.getAtomContainer();
+        if (index >= maxIndex) {
+            if (hCountValidator.isValidMol(atomContainer, working.getElementCodes(), maxIndex + 1)) {
+                handler.handle(working.snapshot());
+            }
+            return;
+        }
+        
+        if (!hCountExtensionChecker.canExtend(bounds)) return;
+        
+        int depth = index - rootIndex + 2;
+        boolean isLastLevel = filteringLastLevel && index == maxIndex - 1;
+        List<AtomExtension> extensions = 
+                augmentor.getExtensions(atomContainer, working.getElementCodes(), 
+                        constraints, working.getAutomorphismGroup());
+        for (int position = 0; position < extensions.size(); position++) {
+            if (checkpointer != null && checkpointer.skip(depth, position)) continue;
+            AtomExtension extension = extensions.get(position);
+            if (isLastLevel && !hasTargetHCount(bounds, extension)) continue;
+            working.push(extension);
+            if (canonicalChecker.isCanonical(working)) {
+                if (checkpointer != null) {
+                    checkpointer.enter(depth, position);
+                }
+                if (isLastLevel) {
+                    handleFiltered(working::snapshot);
+                } else {
+                    augmentInPlace(working, constraints.minus(extension.getElementSymbol()), 
+                            extend(bounds, extension), index + 1);
+                }
+            }
+            working.pop();
+        }
+    }
+    
+    /**
+     * @return the start as a packed molecule, or null if the packed search is not used for it
+     */
+    private PackedMolecule getPackedStart(AtomAugmentation start) {
+        if (!packed || canonicalHandler != null || maxIndex >= PackedMolecule.MAX_ATOM_COUNT) {
+            return null;
+        }
+        IAtomContainer atomContainer = start.getAugmentedObject();
+        PackedMolecule molecule = new PackedMolecule(packedSymbols, maxIndex + 1);
+        for (IAtom atom : atomContainer.atoms()) {
+            int code = molecule.getCode(atom.getSymbol());
+            if (code == -1) {
+                return null;    // not an element of the formula
+            }
+            molecule.addAtom(code);
+        }
+        for (IBond bond : atomContainer.bonds()) {
+            molecule.addBond(
+                    atomContainer.getAtomNumber(bond.getAtom(0)), 
+                    atomContainer.getAtomNumber(bond.getAtom(1)), 
+                    bond.getOrder().numeric());
+        }
+        return molecule;
+    }
+    
+    private void augmentPacked(PackedMolecule molecule, 
+            PermutationGroup autG, IAtomContainer start, ElementConstraints constraints, 
+            HCountExtensionChecker.Bounds bounds, int index) {
+        
+        counter++;
+        if (index >= maxIndex) {
+            IAtomContainer atomContainer = toAtomContainer(molecule, start);
+            if (hCountValidator.isValidMol(atomContainer, maxIndex + 1)) {
+                handler.handle(atomContainer);
+            }
+            return;
+        }
+        
+        if (!hCountExtensionChecker.canExtend(bounds)) return;
+        
+        int depth = index - rootIndex + 2;
+        boolean isLastLevel = filteringLastLevel && index == maxIndex - 1;
+        List<AtomExtension> extensions = packedAugmentor.getExtensions(molecule, constraints, autG);
+        PermutationGroup[] childGroup = new PermutationGroup[1];
+        for (int position = 0; position < extensions.size(); position++) {
+            if (checkpointer != null && checkpointer.skip(depth, position)) continue;
+            AtomExtension extension = extensions.get(position);
+            if (isLastLevel && !hasTargetHCount(bounds, extension)) continue;
+            String symbol = extension.getElementSymbol();
+            molecule.addAtom(molecule.getCode(symbol), extension.getBondOrderList());
+            childGroup[0] = null;
+            if (packedCanonicalChecker.isCanonical(molecule, childAutG -> childGroup[0] = childAutG)) {
+                if (checkpointer != null) {
+                    checkpointer.enter(depth, position);
+                }
+                if (isLastLevel) {
+                    handleFiltered(() -> toAtomContainer(molecule, start));
+                } else {
+                    augmentPacked(molecule, childGroup[0], start, constraints.minus(symbol), 
+                            extend(bounds, extension), index + 1);
+                }
+            }
+            molecule.removeLastAtom();
+        }
+    }
+    
+    /**
+     * Make the atom container for a packed molecule by adding its atoms and bonds 
+     * to the start in the same way as {@link AtomAugmentation}.
+     */
+    private IAtomContainer toAtomContainer(PackedMolecule molecule, IAtomContainer start) {
+        WorkingMolecule working = new WorkingMolecule(start);
+        for (int atomIndex = start.getAtomCount(); atomIndex < molecule.getAtomCount(); atomIndex++) {
+            int[] bondOrders = new int[atomIndex];
+            for (int otherIndex = 0; otherIndex < atomIndex; otherIndex++) {
+                bondOrders[otherIndex] = molecule.getBondOrder(otherIndex, atomIndex);
+            }
+            working.push(new AtomExtension(molecule.getSymbol(atomIndex), bondOrders));
+        }
+        return working.getAtomContainer();
+    }
+    
+    /**
+     * Check the hydrogen count bounds of an augmentation, making them from 
+     * scratch if it is a start, or was not made by {@link #extend(AtomAugmentation)}.
+     */
+    private boolean canExtend(AtomAugmentation augmentation) {
+        HCountExtensionChecker.Bounds bounds = augmentation.getHydrogenBounds();
+        if (bounds == null) {
+            bounds = hCountExtensionChecker.getBounds(
+                    augmentation.getAugmentedObject(), augmentation.getConstraints());
+            augmentation.setHydrogenBounds(bounds);
+        }
+        return hCountExtensionChecker.canExtend(bounds);
+    }
+    
+    /**
+     * @return the children of a parent, with their hydrogen count bounds made 
+     * from the parent's - which were made when the parent was checked 
+     */
+    private List<AtomAugmentation> extend(AtomAugmentation parent) {
+        List<AtomAugmentation> augmentations = augmentor.augment(parent);
+        HCountExtensionChecker.Bounds bounds = parent.getHydrogenBounds();
+        if (bounds != null) {
+            for (AtomAugmentation augmentation : augmentations) {
+                augmentation.setHydrogenBounds(extend(bounds, augmentation.getExtension()));
+            }
+        }
+        return augmentations;
+    }
+    
+    private HCountExtensionChecker.Bounds extend(HCountExtensionChecker.Bounds bounds, AtomExtension extension) {
+        if (extension.getElementCode() == -1) {
+            return hCountExtensionChecker.extend(
+                    bounds, extension.getElementSymbol(), extension.getBondOrderList());
+        } else {
+            return hCountExtensionChecker.extend(
+                    bounds, extension.getElementCode(), extension.getBondOrderList());
+        }
+    }
+    
+    /**
+     * With no valence spread, a complete structure can only be extended to the 
+     * target hydrogen count if it has it - so this is exact at the last level.
+     */
+    private boolean hasTargetHCount(HCountExtensionChecker.Bounds bounds, AtomExtension extension) {
+        return hCountExtensionChecker.canExtend(extend(bounds, extension));
+    }
+    
+    /**
+     * Handle a complete structure that passed the last level filter, so needs 
+     * no validation; if only counting, the structure is never made.
+     */
+    private void handleFiltered(Supplier<IAtomContainer> complete) {
+        counter++;
+        if (countingOnly != null) {
+            countingOnly.count();
+        } else {
+            handler.handle(complete.get());
+        }
+    }
+    
+    private void handleComplete(AtomAugmentation augmentation) {
+        IAtomContainer atomContainer = augmentation.getAugmentedObject();
+        if(SHOW_INTERMEDIATE_DATA)
+            System.out.println(CDKUtilities.atomContainerToString(atomContainer));
+        if (hCountValidator.isValidMol(atomContainer, augmentation.getElementCodes(), maxIndex + 1)) {
+            handler.handle(atomContainer);
+            if(SHOW_INTERMEDIATE_DATA)
+                System.out.println("OK " + CDKUtilities.atomContainerToString(atomContainer));
+
+//            System.out.println("SOLN " + io.AtomContainerPrinter.toString(atomContainer));
+        }
+    }
+    
     private void report(boolean isCanonical, AtomAugmentation parentAugmentation, AtomAugmentation childAugmentation) {
         if (canonicalHandler != null) {
-            canonicalHandler.handle(
-                    parentAugmentation.getAugmentedObject(), 
-                    childAugmentation.getAugmentedObject(), 
-                    isCanonical);
+            synchronized (canonicalHandler) {
+                canonicalHandler.handle(
+                        parentAugmentation.getAugmentedObject(), 
+                        childAugmentation.getAugmentedObject(), 
+                        isCanonical);
+            }
+        }
+    }
+    
+    /**
+     * The same tree as {@link #augment(AtomAugmentation, int)}, for the spliterator; 
+     * the index of a node is one less than its atom count.
+     */
+    private class AtomSearchTree implements AugmentationSpliterator.SearchTree<AtomAugmentation, IAtomContainer> {
+
+        @Override
+        public List<AtomAugmentation> getChildren(AtomAugmentation node) {
+            List<AtomAugmentation> children = new ArrayList<AtomAugmentation>();
+            IAtomContainer atomContainer = node.getAugmentedObject();
+            if (atomContainer.getAtomCount() - 1 >= maxIndex
+                    || !canExtend(node)) {
+                return children;
+            }
+            for (AtomAugmentation augmentation : extend(node)) {
+                if (canonicalChecker.isCanonical(augmentation)) {
+                    children.add(augmentation);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public IAtomContainer getResult(AtomAugmentation node) {
+            IAtomContainer atomContainer = node.getAugmentedObject();
+            if (atomContainer.getAtomCount() - 1 >= maxIndex 
+                    && hCountValidator.isValidMol(atomContainer, maxIndex + 1)) {
+                return atomContainer;
+            } else {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * The same tree as {@link #augment(AtomAugmentation, int)}, for the parallel 
+     * search; the index of a node is one less than its atom count.
+     */
+    private class AtomExpander implements ParallelSearch.Expander<AtomAugmentation> {
+
+        @Override
+        public List<AtomAugmentation> expand(AtomAugmentation parent) {
+            List<AtomAugmentation> children = new ArrayList<AtomAugmentation>();
+            if (parent.getAugmentedObject().getAtomCount() - 1 >= maxIndex) {
+                handleComplete(parent);
+                return children;
+            }
+            if (!canExtend(parent)) {
+                return children;
+            }
+            for (AtomAugmentation augmentation : extend(parent)) {
+                if (canonicalChecker.isCanonical(augmentation)) {
+                    report(true, parent, augmentation);
+                    children.add(augmentation);
+                } else {
+                    report(false, parent, augmentation);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public int getDepthLeft(AtomAugmentation node) {
+            return maxIndex - (node.getAugmentedObject().getAtomCount() - 1);
         }
     }
 
     @Override
     public void finish() {
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        if (checkpointer != null) {
+            checkpointer.finish();
+        }
+        if (printingStatistics) {
+            System.err.println(statistics);
+        }
         handler.finish();
     }
 
@@ -0,0 +1,69 @@
+package augment.atom;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The number of canonical checks, and of those decided at each stage; shared by
+ * the checkers of one run, so that every path is counted the same way.
+ * 
+ * @author maclean
+ *
+ */
+class CanonicalCheckStatistics {
+    
+    private final AtomicLong checkCount = new AtomicLong();
+    
+    private final AtomicLong invariantRejectCount = new AtomicLong();
+    
+    private final AtomicLong invariantAcceptCount = new AtomicLong();
+    
+    private final AtomicLong refineCount = new AtomicLong();
+    
+    private final AtomicLong refineRejectCount = new AtomicLong();
+    
+    void countCheck() {
+        checkCount.incrementAndGet();
+    }
+    
+    /**
+     * @param decision the outcome of the invariant stage of a check
+     */
+    void countInvariantStage(InvariantStage.Decision decision) {
+        switch (decision) {
+            case ACCEPT: invariantAcceptCount.incrementAndGet(); break;
+            case REJECT: invariantRejectCount.incrementAndGet(); break;
+            default:     refineCount.incrementAndGet(); break;
+        }
+    }
+    
+    void countRefineReject() {
+        refineRejectCount.incrementAndGet();
+    }
+    
+    long getCheckCount() {
+        return checkCount.get();
+    }
+    
+    long getRefineCount() {
+        return refineCount.get();
+    }
+    
+    /**
+     * @return the number at each stage, with the fraction of all checks for
+     * the stages that decide
+     */
+    @Override
+    public String toString() {
+        long checks = checkCount.get();
+        return "checks " + checks
+            + " invariant rejects " + invariantRejectCount.get() + getFraction(invariantRejectCount.get(), checks)
+            + " invariant accepts " + invariantAcceptCount.get() + getFraction(invariantAcceptCount.get(), checks)
+            + " refinements " + refineCount.get() + getFraction(refineCount.get(), checks)
+            + " refinement rejects " + refineRejectCount.get() + getFraction(refineRejectCount.get(), checks);
+    }
+    
+    private String getFraction(long count, long total) {
+        return (total == 0)? "" : String.format(" (%.1f%%)", (100.0 * count) / total); 
+    }
+
+}
@@ -0,0 +1,108 @@
+package augment.atom;
+
+import java.util.function.IntPredicate;
+
+import group.Permutation;
+
+/**
+ * The first stage of the canonical deletion check: the chosen atom is one of 
+ * the non-separating atoms with the largest invariant, so the last atom can
+ * often be judged without a refinement. Both {@link AtomCanonicalChecker} and 
+ * {@link PackedAtomCanonicalChecker} go through this, so that they choose the
+ * same atoms.
+ * 
+ * @author maclean
+ *
+ */
+class InvariantStage {
+    
+    enum Decision { ACCEPT, REJECT, REFINE }
+    
+    private final long[] invariants;
+    
+    private final IntPredicate isCutVertex;
+    
+    private long max;
+    
+    private int maxCount;
+    
+    /**
+     * @param invariants the invariants of the atoms, as made by {@link #pack}
+     * @param isCutVertex true for the atoms that separate the molecule
+     */
+    InvariantStage(long[] invariants, IntPredicate isCutVertex) {
+        this.invariants = invariants;
+        this.isCutVertex = isCutVertex;
+        this.max = Long.MIN_VALUE;
+        for (int atomIndex = 0; atomIndex < invariants.length; atomIndex++) {
+            if (isCutVertex.test(atomIndex)) {
+                continue;
+            } else if (invariants[atomIndex] > max) {
+                max = invariants[atomIndex];
+                maxCount = 1;
+            } else if (invariants[atomIndex] == max) {
+                maxCount++;
+            }
+        }
+    }
+    
+    /**
+     * @param last the atom that was added
+     * @return whether the last atom is accepted or rejected by its invariant, 
+     * or needs a refinement to decide
+     */
+    Decision decide(int last) {
+        if (maxCount == 0) {
+            return Decision.ACCEPT;
+        } else if (invariants[last] != max || isCutVertex.test(last)) {
+            return Decision.REJECT;
+        } else if (maxCount == 1) {
+            // the augmentor finds the group if this is augmented in turn
+            return Decision.ACCEPT;
+        } else {
+            return Decision.REFINE;
+        }
+    }
+    
+    /**
+     * @param labelling the canonical labelling of the molecule
+     * @return the non-separating atom with the largest invariant that is last 
+     * in the labelling
+     */
+    int getChosen(Permutation labelling) {
+        for (int index = labelling.size() - 1; index >= 0; index--) {
+            int label = labelling.get(index);
+            if (!isCutVertex.test(label) && invariants[label] == max) {
+                return label;
+            }
+        }
+        return -1;  // XXX shouldn't happen...
+    }
+    
+    /**
+     * Invariants of the atoms that do not depend on the numbering: the rank of
+     * the element symbol, the degree, the bond orders as a multiset, and the sum
+     * of the degrees of the neighbours - each packed into a part of a long, so
+     * that they compare in that order.
+     */
+    static long pack(long rank, int degree, int bondOrderWeights, int neighbourDegrees) {
+        return (rank << 48) 
+             | ((long) degree << 40)
+             | ((long) bondOrderWeights << 16)
+             | neighbourDegrees;
+    }
+    
+    /**
+     * @return a weight for each order (1 to 3, or higher), so that the sum of 
+     * the weights of up to 15 bonds gives the multiset of their orders
+     */
+    static int getOrderWeight(int order) {
+        switch (order) {
+            case 1:  return 1;
+            case 2:  return 16;
+            case 3:  return 256;
+            default: return 4096;
+        }
+    }
+
+}
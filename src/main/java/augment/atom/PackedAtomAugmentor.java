@@ -0,0 +1,82 @@
+package augment.atom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import augment.chem.SaturationCalculator;
+import augment.chem.ValenceTable;
+import augment.constraints.ElementCodes;
+import augment.constraints.ElementConstraints;
+import group.PermutationGroup;
+import group.StabilizerChain;
+import group.molecule.PackedMoleculeDiscretePartitionRefiner;
+import model.PackedMolecule;
+
+/**
+ * Lists the extensions of a packed molecule, as {@link AtomAugmentor} does for
+ * atom containers; the saturation of each atom is read from the running bond
+ * order sums, and the automorphisms come from the packed refiner. The element 
+ * codes of the molecule and of the constraints are those of the valence table.
+ * 
+ * @author maclean
+ *
+ */
+public class PackedAtomAugmentor {
+    
+    private final SaturationCalculator saturationCalculator;
+    
+    /**
+     * @param valenceTable the valences of the elements of the run
+     */
+    public PackedAtomAugmentor(ValenceTable valenceTable) {
+        this.saturationCalculator = new SaturationCalculator(valenceTable);
+    }
+    
+    /**
+     * @param molecule the parent
+     * @param constraints the elements left to add
+     * @param autG the automorphisms of the parent, or null if they are not known yet
+     * @return the extensions that are not equivalent under the automorphisms of the parent
+     */
+    public List<AtomExtension> getExtensions(
+            PackedMolecule molecule, ElementConstraints constraints, PermutationGroup autG) {
+        List<AtomExtension> extensions = new ArrayList<AtomExtension>();
+        int atomCount = molecule.getAtomCount();
+        
+        // these are the atom indices that can have bonds added
+        int[] saturationCapacity = new int[atomCount];
+        for (int index = 0; index < atomCount; index++) {
+            saturationCapacity[index] = 
+                    saturationCalculator.getMaxBondOrderSum(molecule.getElement(index)) 
+                    - molecule.getBondOrderSum(index);
+        }
+        List<Integer> baseSet = saturationCalculator.getUndersaturatedAtoms(atomCount, saturationCapacity);
+        if (baseSet.isEmpty()) {
+            return extensions;
+        }
+        
+        if (autG == null) {
+            autG = new PackedMoleculeDiscretePartitionRefiner().getAutomorphismGroup(molecule);
+        }
+        StabilizerChain chain = StabilizerChain.of(autG);
+        ElementCodes codes = constraints.getCodes();
+        for (int code = 0; code < codes.size(); code++) {
+            if (constraints.getCount(code) == 0) {
+                continue;
+            }
+            String symbol = codes.getSymbol(code);
+            int elementCode = code;
+            int maxDegreeSumForCurrent = saturationCalculator.getMaxBondOrderSum(code);
+            int maxDegreeForCurrent = saturationCalculator.getMaxBondOrder(code);
+            saturationCalculator.forEachBondOrderArray(
+                    baseSet, atomCount, maxDegreeSumForCurrent, maxDegreeForCurrent, saturationCapacity, 
+                    bondOrderArray -> {
+                        if (chain.isLargestImage(bondOrderArray)) {
+                            extensions.add(new AtomExtension(symbol, elementCode, bondOrderArray.clone()));
+                        }
+                    });
+        }
+        return extensions;
+    }
+    
+}
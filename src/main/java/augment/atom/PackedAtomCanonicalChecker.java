@@ -0,0 +1,120 @@
+package augment.atom;
+
+import java.util.function.Consumer;
+
+import group.PermutationGroup;
+import group.molecule.PackedMoleculeDiscretePartitionRefiner;
+import model.PackedMolecule;
+import util.molecule.PackedCutVertexCalculator;
+
+/**
+ * The canonical deletion check of {@link AtomCanonicalChecker}, on a packed 
+ * molecule; the invariant stage is the same, while the cut vertices are found 
+ * with bit masks and the automorphisms with the packed refiner. The element 
+ * codes are in the order of the sorted symbols, so they rank the elements as 
+ * the symbols do.
+ * 
+ * @author maclean
+ *
+ */
+public class PackedAtomCanonicalChecker {
+    
+    private final CanonicalCheckStatistics statistics;
+    
+    public PackedAtomCanonicalChecker() {
+        this(new CanonicalCheckStatistics());
+    }
+    
+    /**
+     * @param statistics where to count the checks
+     */
+    PackedAtomCanonicalChecker(CanonicalCheckStatistics statistics) {
+        this.statistics = statistics;
+    }
+    
+    /**
+     * @param augmentedMolecule a molecule whose last atom was the one added
+     * @return true if the last atom is in the orbit of the canonical deletion atom
+     */
+    public boolean isCanonical(PackedMolecule augmentedMolecule) {
+        return isCanonical(augmentedMolecule, autG -> {});
+    }
+    
+    /**
+     * @param augmentedMolecule a molecule whose last atom was the one added
+     * @param groupSink given the automorphism group of the molecule, if it is found
+     * @return true if the last atom is in the orbit of the canonical deletion atom
+     */
+    public boolean isCanonical(PackedMolecule augmentedMolecule, Consumer<PermutationGroup> groupSink) {
+        statistics.countCheck();
+        int atomCount = augmentedMolecule.getAtomCount();
+        if (atomCount <= 2) {
+            return true;
+        }
+        
+        long cutVertices = PackedCutVertexCalculator.getCutVertices(augmentedMolecule);
+        int last = atomCount - 1;
+        InvariantStage stage = new InvariantStage(
+                getInvariants(augmentedMolecule), atomIndex -> (cutVertices & (1L << atomIndex)) != 0);
+        InvariantStage.Decision decision = stage.decide(last);
+        statistics.countInvariantStage(decision);
+        if (decision != InvariantStage.Decision.REFINE) {
+            return decision == InvariantStage.Decision.ACCEPT;
+        }
+        
+        PackedMoleculeDiscretePartitionRefiner refiner = new PackedMoleculeDiscretePartitionRefiner();
+        PermutationGroup autG = refiner.getAutomorphismGroup(augmentedMolecule);
+        groupSink.accept(autG);
+        
+        int chosen = stage.getChosen(refiner.getBest());
+        if (inOrbit(chosen, last, autG)) {
+            return true;
+        } else {
+            statistics.countRefineReject();
+            return false;
+        }
+    }
+    
+    /**
+     * @return the invariants of the atoms, as described at {@link InvariantStage#pack}
+     */
+    private long[] getInvariants(PackedMolecule molecule) {
+        int atomCount = molecule.getAtomCount();
+        long[] invariants = new long[atomCount];
+        for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+            int bondOrders = 0;
+            int neighbourDegrees = 0;
+            long neighbours = molecule.getNeighbours(atomIndex);
+            while (neighbours != 0) {
+                int neighbour = Long.numberOfTrailingZeros(neighbours);
+                neighbours &= neighbours - 1;
+                bondOrders += InvariantStage.getOrderWeight(molecule.getBondOrder(atomIndex, neighbour));
+                neighbourDegrees += molecule.getDegree(neighbour);
+            }
+            invariants[atomIndex] = InvariantStage.pack(molecule.getElement(atomIndex), 
+                    molecule.getDegree(atomIndex), bondOrders, neighbourDegrees);
+        }
+        return invariants;
+    }
+    
+    /**
+     * @return the statistics of the checks made so far
+     */
+    public String getStatistics() {
+        return statistics.toString();
+    }
+    
+    private boolean inOrbit(int chosen, int last, PermutationGroup autG) {
+        if (chosen == last) {
+            return true;
+        }
+        PermutationGroup.Cursor p = autG.cursor();
+        while (p.next()) {
+            if (p.get(chosen) == last) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,212 @@
+package augment.atom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond.Order;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+
+import group.PermutationGroup;
+import util.graph.BlockCutTree;
+import util.molecule.CutCalculator;
+
+/**
+ * A single atom container that is augmented in place and then restored, instead
+ * of cloning the parent for every candidate child as {@link AtomAugmentation} does.
+ * The atoms, bonds, and implicit hydrogen counts after a push and pop are the same
+ * as before, so the checks see exactly what they would see on a clone.
+ *
+ * @author maclean
+ *
+ */
+public class WorkingMolecule {
+
+    private final IAtomContainer atomContainer;
+
+    private final IChemObjectBuilder builder;
+
+    /**
+     * The extensions pushed so far.
+     */
+    private final List<AtomExtension> extensions;
+
+    /**
+     * For each push, the implicit hydrogen counts of the bonded atoms before the push.
+     */
+    private final List<Integer[]> savedHCounts;
+
+    /**
+     * The automorphisms of the structure after each push, where known.
+     */
+    private final List<PermutationGroup> automorphismGroups;
+
+    /**
+     * The block-cut trees of the start and of the structure after each push, 
+     * where made.
+     */
+    private final List<BlockCutTree> blockCutTrees;
+
+    /**
+     * The codes of the elements of the atoms in the valence table, with room
+     * for more; or null if they are not known.
+     */
+    private byte[] elementCodes;
+
+    /**
+     * @param initial the structure to start from; this is cloned, not changed
+     */
+    public WorkingMolecule(IAtomContainer initial) {
+        this(initial, null);
+    }
+
+    /**
+     * @param initial the structure to start from; this is cloned, not changed
+     * @param initialCodes the codes of the elements of its atoms, or null
+     */
+    public WorkingMolecule(IAtomContainer initial, byte[] initialCodes) {
+        try {
+            this.atomContainer = (IAtomContainer) initial.clone();
+        } catch (CloneNotSupportedException cnse) {
+            throw new RuntimeException(cnse);
+        }
+        this.builder = atomContainer.getBuilder();
+        this.extensions = new ArrayList<AtomExtension>();
+        this.savedHCounts = new ArrayList<Integer[]>();
+        this.automorphismGroups = new ArrayList<PermutationGroup>();
+        this.blockCutTrees = new ArrayList<BlockCutTree>();
+        this.blockCutTrees.add(CutCalculator.getBlockCutTree(atomContainer));
+        if (initialCodes != null) {
+            this.elementCodes = Arrays.copyOf(initialCodes, Math.max(initialCodes.length * 2, 8));
+        }
+    }
+
+    /**
+     * Add the atom and bonds of the extension.
+     *
+     * @param extension the element and bond orders to the existing atoms
+     */
+    public void push(AtomExtension extension) {
+        int[] bondOrders = extension.getBondOrderList();
+        int lastIndex = atomContainer.getAtomCount();
+        Integer[] hCounts = new Integer[lastIndex];
+        atomContainer.addAtom(builder.newInstance(IAtom.class, extension.getElementSymbol()));
+        if (elementCodes != null) {
+            if (extension.getElementCode() == -1) {
+                elementCodes = null;
+            } else {
+                if (lastIndex == elementCodes.length) {
+                    elementCodes = Arrays.copyOf(elementCodes, elementCodes.length * 2);
+                }
+                elementCodes[lastIndex] = (byte) extension.getElementCode();
+            }
+        }
+
+        for (int index = 0; index < bondOrders.length; index++) {
+            int value = bondOrders[index];
+            if (value > 0) {
+                atomContainer.addBond(index, lastIndex, toOrder(value));
+                IAtom partner = atomContainer.getAtom(index);
+                Integer hCount = partner.getImplicitHydrogenCount();
+                hCounts[index] = hCount;
+                int partnerCount = (hCount == null)? 0 : hCount;
+                partner.setImplicitHydrogenCount(partnerCount - value);
+            }
+        }
+        extensions.add(extension);
+        savedHCounts.add(hCounts);
+        automorphismGroups.add(null);
+        blockCutTrees.add(null);
+    }
+
+    /**
+     * Remove the atom and bonds of the last push, and restore the hydrogen counts.
+     */
+    public void pop() {
+        int last = extensions.size() - 1;
+        int[] bondOrders = extensions.remove(last).getBondOrderList();
+        Integer[] hCounts = savedHCounts.remove(last);
+        automorphismGroups.remove(last);
+        blockCutTrees.remove(last + 1);
+        for (int index = bondOrders.length - 1; index >= 0; index--) {
+            if (bondOrders[index] > 0) {
+                atomContainer.removeBond(atomContainer.getBondCount() - 1);
+                atomContainer.getAtom(index).setImplicitHydrogenCount(hCounts[index]);
+            }
+        }
+        // the bonds are already gone, so this only removes the atom
+        atomContainer.removeAtom(atomContainer.getAtom(atomContainer.getAtomCount() - 1));
+    }
+
+    private Order toOrder(int value) {
+        switch (value) {
+            case 1: return Order.SINGLE;
+            case 2: return Order.DOUBLE;
+            case 3: return Order.TRIPLE;
+            default: return Order.SINGLE;
+        }
+    }
+
+    /**
+     * @return the blocks and cut vertices of the current structure, made from
+     * those before the last push
+     */
+    public BlockCutTree getBlockCutTree() {
+        return getBlockCutTree(extensions.size());
+    }
+
+    private BlockCutTree getBlockCutTree(int pushCount) {
+        BlockCutTree tree = blockCutTrees.get(pushCount);
+        if (tree == null) {
+            tree = new BlockCutTree(getBlockCutTree(pushCount - 1));
+            tree.addVertex(extensions.get(pushCount - 1).getNeighbours());
+            blockCutTrees.set(pushCount, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * @return the automorphisms of the current structure, or null if not known
+     */
+    public PermutationGroup getAutomorphismGroup() {
+        return automorphismGroups.isEmpty()? null : automorphismGroups.get(automorphismGroups.size() - 1);
+    }
+
+    /**
+     * @param automorphismGroup the automorphisms of the current structure
+     */
+    public void setAutomorphismGroup(PermutationGroup automorphismGroup) {
+        if (!automorphismGroups.isEmpty()) {
+            automorphismGroups.set(automorphismGroups.size() - 1, automorphismGroup);
+        }
+    }
+
+    /**
+     * @return the codes of the elements of the atoms, or null if not known; 
+     * only the entries up to the atom count are used
+     */
+    public byte[] getElementCodes() {
+        return elementCodes;
+    }
+
+    /**
+     * @return the working structure - this changes as the search goes on
+     */
+    public IAtomContainer getAtomContainer() {
+        return atomContainer;
+    }
+
+    /**
+     * @return a copy of the current structure, to pass to a handler
+     */
+    public IAtomContainer snapshot() {
+        try {
+            return (IAtomContainer) atomContainer.clone();
+        } catch (CloneNotSupportedException cnse) {
+            throw new RuntimeException(cnse);
+        }
+    }
+
+}
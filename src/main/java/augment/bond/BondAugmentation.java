@@ -8,6 +8,9 @@ import org.openscience.cdk.silent.SilentChemObjectBuilder;
 
 import augment.Augmentation;
 import augment.constraints.ElementConstraints;
+import group.PermutationGroup;
+import util.graph.BlockCutTree;
+import util.molecule.CutCalculator;
 
 /**
  * Augmentation of an atom container by adding a bond between two atoms, or 
@@ -29,6 +32,18 @@ public class BondAugmentation implements Augmentation<IAtomContainer> {
     
     
     private final ElementConstraints elementConstraints;
+    
+    /**
+     * The automorphisms of the augmented molecule, if found by the canonical check.
+     */
+    private transient PermutationGroup automorphismGroup;
+    
+    /**
+     * The block-cut tree of the parent, if known, to extend by the new bond.
+     */
+    private transient BlockCutTree parentBlockCutTree;
+    
+    private transient BlockCutTree blockCutTree;
 
     public BondAugmentation(IAtomContainer parent, ElementConstraints elementConstraints) {
         this.augmentedMolecule = parent; // TODO : could clone...
@@ -37,9 +52,15 @@ public class BondAugmentation implements Augmentation<IAtomContainer> {
     }
     
     public BondAugmentation(IAtomContainer parent, BondExtension bondExtension, ElementConstraints elementConstraints) {
+        this(parent, null, bondExtension, elementConstraints);
+    }
+    
+    public BondAugmentation(IAtomContainer parent, BlockCutTree parentBlockCutTree, 
+            BondExtension bondExtension, ElementConstraints elementConstraints) {
         this.bondExtension = bondExtension;
         this.augmentedMolecule = extend(parent, bondExtension);
         this.elementConstraints = elementConstraints;
+        this.parentBlockCutTree = parentBlockCutTree;
     }
     
     private IAtomContainer extend(IAtomContainer parent, BondExtension bondExtension) {
@@ -94,4 +115,34 @@ public class BondAugmentation implements Augmentation<IAtomContainer> {
     public ElementConstraints getConstraints() {
         return elementConstraints;
     }
+
+    public PermutationGroup getAutomorphismGroup() {
+        return automorphismGroup;
+    }
+
+    public void setAutomorphismGroup(PermutationGroup automorphismGroup) {
+        this.automorphismGroup = automorphismGroup;
+    }
+    
+    /**
+     * @return the blocks and cut vertices of the augmented molecule, from the
+     * tree of the parent if there is one
+     */
+    public BlockCutTree getBlockCutTree() {
+        if (blockCutTree == null) {
+            if (parentBlockCutTree == null || bondExtension == null) {
+                blockCutTree = CutCalculator.getBlockCutTree(augmentedMolecule);
+            } else {
+                blockCutTree = new BlockCutTree(parentBlockCutTree);
+                IndexPair position = bondExtension.getIndexPair();
+                if (position.getEnd() > parentBlockCutTree.getVertexCount() - 1) {
+                    blockCutTree.addVertex(position.getStart());
+                } else {
+                    blockCutTree.addEdge(position.getStart(), position.getEnd());
+                }
+                parentBlockCutTree = null;
+            }
+        }
+        return blockCutTree;
+    }
 }
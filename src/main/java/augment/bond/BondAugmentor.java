@@ -1,6 +1,7 @@
 package augment.bond;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -11,11 +12,15 @@ import org.openscience.cdk.interfaces.IAtomContainer;
 import app.FormulaParser;
 import augment.Augmentor;
 import augment.chem.SaturationCalculator;
+import augment.chem.ValenceTable;
 import augment.constraints.ElementConstraints;
+import group.AbstractDiscretePartitionRefiner;
 import group.Partition;
 import group.Permutation;
 import group.PermutationGroup;
+import group.invariant.AtomInvariant;
 import group.molecule.AtomDiscretePartitionRefiner;
+import util.graph.BlockCutTree;
 
 public class BondAugmentor implements Augmentor<BondAugmentation> {
    
@@ -25,9 +30,20 @@ public class BondAugmentor implements Augmentor<BondAugmentation> {
     
     private FormulaParser formulaParser;
     
+    private List<AtomInvariant> invariants = Collections.emptyList();
+    
     public BondAugmentor(String elementFormula) {
         this.formulaParser = new FormulaParser(elementFormula);
-        this.saturationCalculator = new SaturationCalculator();
+        this.saturationCalculator = 
+                new SaturationCalculator(new ValenceTable(formulaParser.getElementSymbols()));
+    }
+
+    /**
+     * @param invariants the invariants to split the initial partition by, 
+     * when the parent has no automorphism group
+     */
+    public void setInvariants(List<AtomInvariant> invariants) {
+        this.invariants = invariants;
     }
 
     @Override
@@ -36,24 +52,30 @@ public class BondAugmentor implements Augmentor<BondAugmentation> {
         
         IAtomContainer atomContainer = parent.getAugmentedObject();
         int atomCount = atomContainer.getAtomCount();
-        AtomDiscretePartitionRefiner refiner = new AtomDiscretePartitionRefiner();
-        PermutationGroup autG = refiner.getAutomorphismGroup(atomContainer);
+        PermutationGroup autG = parent.getAutomorphismGroup();
+        if (autG == null) {
+            AtomDiscretePartitionRefiner refiner = new AtomDiscretePartitionRefiner();
+            refiner.setInvariants(invariants);
+            autG = refiner.getAutomorphismGroup(atomContainer);
+        }
+        Partition orbits = AbstractDiscretePartitionRefiner.getAutomorphismPartition(autG);
         int[] saturationCapacity = saturationCalculator.getSaturationCapacity(atomContainer);
         List<Integer> undersaturatedAtoms = 
                 saturationCalculator.getUndersaturatedAtoms(atomCount, saturationCapacity);
         
         ElementConstraints constraints = parent.getConstraints();
+        BlockCutTree parentTree = parent.getBlockCutTree();
         for (IndexPair position : getInternalPositions(atomContainer, undersaturatedAtoms, saturationCapacity, autG)) {
             BondExtension extension = new BondExtension(position, null);
             augmentations.add(
-                    new BondAugmentation(atomContainer, extension, constraints));
+                    new BondAugmentation(atomContainer, parentTree, extension, constraints));
         }
         
         for (String literal : constraints) {
-            for (IndexPair position : getExternalPositions(atomCount, undersaturatedAtoms, saturationCapacity, refiner, literal)) {
+            for (IndexPair position : getExternalPositions(atomCount, undersaturatedAtoms, saturationCapacity, orbits, literal)) {
                 BondExtension extension = new BondExtension(position, literal);
                 augmentations.add(
-                        new BondAugmentation(atomContainer, extension, constraints.minus(literal)));
+                        new BondAugmentation(atomContainer, parentTree, extension, constraints.minus(literal)));
             }
         }
         
@@ -86,12 +108,12 @@ public class BondAugmentor implements Augmentor<BondAugmentation> {
             int atomCount, 
             List<Integer> undersaturatedAtoms, 
             int[] saturationCapacity, 
-            AtomDiscretePartitionRefiner refiner,
+            Partition orbits,
             String elementSymbol) {
         List<IndexPair> positions = new ArrayList<IndexPair>();
         
         if (atomCount < formulaParser.getElementSymbols().size()) {
-            for (int rep : getSingleReps(undersaturatedAtoms, refiner)) {
+            for (int rep : getSingleReps(undersaturatedAtoms, orbits)) {
                 // run through the possible bond orders from the maximum down to 1
                 int addedSaturation = saturationCalculator.getMaxBondOrder(elementSymbol);
                 int max = Math.min(addedSaturation, saturationCapacity[rep]);
@@ -104,9 +126,8 @@ public class BondAugmentor implements Augmentor<BondAugmentation> {
         return positions;
     }
     
-    private Set<Integer> getSingleReps(List<Integer> undersaturatedAtoms, AtomDiscretePartitionRefiner refiner) {
+    private Set<Integer> getSingleReps(List<Integer> undersaturatedAtoms, Partition partition) {
         Set<Integer> singleReps = new HashSet<Integer>();
-        Partition partition = refiner.getAutomorphismPartition();
         for (Integer undersaturatedIndex : undersaturatedAtoms) {
             for (int cellIndex = 0; cellIndex < partition.size(); cellIndex++) {
                 SortedSet<Integer> cell = partition.getCell(cellIndex);
@@ -121,8 +142,9 @@ public class BondAugmentor implements Augmentor<BondAugmentation> {
     
     private boolean isMinimal(IndexPair pair, PermutationGroup autG) {
         String oStr = pair.getStart() + ":" + pair.getEnd();
-        for (Permutation p : autG.all()) {
-            String pStr = getString(pair, p);
+        PermutationGroup.Cursor p = autG.cursor();
+        while (p.next()) {
+            String pStr = getString(pair, p.current());
             if (oStr.compareTo(pStr) > 0) {
 //                System.out.println("Comparing " + oStr + " to " + pStr);
                 return false;
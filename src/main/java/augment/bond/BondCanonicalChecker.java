@@ -1,16 +1,18 @@
 package augment.bond;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
+import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 
 import group.Permutation;
 import group.PermutationGroup;
+import group.invariant.AtomInvariant;
 import group.molecule.AtomDiscretePartitionRefiner;
-import util.molecule.CutCalculator;
+import util.graph.BlockCutTree;
 
 /**
  * Check a bond-wise augmentation of an IAtomContainer for canonicity. 
@@ -19,6 +21,15 @@ import util.molecule.CutCalculator;
  *
  */
 public class BondCanonicalChecker {
+    
+    private List<AtomInvariant> invariants = Collections.emptyList();
+    
+    /**
+     * @param invariants the invariants to split the initial partition by
+     */
+    public void setInvariants(List<AtomInvariant> invariants) {
+        this.invariants = invariants;
+    }
 
     public boolean isCanonical(BondAugmentation bondAugmentation) {
         IAtomContainer augmentedMolecule = bondAugmentation.getAugmentedObject();
@@ -37,13 +48,16 @@ public class BondCanonicalChecker {
             return true;    // disconnected atoms
         }
         
-        List<Integer> nonSeparatingEdges = getNonSeparatingEdges(augmentedMolecule);
+        List<Integer> nonSeparatingEdges = 
+                getNonSeparatingEdges(augmentedMolecule, bondAugmentation.getBlockCutTree());
         if (nonSeparatingEdges.size() == 0) {
             return true;    // oddly
         }
         
         AtomDiscretePartitionRefiner refiner = new AtomDiscretePartitionRefiner();
+        refiner.setInvariants(invariants);
         PermutationGroup aut = refiner.getAutomorphismGroup(augmentedMolecule);
+        bondAugmentation.setAutomorphismGroup(aut);
         Permutation labelling = refiner.getBest();
 //        if (!labelling.isIdentity()) return false;
 //        System.out.println("best = " + labelling.invert());
@@ -62,14 +76,23 @@ public class BondCanonicalChecker {
         return inOrbit(ai, aj, bi, bj, aut);
     }
     
-    private List<Integer> getNonSeparatingEdges(IAtomContainer mol) {
-        Set<Integer> cutEdges = CutCalculator.getCutEdges(mol);
-        // TODO use set diff
+    /**
+     * The bonds that are not bridges - except that for a tree, the bonds to 
+     * leaves also count as non-separating.
+     */
+    private List<Integer> getNonSeparatingEdges(IAtomContainer mol, BlockCutTree blockCutTree) {
+        boolean isTree = mol.getAtomCount() - 1 == mol.getBondCount();
         List<Integer> nonSeparatingEdges = new ArrayList<Integer>();
         for (int index = 0; index < mol.getBondCount(); index++) {
-            if (cutEdges.contains(index)) {
-                continue;
-            } else {
+            IBond bond = mol.getBond(index);
+            IAtom a0 = bond.getAtom(0);
+            IAtom a1 = bond.getAtom(1);
+            int i0 = mol.getAtomNumber(a0);
+            int i1 = mol.getAtomNumber(a1);
+            if (!blockCutTree.isBridge(i0, i1)) {
+                nonSeparatingEdges.add(index);
+            } else if (isTree && 
+                    (mol.getConnectedAtomsCount(a0) == 1 || mol.getConnectedAtomsCount(a1) == 1)) {
                 nonSeparatingEdges.add(index);
             }
         }
@@ -77,7 +100,8 @@ public class BondCanonicalChecker {
     }
     
     private boolean inOrbit(int addedBondI, int addedBondJ, int canDelBondI, int canDelBondJ, PermutationGroup aut) {
-        for (Permutation p : aut.all()) {
+        PermutationGroup.Cursor p = aut.cursor();
+        while (p.next()) {
             int pi = p.get(addedBondI);
             int pj = p.get(addedBondJ);
             if ((pi == canDelBondI && pj == canDelBondJ) || (pj == canDelBondI && pi == canDelBondJ)) {
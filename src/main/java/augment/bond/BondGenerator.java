@@ -1,13 +1,24 @@
 package augment.bond;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
 import org.openscience.cdk.interfaces.IAtomContainer;
 
 import app.FormulaParser;
+import augment.AugmentationSpliterator;
 import augment.AugmentingGenerator;
+import augment.Checkpointer;
+import augment.ParallelSearch;
+import augment.Shard;
 import augment.chem.HCountValidator;
 import augment.constraints.ElementConstraintSource;
 import augment.constraints.ElementConstraints;
+import group.invariant.AtomInvariant;
 import handler.Handler;
+import handler.SynchronizedHandler;
 
 public class BondGenerator implements AugmentingGenerator<IAtomContainer> {
     
@@ -25,8 +36,24 @@ public class BondGenerator implements AugmentingGenerator<IAtomContainer> {
     
     private int counter;
     
+    private int maxAtomCount;
+    
+    private int threadCount = 1;
+    
+    private transient ParallelSearch<BondAugmentation> parallelSearch;
+    
+    private Shard shard;
+    
+    private Checkpointer checkpointer;
+    
+    /**
+     * The number of searches started, over all calls to run.
+     */
+    private int startCount;
+    
     public BondGenerator(String elementFormula, Handler<IAtomContainer> handler) {
         FormulaParser formulaParser = new FormulaParser(elementFormula);
+        this.maxAtomCount = formulaParser.getElementSymbols().size();
         this.initialConstraints = new ElementConstraints(elementFormula); 
         this.augmentor = new BondAugmentor(elementFormula);
         this.handler = handler;
@@ -35,6 +62,56 @@ public class BondGenerator implements AugmentingGenerator<IAtomContainer> {
         hCountValidator = new HCountValidator(formulaParser);
     }
     
+    /**
+     * Set the number of worker threads to search with. With more than one
+     * thread, the handler is wrapped so that it is only called by one thread 
+     * at a time - the order of the output is then not fixed.
+     * 
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        if (threadCount > 1) {
+            handler = SynchronizedHandler.wrap(handler);
+        }
+    }
+    
+    public int getThreadCount() {
+        return threadCount;
+    }
+    
+    /**
+     * Only search the subtrees that belong to this shard of the run. The split
+     * level is a number of atoms, so the nodes in the shard are those that first 
+     * reach that many atoms.
+     * 
+     * @param shard the shard, or null to search the whole tree
+     */
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+    
+    /**
+     * Record the position of the search with this checkpointer, which may also 
+     * be resuming from an earlier checkpoint. Only used with a single thread.
+     * 
+     * @param checkpointer the checkpointer, or null for none
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+    
+    /**
+     * Split the initial partition of each automorphism search by these atom 
+     * invariants. The output is the same, but the searches may be smaller.
+     * 
+     * @param invariants the invariants, in the order to split by
+     */
+    public void setInvariants(List<AtomInvariant> invariants) {
+        augmentor.setInvariants(invariants);
+        canonicalChecker.setInvariants(invariants);
+    }
+    
     public void run() {
         for (IAtomContainer startingStructure : initialStateSource.get()) {
             // XXX null Bond Extension
@@ -44,34 +121,179 @@ public class BondGenerator implements AugmentingGenerator<IAtomContainer> {
 //        System.out.println("counter = " + counter);
     }
     
+    /**
+     * Augment a seed structure, such as one read from a file. The seed is assumed
+     * to be canonical, and only children that add an atom are made from it - the 
+     * structures with more bonds on the same atoms are expected to be seeds 
+     * themselves, so the outputs from a complete list of seeds do not overlap.
+     * 
+     * @param initial the seed structure
+     */
     @Override
     public void run(IAtomContainer initial) {
-        // TODO Auto-generated method stub
-        
+        boolean isSkipped = isSkipped(0, startCount++);
+        if (isSkipped && shard == null) {
+            return;
+        }
+        BondAugmentation start = getStart(initial);
+        // as in augment, a seed on the path to the checkpoint was handled already
+        if (augmentor.isComplete(initial) && (shard == null || shard.ownsUnsplit()) && !isSkipped
+                && (checkpointer == null || !checkpointer.isReplaying())) {
+            handleComplete(start);
+        }
+        search(getSeedChildren(start), isSkipped);
+    }
+    
+    private BondAugmentation getStart(IAtomContainer initial) {
+        List<String> elements = new ArrayList<String>();
+        for (int index = 0; index < initial.getAtomCount(); index++) {
+            elements.add(initial.getAtom(index).getSymbol());
+        }
+        ElementConstraints remaining = new ElementConstraints(initialConstraints, new ElementConstraints(elements));
+        return new BondAugmentation(initial, remaining);
+    }
+    
+    /**
+     * @return the children of a seed that add an atom
+     */
+    private List<BondAugmentation> getSeedChildren(BondAugmentation seed) {
+        int seedAtomCount = seed.getAugmentedObject().getAtomCount();
+        List<BondAugmentation> children = new ArrayList<BondAugmentation>();
+        for (BondAugmentation augmentation : augmentor.augment(seed)) {
+            if (augmentation.getAugmentedObject().getAtomCount() > seedAtomCount) {
+                children.add(augmentation);
+            }
+        }
+        return children;
+    }
+    
+    @Override
+    public Spliterator<IAtomContainer> spliterator() {
+        List<BondAugmentation> roots = new ArrayList<BondAugmentation>();
+        for (IAtomContainer start : initialStateSource.get()) {
+            String symbol = start.getAtom(0).getSymbol();
+            roots.add(new BondAugmentation(start, initialConstraints.minus(symbol)));
+        }
+        return new AugmentationSpliterator<BondAugmentation, IAtomContainer>(new BondSearchTree(null), roots);
+    }
+    
+    @Override
+    public Spliterator<IAtomContainer> spliterator(IAtomContainer initial) {
+        BondAugmentation seed = getStart(initial);
+        return new AugmentationSpliterator<BondAugmentation, IAtomContainer>(
+                new BondSearchTree(seed), Collections.singletonList(seed));
     }
 
     public void run(IAtomContainer initial, ElementConstraints constraints) {
-        augment(new BondAugmentation(initial, constraints));
+        boolean isSkipped = isSkipped(0, startCount++);
+        List<BondAugmentation> starts = new ArrayList<BondAugmentation>();
+        starts.add(new BondAugmentation(initial, constraints));
+        search(starts, isSkipped);
     }
     
-    private void augment(BondAugmentation parent) {
+    /**
+     * @param starts the nodes to search from
+     * @param isSkipped true if the starts were searched before the checkpoint
+     */
+    private void search(List<BondAugmentation> starts, boolean isSkipped) {
+        if (shard == null) {
+            if (!isSkipped) {
+                searchAll(starts);
+            }
+        } else {
+            // starts searched before the checkpoint are still split, so that 
+            // the shard numbers the nodes after them as it did the first time
+            int splitAtomCount = Shard.getSplitLevel(maxAtomCount) + 1;
+            List<BondAugmentation> kept = new ArrayList<BondAugmentation>();
+            for (BondAugmentation start : starts) {
+                split(start, splitAtomCount, kept);
+            }
+            if (!isSkipped) {
+                searchAll(kept);
+            }
+        }
+    }
+    
+    /**
+     * Search down to the split level in a fixed order, keeping the nodes there 
+     * that belong to the shard.
+     */
+    private void split(BondAugmentation parent, int splitAtomCount, List<BondAugmentation> kept) {
+        if (!canonicalChecker.isCanonical(parent)) return;
+        
+        if (parent.getAugmentedObject().getAtomCount() >= splitAtomCount) {
+            if (shard.next()) {
+                kept.add(parent);
+            }
+            return;
+        }
+        
+        for (BondAugmentation augmentation : augmentor.augment(parent)) {
+            split(augmentation, splitAtomCount, kept);
+        }
+    }
+    
+    private void searchAll(List<BondAugmentation> starts) {
+        if (threadCount > 1) {
+            getParallelSearch().searchAll(starts);
+        } else {
+            for (int position = 0; position < starts.size(); position++) {
+                if (isSkipped(1, position)) continue;
+                augment(starts.get(position), 1);
+            }
+        }
+    }
+    
+    /**
+     * @return true if this point in the search was done before the checkpoint 
+     * being resumed from, otherwise records that the search is going here
+     */
+    private boolean isSkipped(int depth, int position) {
+        if (checkpointer == null) {
+            return false;
+        } else if (checkpointer.skip(depth, position)) {
+            return true;
+        } else {
+            checkpointer.enter(depth, position);
+            return false;
+        }
+    }
+    
+    private ParallelSearch<BondAugmentation> getParallelSearch() {
+        if (parallelSearch == null) {
+            parallelSearch = new ParallelSearch<BondAugmentation>(new BondExpander(), threadCount);
+        }
+        return parallelSearch;
+    }
+    
+    private void handleComplete(BondAugmentation augmentation) {
+        IAtomContainer atomContainer = augmentation.getAugmentedObject();
+        if (augmentor.isComplete(atomContainer)) {
+            if (hCountValidator.isValidMol(atomContainer, atomContainer.getAtomCount())) {
+//                System.out.println("SOL "+ io.AtomContainerPrinter.toString(atomContainer));
+                handler.handle(atomContainer);
+            }
+        }
+    }
+    
+    private void augment(BondAugmentation parent, int depth) {
         counter++;
         if (canonicalChecker.isCanonical(parent)) {
-            IAtomContainer atomContainer = parent.getAugmentedObject();
 //            System.out.println(counter + " C " + toString(parent));
-            if (augmentor.isComplete(atomContainer)) {
-                if (hCountValidator.isValidMol(atomContainer, atomContainer.getAtomCount())) {
-//                    System.out.println("SOL "+ io.AtomContainerPrinter.toString(atomContainer));
-                    handler.handle(atomContainer);
-                }
+            // a complete structure can still have ring bonds added below it, 
+            // so it may be on the path to a checkpoint, and handled already
+            if (checkpointer == null || !checkpointer.isReplaying()) {
+                handleComplete(parent);
             }
         } else {
 //            System.out.println(counter + " N " + toString(parent));
             return;
         }
         
-        for (BondAugmentation augmentation : augmentor.augment(parent)) {
-            augment(augmentation);
+        List<BondAugmentation> augmentations = augmentor.augment(parent);
+        for (int position = 0; position < augmentations.size(); position++) {
+            if (isSkipped(depth + 1, position)) continue;
+            augment(augmentations.get(position), depth + 1);
         }
     }
     
@@ -79,8 +301,75 @@ public class BondGenerator implements AugmentingGenerator<IAtomContainer> {
         return io.AtomContainerPrinter.toString(aug.getAugmentedObject()) + " -> " + aug.getExtension() + ", " + aug.getConstraints();
     }
 
+    /**
+     * The same tree as {@link #augment(BondAugmentation, int)}, for the spliterator,
+     * except that children are checked for canonicity before they are visited.
+     */
+    private class BondSearchTree implements AugmentationSpliterator.SearchTree<BondAugmentation, IAtomContainer> {
+        
+        /**
+         * The seed of a seeded run, or null.
+         */
+        private final BondAugmentation seed;
+        
+        public BondSearchTree(BondAugmentation seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public List<BondAugmentation> getChildren(BondAugmentation node) {
+            List<BondAugmentation> candidates = (node == seed)? getSeedChildren(node) : augmentor.augment(node);
+            List<BondAugmentation> children = new ArrayList<BondAugmentation>();
+            for (BondAugmentation augmentation : candidates) {
+                if (canonicalChecker.isCanonical(augmentation)) {
+                    children.add(augmentation);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public IAtomContainer getResult(BondAugmentation node) {
+            IAtomContainer atomContainer = node.getAugmentedObject();
+            if (augmentor.isComplete(atomContainer) 
+                    && hCountValidator.isValidMol(atomContainer, atomContainer.getAtomCount())) {
+                return atomContainer;
+            } else {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * The same tree as {@link #augment(BondAugmentation, int)}, for the 
+     * parallel search; a complete structure can still have children.
+     */
+    private class BondExpander implements ParallelSearch.Expander<BondAugmentation> {
+
+        @Override
+        public List<BondAugmentation> expand(BondAugmentation parent) {
+            if (!canonicalChecker.isCanonical(parent)) {
+                return Collections.emptyList();
+            }
+            handleComplete(parent);
+            return augmentor.augment(parent);
+        }
+
+        @Override
+        public int getDepthLeft(BondAugmentation node) {
+            return maxAtomCount - node.getAugmentedObject().getAtomCount();
+        }
+    }
+
     @Override
     public void finish() {
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        if (checkpointer != null) {
+            checkpointer.finish();
+        }
         handler.finish();
     }
 
@@ -1,17 +1,17 @@
 package augment.chem;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 
 import augment.constraints.ElementConstraints;
+import model.PackedMolecule;
 
 /**
- * Checks a partial structure to see if it could possibly be extended to   
+ * Checks a partial structure to see if it could possibly be extended to a
+ * structure with the target number of hydrogens.
  * 
  * @author maclean
  *
@@ -20,61 +20,179 @@ public class HCountExtensionChecker {
     
     private final int targetHCount;
     
-    private final BondOrderMaps bondOrderMaps;
+    private final ValenceTable valenceTable;
 
     public HCountExtensionChecker(int targetHCount) {
+        this(targetHCount, new ValenceTable());
+    }
+    
+    public HCountExtensionChecker(int targetHCount, ValenceTable valenceTable) {
         this.targetHCount = targetHCount;
-        this.bondOrderMaps = new BondOrderMaps();
+        this.valenceTable = valenceTable;
     }
     
     public boolean canExtend(IAtomContainer partial, ElementConstraints elementConstraints) {
-        if (partial.getAtomCount() < 2) return true;    // FIXME
-        
-        int currentHCount = 0;
-        Map<IAtom, Integer> hCapMap = new HashMap<IAtom, Integer>();
+        return canExtend(getBounds(partial, elementConstraints));
+    }
+    
+    /**
+     * The same check on a packed molecule, using its bond order sums.
+     * 
+     * @param partial the partial structure
+     * @param elementConstraints the elements left to add
+     * @return true if the target hydrogen count can still be reached
+     */
+    public boolean canExtend(PackedMolecule partial, ElementConstraints elementConstraints) {
+        return canExtend(getBounds(partial, elementConstraints));
+    }
+    
+    /**
+     * Check the bounds of a partial structure in constant time. The hydrogens 
+     * of any extension are the free valence of the partial structure and the 
+     * valence of the elements left, less two for each bond order added; and as
+     * the target hydrogen count is fixed, so is the bond order sum to add - the
+     * degrees of unsaturation left, plus one bond for each atom left. That sum 
+     * has to be a whole number, at least the number of atoms left (a tree) and 
+     * at most the valence of the atoms left.
+     * 
+     * The valences are the largest in the table; each smaller valence an atom
+     * takes instead is an option that removes an even number of hydrogens, so 
+     * the sum to add may be less by up to half the spread of the valences.
+     * 
+     * @param bounds the bounds of the partial structure
+     * @return true if the target hydrogen count can still be reached
+     */
+    public boolean canExtend(Bounds bounds) {
+        int excess = bounds.freeValence + bounds.remainingValence - targetHCount;
+        if (excess < 0 || excess % 2 != 0) {
+            return false;
+        }
+        int maxBondOrderSumToAdd = excess / 2;
+        int minBondOrderSumToAdd = (excess - bounds.valenceSpread) / 2;
+        return bounds.remainingCount <= maxBondOrderSumToAdd 
+                && minBondOrderSumToAdd <= bounds.remainingValence;
+    }
+    
+    /**
+     * Make the bounds of a partial structure from scratch.
+     * 
+     * @param partial the partial structure
+     * @param elementConstraints the elements left to add
+     * @return the bounds to check and extend
+     */
+    public Bounds getBounds(IAtomContainer partial, ElementConstraints elementConstraints) {
+        int freeValence = 0;
+        int valenceSpread = 0;
+        for (IAtom atom : partial.atoms()) {
+            freeValence += valenceTable.getMaxValence(atom.getSymbol());
+            valenceSpread += getSpread(atom.getSymbol());
+        }
         for (IBond bond : partial.bonds()) {
-            IAtom atom0 = bond.getAtom(0);
-            IAtom atom1 = bond.getAtom(1);
-            int order = bond.getOrder().numeric();
-            reduceCount(atom0, hCapMap, order);
-            reduceCount(atom1, hCapMap, order);
+            freeValence -= 2 * bond.getOrder().numeric();
         }
-        
-        for (IAtom atom : hCapMap.keySet()) {
-            currentHCount += hCapMap.get(atom);
+        return getBounds(freeValence, valenceSpread, elementConstraints);
+    }
+    
+    /**
+     * Make the bounds of a packed molecule from scratch.
+     * 
+     * @param partial the partial structure
+     * @param elementConstraints the elements left to add
+     * @return the bounds to check and extend
+     */
+    public Bounds getBounds(PackedMolecule partial, ElementConstraints elementConstraints) {
+        int freeValence = 0;
+        int valenceSpread = 0;
+        for (int index = 0; index < partial.getAtomCount(); index++) {
+            String symbol = partial.getSymbol(index);
+            freeValence += valenceTable.getMaxValence(symbol) - partial.getBondOrderSum(index);
+            valenceSpread += getSpread(symbol);
         }
-        
-        int minCount = currentHCount;
-        int maxCount = currentHCount;
+        return getBounds(freeValence, valenceSpread, elementConstraints);
+    }
+    
+    private Bounds getBounds(int freeValence, int valenceSpread, ElementConstraints elementConstraints) {
+        int remainingValence = 0;
+        int remainingCount = 0;
         for (String element : elementConstraints) {
-            for (int count = 0; count < elementConstraints.getCount(element); count++) {
-                int bos = bondOrderMaps.getMaxBondOrderSum(element);
-                minCount -= bos;
-                maxCount += bos - 2;    // -1 hydrogen for each end of an added single bond
-            }
+            int count = elementConstraints.getCount(element);
+            remainingValence += count * valenceTable.getMaxValence(element);
+            valenceSpread += count * getSpread(element);
+            remainingCount += count;
         }
+        return new Bounds(freeValence, remainingValence, remainingCount, valenceSpread);
+    }
+    
+    private int getSpread(String symbol) {
+        return valenceTable.getMaxValence(symbol) - valenceTable.getMinValence(symbol);
+    }
+    
+    /**
+     * Get the bounds of a child from the bounds of its parent, in constant time.
+     * 
+     * @param parent the bounds of the parent
+     * @param elementSymbol the element of the atom added
+     * @param bondOrders the orders of the bonds from the new atom
+     * @return the bounds of the child
+     */
+    public Bounds extend(Bounds parent, String elementSymbol, int[] bondOrders) {
+        return extendByValence(parent, valenceTable.getMaxValence(elementSymbol), bondOrders);
+    }
+    
+    /**
+     * Get the bounds of a child from the bounds of its parent, by element code.
+     * 
+     * @param parent the bounds of the parent
+     * @param elementCode the code of the element of the atom added
+     * @param bondOrders the orders of the bonds from the new atom
+     * @return the bounds of the child
+     */
+    public Bounds extend(Bounds parent, int elementCode, int[] bondOrders) {
+        return extendByValence(parent, valenceTable.getMaxValence(elementCode), bondOrders);
+    }
+    
+    private Bounds extendByValence(Bounds parent, int valence, int[] bondOrders) {
+        int bondOrderSum = 0;
+        for (int bondOrder : bondOrders) {
+            bondOrderSum += bondOrder;
+        }
+        return new Bounds(
+                parent.freeValence + valence - (2 * bondOrderSum), 
+                parent.remainingValence - valence, 
+                parent.remainingCount - 1,
+                parent.valenceSpread);
+    }
+    
+    /**
+     * The running totals for a partial structure: its free valence, the sum of
+     * the maximum valences of its atoms less twice the sum of its bond orders;
+     * the valence and number of the atoms left to add; and the spread - the sum
+     * of the largest less the smallest valence - over all the atoms, which is
+     * the same for the whole search.
+     */
+    public static class Bounds {
         
-        // hcount cannot be negative...
-        minCount = Math.max(0, minCount);
+        private final int freeValence;
         
-        boolean accept = minCount <= targetHCount && targetHCount <= maxCount;
+        private final int remainingValence;
         
-//        print(
-//                io.AtomContainerPrinter.toString(partial),
-//                currentHCount,
-//                minCount,
-//                maxCount,
-//                accept
-//        );
+        private final int remainingCount;
         
-        return accept;
-    }
-    
-    private void reduceCount(IAtom atom, Map<IAtom, Integer> hCapMap, int order) {
-        if (hCapMap.containsKey(atom)) {
-            hCapMap.put(atom, hCapMap.get(atom) - order);
-        } else {
-            hCapMap.put(atom, bondOrderMaps.getMaxBondOrderSum(atom.getSymbol()) - order);
+        private final int valenceSpread;
+        
+        public Bounds(int freeValence, int remainingValence, int remainingCount, int valenceSpread) {
+            this.freeValence = freeValence;
+            this.remainingValence = remainingValence;
+            this.remainingCount = remainingCount;
+            this.valenceSpread = valenceSpread;
+        }
+        
+        public int getFreeValence() {
+            return freeValence;
+        }
+        
+        public String toString() {
+            return freeValence + " " + remainingValence + " " + remainingCount + " " + valenceSpread;
         }
     }
     
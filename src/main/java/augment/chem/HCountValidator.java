@@ -1,8 +1,12 @@
 package augment.chem;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openscience.cdk.atomtype.CDKAtomTypeMatcher;
 import org.openscience.cdk.atomtype.IAtomTypeMatcher;
@@ -15,6 +19,7 @@ import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.silent.SilentChemObjectBuilder;
 
 import app.FormulaParser;
+import augment.constraints.ElementCodes;
 
 /**
  * Validate a molecule as having the correct number of hydrogens.
@@ -39,24 +44,66 @@ public class HCountValidator implements Serializable {
      */
     private int[] maxHRem;
     
-    private final BondOrderMaps bondOrderMaps;
+    private final ValenceTable valenceTable;
+    
+    /**
+     * The elements whose neutral atoms CDK types with a hydrogen count of the 
+     * valence less the bond order sum - so, if they have only one valence in 
+     * the table, those atoms need no typing.
+     */
+    private static final Set<String> TYPED_ELEMENTS = 
+            new HashSet<String>(Arrays.asList("C", "N", "O", "F", "Cl", "Br", "I"));
+    
+    /**
+     * For each element code, true if the hydrogens of its atoms come from the
+     * table: the typed elements, and any with more than one valence - where 
+     * each valence is an option.
+     */
+    private final boolean[] countedByTable;
+    
+    /**
+     * If true, type every atom with CDK, instead of only the ones not in the table.
+     */
+    private boolean usingAtomTypes;
+    
+    private transient IAtomTypeMatcher matcher;
     
     public HCountValidator() {
-        this.bondOrderMaps = new BondOrderMaps();
+        this.valenceTable = new ValenceTable();
+        this.countedByTable = getCountedByTable(valenceTable);
     }
     
     public HCountValidator(FormulaParser formulaParser) {
-        this();
+        this(formulaParser, new ValenceTable(formulaParser.getElementSymbols()));
+    }
+    
+    /**
+     * @param formulaParser the formula of the run
+     * @param valenceTable the valences, indexed by the codes of the run
+     */
+    public HCountValidator(FormulaParser formulaParser, ValenceTable valenceTable) {
+        this.valenceTable = valenceTable;
+        this.countedByTable = getCountedByTable(valenceTable);
         hCount = formulaParser.getHydrogenCount();
         this.setSymbols(formulaParser.getElementSymbols());
     }
+    
+    private static boolean[] getCountedByTable(ValenceTable valenceTable) {
+        ElementCodes codes = valenceTable.getCodes();
+        boolean[] countedByTable = new boolean[codes.size()];
+        for (int code = 0; code < codes.size(); code++) {
+            countedByTable[code] = TYPED_ELEMENTS.contains(codes.getSymbol(code)) 
+                    || valenceTable.getValences(code).length > 1;
+        }
+        return countedByTable;
+    }
 
     
     protected int[] getSaturationCapacity(IAtomContainer parent) {
         int[] satCap = new int[parent.getAtomCount()];
         for (int index = 0; index < parent.getAtomCount(); index++) {
             IAtom atom = parent.getAtom(index);
-            int maxDegree = bondOrderMaps.getMaxBondOrderSum(atom.getSymbol());
+            int maxDegree = valenceTable.getMaxValence(atom.getSymbol());
             int degree = 0;
             for (IBond bond : parent.getConnectedBondsList(atom)) {
                 degree += bond.getOrder().ordinal() + 1;
@@ -66,31 +113,137 @@ public class HCountValidator implements Serializable {
         return satCap;
     }
     
-    public static int HydrogensIncorrectCount = 0;
-    public static int CountIncorrectCount = 0;
-    public static int MoleculeCorrectCount = 0;
+    /**
+     * The outcomes of {@link #isValidMol}, counted over all validators; atomic, 
+     * as the parallel search validates from several threads.
+     */
+    public static final AtomicInteger HydrogensIncorrectCount = new AtomicInteger();
+    public static final AtomicInteger CountIncorrectCount = new AtomicInteger();
+    public static final AtomicInteger MoleculeCorrectCount = new AtomicInteger();
 
     public boolean isValidMol(IAtomContainer atomContainer, int size) {
-        boolean b = hydrogensCorrect(atomContainer);
+        return isValidMol(atomContainer, null, size);
+    }
+    
+    /**
+     * @param atomContainer the complete structure
+     * @param elementCodes the codes of the elements of its atoms, or null if not known
+     * @param size the number of atoms it should have
+     * @return true if it has the right number of atoms and of hydrogens
+     */
+    public boolean isValidMol(IAtomContainer atomContainer, byte[] elementCodes, int size) {
+        boolean b = hydrogensCorrect(atomContainer, elementCodes);
         if (!b) {
-            HydrogensIncorrectCount++;
+            HydrogensIncorrectCount.incrementAndGet();
             return false;
         }
         boolean b1 = atomContainer.getAtomCount() == size;
         if (!b1) {
-            CountIncorrectCount++;
+            CountIncorrectCount.incrementAndGet();
             return false;
         }
-        MoleculeCorrectCount++;
+        MoleculeCorrectCount.incrementAndGet();
         return true;
     }
 
     private IAtomTypeMatcher getMatcher() {
-        IChemObjectBuilder builder =  SilentChemObjectBuilder.getInstance();
-        return CDKAtomTypeMatcher.getInstance(builder);
+        if (matcher == null) {
+            IChemObjectBuilder builder =  SilentChemObjectBuilder.getInstance();
+            matcher = CDKAtomTypeMatcher.getInstance(builder);
+        }
+        return matcher;
+    }
+    
+    /**
+     * @param usingAtomTypes if true, find the hydrogens of every atom from its 
+     * CDK atom type, as before the valence table
+     */
+    public void setUsingAtomTypes(boolean usingAtomTypes) {
+        this.usingAtomTypes = usingAtomTypes;
+    }
+    
+    /**
+     * @return true if the hydrogens of every element of the formula are found 
+     * from the valence table - so a complete structure has the right count 
+     * exactly when the sum of its valences less twice its bond orders is the 
+     * hydrogen count, and it need not be made to check
+     */
+    public boolean isCountedByValenceTable() {
+        if (usingAtomTypes) {
+            return false;
+        }
+        for (int code = 0; code < countedByTable.length; code++) {
+            if (!countedByTable[code] || valenceTable.getValences(code).length > 1) {
+                return false;
+            }
+        }
+        return true;
     }
     
     public boolean hydrogensCorrect(IAtomContainer atomContainer) {
+        return hydrogensCorrect(atomContainer, null);
+    }
+    
+    /**
+     * Check the hydrogens of a structure. An atom with more than one valence 
+     * can have any of a range of hydrogen counts in steps of two, so the sums 
+     * of the atoms make a range that the target has to be in.
+     * 
+     * @param atomContainer the complete structure
+     * @param elementCodes the codes of the elements of its atoms, or null if not known
+     * @return true if the structure can have the target number of hydrogens
+     */
+    public boolean hydrogensCorrect(IAtomContainer atomContainer, byte[] elementCodes) {
+        if (usingAtomTypes) {
+            return hydrogensCorrectByAtomTypes(atomContainer);
+        }
+        
+        int[] bondOrderSums = new int[atomContainer.getAtomCount()];
+        for (IBond bond : atomContainer.bonds()) {
+            int order = bond.getOrder().numeric();
+            bondOrderSums[atomContainer.getAtomNumber(bond.getAtom(0))] += order;
+            bondOrderSums[atomContainer.getAtomNumber(bond.getAtom(1))] += order;
+        }
+        
+        int minCount = 0;
+        int maxCount = 0;
+        for (int index = 0; index < bondOrderSums.length; index++) {
+            IAtom atom = atomContainer.getAtom(index);
+            int code = (elementCodes == null)? valenceTable.getCode(atom.getSymbol()) : elementCodes[index];
+            int bondOrderSum = bondOrderSums[index];
+            Integer charge = atom.getFormalCharge();
+            if (code == -1 || !countedByTable[code]
+                    || (charge != null && charge != 0) 
+                    || bondOrderSum > valenceTable.getMaxValence(code)) {
+                // an unusual atom, so leave it to the atom typer
+                int count = getHydrogenCountFromAtomType(atomContainer, atom);
+                minCount += count;
+                maxCount += count;
+            } else {
+                minCount += valenceTable.getMinHydrogens(code, bondOrderSum);
+                maxCount += valenceTable.getMaxValence(code) - bondOrderSum;
+            }
+            if (minCount > hCount) {
+                return false;
+            }
+        }
+        return hCount <= maxCount && (maxCount - hCount) % 2 == 0;
+    }
+    
+    private int getHydrogenCountFromAtomType(IAtomContainer atomContainer, IAtom atom) {
+        try {
+            IAtomType atomType = getMatcher().findMatchingAtomType(atomContainer, atom);
+            if (atomType == null || atomType.getAtomTypeName().equals("X")) {
+                return 0;
+            } else {
+                return atomType.getFormalNeighbourCount() - atomContainer.getConnectedAtomsCount(atom);
+            }
+        } catch (CDKException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private boolean hydrogensCorrectByAtomTypes(IAtomContainer atomContainer) {
         try {
             IAtomTypeMatcher matcher = getMatcher();
             int actualCount = 0;
@@ -144,7 +297,7 @@ public class HCountValidator implements Serializable {
         for (IAtom atom : atomContainer.atoms()) {
 //        	Integer hCount = atom.getImplicitHydrogenCount(); 
 //            implH += (hCount == null)? 0 : hCount;
-            int atomHCount = bondOrderMaps.getMaxBondOrderSum(atom.getSymbol());
+            int atomHCount = valenceTable.getMaxValence(atom.getSymbol());
             for (IBond bond : atomContainer.getConnectedBondsList(atom)) {
                 atomHCount -= bond.getOrder().numeric();
             }
@@ -172,7 +325,7 @@ public class HCountValidator implements Serializable {
 
     public void setImplicitHydrogens(IAtomContainer parent) {
         for (IAtom atom : parent.atoms()) {
-            int maxBos = bondOrderMaps.getMaxBondOrderSum(atom.getSymbol());
+            int maxBos = valenceTable.getMaxValence(atom.getSymbol());
             int neighbourCount = parent.getConnectedAtomsCount(atom);
             atom.setImplicitHydrogenCount(maxBos - neighbourCount);
         }
@@ -185,7 +338,7 @@ public class HCountValidator implements Serializable {
         int[] bosList = new int[size];
         for (int index = 0; index < elementSymbols.size(); index++) {
             String elementSymbol = elementSymbols.get(index);
-            maxBOS += bondOrderMaps.getMaxBondOrderSum(elementSymbol);
+            maxBOS += valenceTable.getMaxValence(elementSymbol);
             bosList[index] = maxBOS;
         }
         
@@ -3,84 +3,140 @@ package augment.chem;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 
 import augment.bond.IndexPair;
+import combinatorics.BoundedCompositionLister;
 import combinatorics.KSubsetLister;
-import combinatorics.MultiKSubsetLister;
-
-public class SaturationCalculator implements Serializable {
+
+public class SaturationCalculator implements Serializable {
     
     private static final long serialVersionUID = 4524718660608857274L;
 
-    private final BondOrderMaps bondOrderMaps;
+    private final ValenceTable valenceTable;
     
     public SaturationCalculator() {
-        this.bondOrderMaps = new BondOrderMaps();
+        this(new ValenceTable());
+    }
+    
+    public SaturationCalculator(ValenceTable valenceTable) {
+        this.valenceTable = valenceTable;
+    }
+
+    public ValenceTable getValenceTable() {
+        return valenceTable;
     }
 
     public int getMaxBondOrder(String elementSymbol) {
-        return bondOrderMaps.getMaxBondOrder(elementSymbol);
+        return valenceTable.getMaxBondOrder(elementSymbol);
     }
 
     public int getMaxBondOrderSum(String symbol) {
-        return bondOrderMaps.getMaxBondOrderSum(symbol);
+        return valenceTable.getMaxValence(symbol);
+    }
+
+    public int getMaxBondOrder(int code) {
+        return valenceTable.getMaxBondOrder(code);
+    }
+
+    public int getMaxBondOrderSum(int code) {
+        return valenceTable.getMaxValence(code);
+    }
+    
+    /**
+     * @param atomContainer a structure
+     * @return the code in the valence table of each atom, or null if any atom
+     * is not an element of the run
+     */
+    public byte[] getElementCodes(IAtomContainer atomContainer) {
+        byte[] elementCodes = new byte[atomContainer.getAtomCount()];
+        for (int index = 0; index < elementCodes.length; index++) {
+            int code = valenceTable.getCode(atomContainer.getAtom(index).getSymbol());
+            if (code == -1) {
+                return null;
+            }
+            elementCodes[index] = (byte) code;
+        }
+        return elementCodes;
     }
     
     public List<int[]> getBondOrderArrays(
             List<Integer> baseSet, int atomCount, int maxDegreeSumForCurrent, int maxDegree, int[] saturationCapacity) {
         // the possible extensions
         List<int[]> bondOrderArrays = new ArrayList<int[]>();
-        
+        forEachBondOrderArray(baseSet, atomCount, maxDegreeSumForCurrent, maxDegree, saturationCapacity, 
+                bondOrderArray -> bondOrderArrays.add(bondOrderArray.clone()));
+        return bondOrderArrays;
+    }
+    
+    /**
+     * Visit the arrays of bond orders from a new atom to the atoms in the base
+     * set, in the same order as {@link #getBondOrderArrays}, but only making 
+     * the arrays that neither oversaturate an atom nor exceed the maximum bond
+     * order or the maximum sum for the new atom. The array is reused for each
+     * visit, so must be copied to be kept.
+     * 
+     * @param baseSet the indices of the undersaturated atoms
+     * @param atomCount the number of atoms
+     * @param maxDegreeSumForCurrent the maximum bond order sum of the new atom
+     * @param maxDegree the maximum bond order of the new atom
+     * @param saturationCapacity the free valence of each atom
+     * @param consumer the visitor of the bond order arrays
+     */
+    public void forEachBondOrderArray(List<Integer> baseSet, int atomCount, int maxDegreeSumForCurrent, 
+            int maxDegree, int[] saturationCapacity, Consumer<int[]> consumer) {
         // no extension possible
         if (baseSet.size() == 0) {
-            return bondOrderArrays;
-        } else {
-            for (int k = 1; k <= maxDegreeSumForCurrent; k++) {
-                MultiKSubsetLister<Integer> lister = new MultiKSubsetLister<Integer>(k, baseSet);
-                for (List<Integer> multiset : lister) {
-                    int[] bondOrderArray = 
-                        toIntArray(multiset, atomCount, maxDegree, saturationCapacity);
-                    if (bondOrderArray != null) {
-                        bondOrderArrays.add(bondOrderArray);
-                    }
-                }
-            }
-            return bondOrderArrays;
+            return;
         }
-    }
-    
-    public int[] toIntArray(List<Integer> multiset, int size, int maxDegree, int[] satCap) {
-        int[] intArray = new int[size];
-        for (int atomIndex : multiset) {
-            if (atomIndex >= size) return null; // XXX
-            intArray[atomIndex]++;
-            // XXX avoid quadruple bonds and oversaturation 
-            if (intArray[atomIndex] > maxDegree || intArray[atomIndex] > satCap[atomIndex]) {
-                return null;   
+        int[] bounds = new int[atomCount];
+        for (int atomIndex : baseSet) {
+            if (atomIndex < atomCount) {
+                bounds[atomIndex] = Math.min(maxDegree, saturationCapacity[atomIndex]);
             }
         }
-//        System.out.println(multiset + "\t" + Arrays.toString(intArray) + "\t" + Arrays.toString(satCap));
-        return intArray;
+        new BoundedCompositionLister(bounds, maxDegreeSumForCurrent).forEach(consumer);
     }
     
     public int[] getSaturationCapacity(IAtomContainer parent) {
+        byte[] elementCodes = getElementCodes(parent);
+        if (elementCodes != null) {
+            return getSaturationCapacity(parent, elementCodes);
+        }
         int[] satCap = new int[parent.getAtomCount()];
         for (int index = 0; index < parent.getAtomCount(); index++) {
             IAtom atom = parent.getAtom(index);
-            int maxDegree = bondOrderMaps.getMaxBondOrderSum(atom.getSymbol());
-            int degree = 0;
-            for (IBond bond : parent.getConnectedBondsList(atom)) {
-                degree += bond.getOrder().ordinal() + 1;
-            }
-            satCap[index] = maxDegree - degree;
+            satCap[index] = valenceTable.getMaxValence(atom.getSymbol()) - getDegree(parent, atom);
         }
         return satCap;
     }
     
+    /**
+     * @param parent a structure
+     * @param elementCodes the codes of its atoms in the valence table
+     * @return the free valence of each atom
+     */
+    public int[] getSaturationCapacity(IAtomContainer parent, byte[] elementCodes) {
+        int[] satCap = new int[parent.getAtomCount()];
+        for (int index = 0; index < parent.getAtomCount(); index++) {
+            satCap[index] = valenceTable.getMaxValence(elementCodes[index]) 
+                    - getDegree(parent, parent.getAtom(index));
+        }
+        return satCap;
+    }
+    
+    private int getDegree(IAtomContainer parent, IAtom atom) {
+        int degree = 0;
+        for (IBond bond : parent.getConnectedBondsList(atom)) {
+            degree += bond.getOrder().ordinal() + 1;
+        }
+        return degree;
+    }
+    
     public List<Integer> getUndersaturatedAtoms(int atomCount, int[] saturationCapacity) {
         List<Integer> baseSet = new ArrayList<Integer>();
         
@@ -0,0 +1,200 @@
+package augment.chem;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import augment.constraints.ElementCodes;
+
+/**
+ * The allowed valences and the maximum bond order of each element, in arrays
+ * indexed by the element codes of a run. An element may have more than one
+ * valence - like S with 2, 4 or 6 - and each is an option for an atom: the 
+ * saturation checks use the largest, as the most bonds an atom can take, while
+ * the hydrogen count checks allow any valence at least the bond order sum. So
+ * the valences of one element go up in steps of two, and the hydrogens of an 
+ * atom with a given bond order sum can be any of a range of the same parity.
+ * 
+ * Nitrogen only has valence 3, as before the table: allowing 5 would change 
+ * the structures made for every formula with nitrogen.
+ *
+ * @author maclean
+ *
+ */
+public class ValenceTable implements Serializable {
+
+    private static final long serialVersionUID = -4410720286574066130L;
+
+    /**
+     * The allowed valences of each element, smallest first.
+     */
+    private static final Map<String, int[]> VALENCES = new HashMap<String, int[]>();
+
+    /**
+     * The maximum order of any bond to an atom of each element.
+     */
+    private static final Map<String, Integer> MAX_BOND_ORDERS = new HashMap<String, Integer>();
+
+    private static void add(String symbol, int maxBondOrder, int... valences) {
+        VALENCES.put(symbol, valences);
+        MAX_BOND_ORDERS.put(symbol, maxBondOrder);
+    }
+
+    static {
+        add("C", 3, 4);
+        add("O", 2, 2);
+        add("N", 3, 3);     // pentavalent N is rare, and left out
+        add("Ag", 1, 4);
+        add("As", 1, 4);
+        add("Fe", 1, 5);
+        add("S", 2, 2, 4, 6);
+        add("P", 2, 3, 5);
+        add("Br", 1, 1);
+        add("F", 1, 1);
+        add("I", 1, 1);
+        add("Cl", 1, 1);
+    }
+
+    private final ElementCodes codes;
+
+    private final int[][] valences;
+
+    private final int[] maxValences;
+
+    private final int[] minValences;
+
+    private final int[] maxBondOrders;
+
+    /**
+     * Make a table for all the elements with known valences.
+     */
+    public ValenceTable() {
+        this(new ElementCodes(new ArrayList<String>(VALENCES.keySet())));
+    }
+
+    /**
+     * Make a table for the elements of a run.
+     *
+     * @param elementSymbols the element symbols, which may repeat
+     */
+    public ValenceTable(List<String> elementSymbols) {
+        this(new ElementCodes(elementSymbols));
+    }
+
+    /**
+     * Make a table indexed by the codes of a run.
+     *
+     * @param codes the element codes
+     */
+    public ValenceTable(ElementCodes codes) {
+        this.codes = codes;
+        int size = codes.size();
+        this.valences = new int[size][];
+        this.maxValences = new int[size];
+        this.minValences = new int[size];
+        this.maxBondOrders = new int[size];
+        for (int code = 0; code < size; code++) {
+            String symbol = codes.getSymbol(code);
+            valences[code] = getDefaultValences(symbol);
+            minValences[code] = valences[code][0];
+            maxValences[code] = valences[code][valences[code].length - 1];
+            maxBondOrders[code] = MAX_BOND_ORDERS.get(symbol);
+        }
+    }
+
+    private static int[] getDefaultValences(String symbol) {
+        int[] valences = VALENCES.get(symbol);
+        if (valences == null) {
+            throw new IllegalArgumentException("No valences for element " + symbol);
+        }
+        return valences;
+    }
+
+    public ElementCodes getCodes() {
+        return codes;
+    }
+
+    /**
+     * @param symbol an element symbol
+     * @return its code in this table, or -1 if it is not one of the run
+     */
+    public int getCode(String symbol) {
+        return codes.getCode(symbol);
+    }
+
+    /**
+     * @param code the code of an element
+     * @return the largest valence - the maximum bond order sum
+     */
+    public int getMaxValence(int code) {
+        return maxValences[code];
+    }
+
+    public int getMinValence(int code) {
+        return minValences[code];
+    }
+
+    public int getMaxBondOrder(int code) {
+        return maxBondOrders[code];
+    }
+
+    /**
+     * @param code the code of an element
+     * @param bondOrderSum the bond order sum of an atom of that element
+     * @return the fewest hydrogens the atom can have, using the smallest valence 
+     * that is at least the bond order sum; or -1 if the sum is over every valence
+     */
+    public int getMinHydrogens(int code, int bondOrderSum) {
+        for (int valence : valences[code]) {
+            if (valence >= bondOrderSum) {
+                return valence - bondOrderSum;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param code the code of an element
+     * @return the allowed valences, smallest first
+     */
+    public int[] getValences(int code) {
+        return valences[code];
+    }
+
+    /**
+     * @param symbol an element symbol, which need not be one of the run
+     * @return the largest valence - the maximum bond order sum
+     */
+    public int getMaxValence(String symbol) {
+        int code = codes.getCode(symbol);
+        if (code == -1) {
+            int[] valences = getDefaultValences(symbol);
+            return valences[valences.length - 1];
+        } else {
+            return maxValences[code];
+        }
+    }
+
+    public int getMinValence(String symbol) {
+        int code = codes.getCode(symbol);
+        return (code == -1)? getDefaultValences(symbol)[0] : minValences[code];
+    }
+
+    public int getMaxBondOrder(String symbol) {
+        int code = codes.getCode(symbol);
+        if (code == -1) {
+            getDefaultValences(symbol);     // to fail on an unknown element
+            return MAX_BOND_ORDERS.get(symbol);
+        } else {
+            return maxBondOrders[code];
+        }
+    }
+
+    public int[] getValences(String symbol) {
+        int code = codes.getCode(symbol);
+        return (code == -1)? getDefaultValences(symbol) : valences[code];
+    }
+
+}
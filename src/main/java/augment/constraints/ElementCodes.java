@@ -0,0 +1,63 @@
+package augment.constraints;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The element symbols of a run as small integer codes, in the sorted order of
+ * the symbols - so the counts of each element can be kept in a packed vector.
+ *
+ * @author maclean
+ *
+ */
+public class ElementCodes implements Serializable {
+
+    private static final long serialVersionUID = -3014297460281547011L;
+
+    private final String[] symbols;
+
+    private final Map<String, Integer> codes;
+
+    /**
+     * @param elementSymbols the symbols, which may repeat
+     */
+    public ElementCodes(List<String> elementSymbols) {
+        this.symbols = new TreeSet<String>(elementSymbols).toArray(new String[0]);
+        this.codes = new HashMap<String, Integer>();
+        for (int code = 0; code < symbols.length; code++) {
+            codes.put(symbols[code], code);
+        }
+    }
+
+    /**
+     * @param symbol an element symbol
+     * @return its code, or -1 if the symbol is not one of these
+     */
+    public int getCode(String symbol) {
+        Integer code = codes.get(symbol);
+        return (code == null)? -1 : code;
+    }
+
+    public String getSymbol(int code) {
+        return symbols[code];
+    }
+
+    /**
+     * @return the symbols, indexed by code
+     */
+    public String[] getSymbols() {
+        return symbols.clone();
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public String toString() {
+        return codes.toString();
+    }
+
+}
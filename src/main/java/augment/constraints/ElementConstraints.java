@@ -1,82 +1,97 @@
 package augment.constraints;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import app.FormulaParser;
+import app.FormulaParser;
 
-public class ElementConstraints implements Iterable<String>, Serializable {
+/**
+ * The number of atoms of each element left to add, as {@link PackedCounts}
+ * over the {@link ElementCodes} of the run.
+ *
+ * Iteration is over the elements with atoms left, in the order of their codes,
+ * which is the sorted order of the symbols.
+ */
+public class ElementConstraints implements Iterable<String>, Serializable {
     private static final long serialVersionUID = 636691183652463986L;
-    
-    private Map<String, Integer> elementCounts;
-    
+
+    private final PackedCounts counts;
+
     public ElementConstraints(String elementFormula) {
         this(new FormulaParser(elementFormula).getElementSymbols());
     }
-    
+
     public ElementConstraints(List<String> elements) {
-        this.elementCounts = new HashMap<String, Integer>();
-        for (String elementSymbol : elements) {
-            if (elementCounts.containsKey(elementSymbol)) {
-                elementCounts.put(elementSymbol, elementCounts.get(elementSymbol) + 1);
-            } else {
-                elementCounts.put(elementSymbol, 1);
-            }
-        }
+        this(new ElementCodes(elements), elements);
     }
-    
-    public ElementConstraints(Map<String, Integer> elementCounts, String toRemove) {
-        this.elementCounts = new HashMap<String, Integer>();
-        for (String element : elementCounts.keySet()) {
-            int count;
-            if (element.equals(toRemove)) {
-                count = elementCounts.get(element) - 1;
-            } else {
-                count = elementCounts.get(element);
-            }
-            if (count > 0) {
-                this.elementCounts.put(element, count);
-            }
-        }
+
+    /**
+     * @param codes the codes of the run
+     * @param elements the element symbols, which may repeat
+     */
+    public ElementConstraints(ElementCodes codes, List<String> elements) {
+        this(new PackedCounts(codes, elements));
     }
-    
+
+    /**
+     * Make the constraints left after taking the elements of one set from another.
+     *
+     * @param source the constraints to take from
+     * @param diff the elements to take
+     */
     public ElementConstraints(ElementConstraints source, ElementConstraints diff) {
-        this.elementCounts = new HashMap<String, Integer>();
-        for (String element : source.elementCounts.keySet()) {
-            int count;
-            if (diff.elementCounts.containsKey(element)) {
-                count = source.elementCounts.get(element) - diff.elementCounts.get(element);
-                diff.elementCounts.remove(element);
-            } else {
-                count = source.elementCounts.get(element);
-            }
-            if (count > 0) {
-                this.elementCounts.put(element, count);
-            }
-        }
+        this(source.counts.subtract(diff.counts));
     }
-    
+
+    private ElementConstraints(PackedCounts counts) {
+        this.counts = counts;
+    }
+
+    public ElementCodes getCodes() {
+        return counts.getCodes();
+    }
+
+    /**
+     * @return the counts of the elements left, by symbol in the order of the codes
+     */
     public Map<String, Integer> getMap() {
-        return this.elementCounts;
+        return counts.getMap();
+    }
+
+    /**
+     * @param code the code of an element
+     * @return the number of atoms of that element left
+     */
+    public int getCount(int code) {
+        return counts.getCount(code);
+    }
+
+    public int getCount(String element) {
+        return counts.getCount(element);
     }
 
     @Override
     public Iterator<String> iterator() {
-        return elementCounts.keySet().iterator();
+        return counts.iterator();
     }
-    
-    public ElementConstraints minus(String literal) {
-        return new ElementConstraints(elementCounts, literal);
+
+    /**
+     * @param code the code of an element
+     * @return the constraints with one atom of that element fewer, or these 
+     * constraints if there are none of that element left
+     */
+    public ElementConstraints minus(int code) {
+        PackedCounts remaining = counts.minus(code);
+        return (remaining == counts)? this : new ElementConstraints(remaining);
     }
-    
-    public String toString() {
-        return this.elementCounts.toString();
+
+    public ElementConstraints minus(String literal) {
+        return minus(counts.getCodes().getCode(literal));
     }
 
-    public int getCount(String element) {
-        return this.elementCounts.get(element);
+    public String toString() {
+        return counts.toString();
     }
 }
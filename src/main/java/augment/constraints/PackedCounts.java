@@ -0,0 +1,191 @@
+package augment.constraints;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A vector of counts indexed by the {@link ElementCodes} of a run. Up to eight
+ * codes, with counts of at most 255, are packed into a single long - so taking
+ * one away is one subtraction; otherwise the counts are in an array.
+ *
+ * Iteration is over the symbols with a non-zero count, in the order of their
+ * codes - which is the sorted order of the symbols.
+ */
+public class PackedCounts implements Iterable<String>, Serializable {
+    private static final long serialVersionUID = -5384829961750248105L;
+
+    private static final int BITS_PER_COUNT = 8;
+
+    private static final int MAX_PACKED_COUNT = (1 << BITS_PER_COUNT) - 1;
+
+    private static final int MAX_PACKED_CODES = Long.SIZE / BITS_PER_COUNT;
+
+    private final ElementCodes codes;
+
+    /**
+     * The packed counts, if there is no count array.
+     */
+    private final long packedCounts;
+
+    private final int[] counts;
+
+    /**
+     * @param codes the codes of the run
+     * @param symbols the symbols to count, which may repeat
+     */
+    public PackedCounts(ElementCodes codes, List<String> symbols) {
+        this(codes, toCounts(codes, symbols));
+    }
+
+    private PackedCounts(ElementCodes codes, int[] counts) {
+        this.codes = codes;
+        if (isPackable(counts)) {
+            long packed = 0;
+            for (int code = 0; code < counts.length; code++) {
+                packed |= ((long) counts[code]) << (code * BITS_PER_COUNT);
+            }
+            this.packedCounts = packed;
+            this.counts = null;
+        } else {
+            this.packedCounts = 0;
+            this.counts = counts;
+        }
+    }
+
+    private PackedCounts(ElementCodes codes, long packedCounts, int[] counts) {
+        this.codes = codes;
+        this.packedCounts = packedCounts;
+        this.counts = counts;
+    }
+
+    private static boolean isPackable(int[] counts) {
+        if (counts.length > MAX_PACKED_CODES) {
+            return false;
+        }
+        for (int count : counts) {
+            if (count > MAX_PACKED_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] toCounts(ElementCodes codes, List<String> symbols) {
+        int[] counts = new int[codes.size()];
+        for (String symbol : symbols) {
+            int code = codes.getCode(symbol);
+            if (code == -1) {
+                throw new IllegalArgumentException("No code for element " + symbol);
+            }
+            counts[code]++;
+        }
+        return counts;
+    }
+
+    /**
+     * @param diff the counts to take, which may have other codes
+     * @return the counts left after taking those of the same symbols, down to zero
+     */
+    public PackedCounts subtract(PackedCounts diff) {
+        int[] remaining = new int[codes.size()];
+        for (int code = 0; code < remaining.length; code++) {
+            int diffCode = diff.codes.getCode(codes.getSymbol(code));
+            int diffCount = (diffCode == -1)? 0 : diff.getCount(diffCode);
+            remaining[code] = Math.max(0, getCount(code) - diffCount);
+        }
+        return new PackedCounts(codes, remaining);
+    }
+
+    public ElementCodes getCodes() {
+        return codes;
+    }
+
+    /**
+     * @return the non-zero counts, by symbol in the order of the codes
+     */
+    public Map<String, Integer> getMap() {
+        Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+        for (String symbol : this) {
+            map.put(symbol, getCount(symbol));
+        }
+        return map;
+    }
+
+    /**
+     * @param code the code of a symbol
+     * @return its count
+     */
+    public int getCount(int code) {
+        if (counts == null) {
+            return (int) ((packedCounts >>> (code * BITS_PER_COUNT)) & MAX_PACKED_COUNT);
+        } else {
+            return counts[code];
+        }
+    }
+
+    public int getCount(String symbol) {
+        int code = codes.getCode(symbol);
+        return (code == -1)? 0 : getCount(code);
+    }
+
+    /**
+     * @param from the code to start at
+     * @return the first code from there with a non-zero count, or -1 if there is none
+     */
+    private int nextCode(int from) {
+        for (int code = from; code < codes.size(); code++) {
+            if (getCount(code) > 0) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+
+            private int code = nextCode(0);
+
+            @Override
+            public boolean hasNext() {
+                return code != -1;
+            }
+
+            @Override
+            public String next() {
+                if (code == -1) {
+                    throw new NoSuchElementException();
+                }
+                String symbol = codes.getSymbol(code);
+                code = nextCode(code + 1);
+                return symbol;
+            }
+        };
+    }
+
+    /**
+     * @param code the code of a symbol
+     * @return the counts with one fewer of that code, or these counts if its
+     * count is already zero
+     */
+    public PackedCounts minus(int code) {
+        if (code == -1 || getCount(code) == 0) {
+            return this;
+        } else if (counts == null) {
+            return new PackedCounts(codes, packedCounts - (1L << (code * BITS_PER_COUNT)), null);
+        } else {
+            int[] remaining = counts.clone();
+            remaining[code]--;
+            return new PackedCounts(codes, 0, remaining);
+        }
+    }
+
+    public String toString() {
+        return getMap().toString();
+    }
+}
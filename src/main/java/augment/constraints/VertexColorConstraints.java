@@ -1,84 +1,91 @@
 package augment.constraints;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import app.FormulaParser;
 
+/**
+ * The number of vertices of each color left to add, as {@link PackedCounts}
+ * with the colors coded as element symbols.
+ */
 public class VertexColorConstraints implements Iterable<String> {
-    
-    private Map<String, Integer> colorCounts;
-    
+    private final PackedCounts counts;
+
     public VertexColorConstraints(String elementFormula) {
-        this.colorCounts = new HashMap<String, Integer>();
-        FormulaParser parser = new FormulaParser(elementFormula);
-        for (String elementSymbol : parser.getElementSymbols()) {
-            if (colorCounts.containsKey(elementSymbol)) {
-                colorCounts.put(elementSymbol, colorCounts.get(elementSymbol) + 1);
-            } else {
-                colorCounts.put(elementSymbol, 1);
-            }
-        }
+        this(new FormulaParser(elementFormula).getElementSymbols());
     }
-    
+
     public VertexColorConstraints(List<String> elements) {
-        this.colorCounts = new HashMap<String, Integer>();
-        for (String elementSymbol : elements) {
-            if (colorCounts.containsKey(elementSymbol)) {
-                colorCounts.put(elementSymbol, colorCounts.get(elementSymbol) + 1);
-            } else {
-                colorCounts.put(elementSymbol, 1);
-            }
-        }
+        this(new ElementCodes(elements), elements);
     }
-    
-    public VertexColorConstraints(Map<String, Integer> elementCounts, String toRemove) {
-        this.colorCounts = new HashMap<String, Integer>();
-        for (String element : elementCounts.keySet()) {
-            int count;
-            if (element.equals(toRemove)) {
-                count = elementCounts.get(element) - 1;
-            } else {
-                count = elementCounts.get(element);
-            }
-            if (count > 0) {
-                this.colorCounts.put(element, count);
-            }
-        }
+
+    /**
+     * @param codes the codes of the run
+     * @param elements the element symbols, which may repeat
+     */
+    public VertexColorConstraints(ElementCodes codes, List<String> elements) {
+        this(new PackedCounts(codes, elements));
     }
-    
+
+    /**
+     * Make the constraints left after taking the elements of one set from another.
+     *
+     * @param source the constraints to take from
+     * @param diff the elements to take
+     */
     public VertexColorConstraints(VertexColorConstraints source, VertexColorConstraints diff) {
-        this.colorCounts = new HashMap<String, Integer>();
-        for (String element : source.colorCounts.keySet()) {
-            int count;
-            if (diff.colorCounts.containsKey(element)) {
-                count = source.colorCounts.get(element) - diff.colorCounts.get(element);
-                diff.colorCounts.remove(element);
-            } else {
-                count = source.colorCounts.get(element);
-            }
-            if (count > 0) {
-                this.colorCounts.put(element, count);
-            }
-        }
+        this(source.counts.subtract(diff.counts));
     }
-    
+
+    private VertexColorConstraints(PackedCounts counts) {
+        this.counts = counts;
+    }
+
+    public ElementCodes getCodes() {
+        return counts.getCodes();
+    }
+
+    /**
+     * @return the counts of the colors left, by symbol in the order of the codes
+     */
     public Map<String, Integer> getMap() {
-        return this.colorCounts;
+        return counts.getMap();
+    }
+
+    /**
+     * @param code the code of an element
+     * @return the number of vertices of that color left
+     */
+    public int getCount(int code) {
+        return counts.getCount(code);
+    }
+
+    public int getCount(String element) {
+        return counts.getCount(element);
     }
 
     @Override
     public Iterator<String> iterator() {
-        return colorCounts.keySet().iterator();
+        return counts.iterator();
     }
-    
+
+    /**
+     * @param code the code of an element
+     * @return the constraints with one vertex of that color fewer, or these 
+     * constraints if there are none of that color left
+     */
+    public VertexColorConstraints minus(int code) {
+        PackedCounts remaining = counts.minus(code);
+        return (remaining == counts)? this : new VertexColorConstraints(remaining);
+    }
+
     public VertexColorConstraints minus(String literal) {
-        return new VertexColorConstraints(colorCounts, literal);
+        return minus(counts.getCodes().getCode(literal));
     }
-    
+
     public String toString() {
-        return this.colorCounts.toString();
+        return counts.toString();
     }
 }
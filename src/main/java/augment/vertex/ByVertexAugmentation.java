@@ -3,6 +3,8 @@ package augment.vertex;
 import augment.Augmentation;
 import augment.constraints.VertexColorConstraints;
 import model.Graph;
+import util.graph.BlockCutTree;
+import util.graph.CutCalculator;
 
 /**
  * An augmentation of an atom container by atom.
@@ -18,6 +20,13 @@ public class ByVertexAugmentation implements Augmentation<Graph> {
     
     private final VertexColorConstraints elementConstraints;
     
+    /**
+     * The block-cut tree of the parent, until the one for this is made from it.
+     */
+    private BlockCutTree parentBlockCutTree;
+    
+    private BlockCutTree blockCutTree;
+    
    
     /**
      * Construct the initial state.
@@ -49,9 +58,24 @@ public class ByVertexAugmentation implements Augmentation<Graph> {
      * @param augmentation a list of bond orders to augment
      */
     public ByVertexAugmentation(Graph parent, String atomToAdd, int[] bondOrders, VertexColorConstraints elementConstraints) {
+        this(parent, null, atomToAdd, bondOrders, elementConstraints);
+    }
+    
+    /**
+     * Make an augmentation whose block-cut tree will be made from the parent's.
+     * 
+     * @param parent the graph to augment
+     * @param parentBlockCutTree the block-cut tree of the parent, or null
+     * @param atomToAdd the additional vertex
+     * @param bondOrders a list of edge colors to augment
+     * @param elementConstraints the vertex colors left to add
+     */
+    public ByVertexAugmentation(Graph parent, BlockCutTree parentBlockCutTree, 
+            String atomToAdd, int[] bondOrders, VertexColorConstraints elementConstraints) {
         this.vertexExtension = new VertexExtension(atomToAdd, bondOrders);
         this.augmentedGraph = make(parent, atomToAdd, bondOrders);
         this.elementConstraints = elementConstraints;
+        this.parentBlockCutTree = parentBlockCutTree;
     }
     
     public Graph getAugmentedObject() {
@@ -79,4 +103,21 @@ public class ByVertexAugmentation implements Augmentation<Graph> {
     public VertexExtension getExtension() {
         return vertexExtension;
     }
+    
+    /**
+     * @return the blocks and cut vertices of the augmented graph, made from the 
+     * parent's if that was given
+     */
+    public BlockCutTree getBlockCutTree() {
+        if (blockCutTree == null) {
+            if (parentBlockCutTree == null) {
+                blockCutTree = CutCalculator.getBlockCutTree(augmentedGraph);
+            } else {
+                blockCutTree = new BlockCutTree(parentBlockCutTree);
+                blockCutTree.addVertex(vertexExtension.getNeighbours());
+                parentBlockCutTree = null;
+            }
+        }
+        return blockCutTree;
+    }
 }
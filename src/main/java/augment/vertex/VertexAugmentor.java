@@ -1,13 +1,11 @@
 package augment.vertex;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import augment.Augmentor;
 import augment.constraints.VertexColorConstraints;
-import group.Permutation;
-import group.PermutationGroup;
+import group.StabilizerChain;
 import group.graph.GraphDiscretePartitionRefiner;
 import model.Graph;
 import util.graph.SaturationCalculator;
@@ -49,8 +47,8 @@ public class VertexAugmentor implements Augmentor<ByVertexAugmentation> {
             for (int[] edgeColors : getEdgeColorArrays(atomContainer, elementSymbol)) {
                 VertexColorConstraints newConstraints = constraints.minus(elementSymbol);
                 augmentations.add(
-                        new ByVertexAugmentation(
-                                atomContainer, elementSymbol, edgeColors, newConstraints));
+                        new ByVertexAugmentation(atomContainer, parent.getBlockCutTree(), 
+                                elementSymbol, edgeColors, newConstraints));
             }
         }
         
@@ -59,7 +57,7 @@ public class VertexAugmentor implements Augmentor<ByVertexAugmentation> {
     
     private List<int[]> getEdgeColorArrays(Graph atomContainer, String symbol) {
         GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
-        PermutationGroup autG = refiner.getAutomorphismGroup(atomContainer);
+        StabilizerChain chain = StabilizerChain.of(refiner.getAutomorphismGroup(atomContainer));
         int atomCount = atomContainer.getVertexCount();
         
         // these are the atom indices that can have bonds added
@@ -70,36 +68,17 @@ public class VertexAugmentor implements Augmentor<ByVertexAugmentation> {
         int maxDegreeForCurrent = saturationCalculator.getMaxBondOrder(symbol);
         
         List<int[]> representatives = new ArrayList<int[]>();
-        for (int[] bondOrderArray : saturationCalculator.getBondOrderArrays(
-                baseSet, atomCount, maxDegreeSumForCurrent, maxDegreeForCurrent, saturationCapacity)) {
-            if (isMinimal(bondOrderArray, autG)) {
-                representatives.add(bondOrderArray);
-            }
-        }
+        saturationCalculator.forEachBondOrderArray(
+                baseSet, atomCount, maxDegreeSumForCurrent, maxDegreeForCurrent, saturationCapacity, 
+                bondOrderArray -> {
+                    if (chain.isLargestImage(bondOrderArray)) {
+                        representatives.add(bondOrderArray.clone());
+                    }
+                });
         // for disconnected graphs
 //        int[] emptySet = new int[atomCount];
 //        representatives.add(emptySet);
         return representatives;
     }
     
-    private boolean isMinimal(int[] bondOrderArray, PermutationGroup autG) {
-        String oStr = Arrays.toString(bondOrderArray);
-        for (Permutation p : autG.all()) {
-//            System.out.println("comparing " + oStr + " and " + p + " of " + Arrays.toString(bondOrderArray));
-            String pStr = Arrays.toString(permute(bondOrderArray, p));
-            if (oStr.compareTo(pStr) < 0) {
-                return false;
-            }
-        }
-        return true;
-    }
-    
-    private int[] permute(int[] a, Permutation p) {
-        int[] pA = new int[a.length];
-        for (int i = 0; i < a.length; i++) {
-            pA[p.get(i)] = a[i];
-        }
-        return pA;
-    }
-    
 }
@@ -1,7 +1,5 @@
 package augment.vertex;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.SortedSet;
 
 import augment.CanonicalChecker;
@@ -9,7 +7,7 @@ import group.Partition;
 import group.Permutation;
 import group.graph.GraphDiscretePartitionRefiner;
 import model.Graph;
-import util.graph.CutCalculator;
+import util.graph.BlockCutTree;
 
 public class VertexCanonicalChecker implements CanonicalChecker<ByVertexAugmentation> {
 
@@ -20,16 +18,15 @@ public class VertexCanonicalChecker implements CanonicalChecker<ByVertexAugmenta
             return true;
         }
         
-        Set<Integer> nonSeparatingAtoms = getNonSeparatingAtoms(augmentedMolecule);
-//        System.out.println(nonSeparatingAtoms);
-        if (nonSeparatingAtoms.size() == 0) {
+        BlockCutTree blockCutTree = atomAugmentation.getBlockCutTree();
+        if (!hasNonSeparatingAtom(augmentedMolecule, blockCutTree)) {
             return true;
         }
 
         GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
         refiner.getAutomorphismGroup(augmentedMolecule);
 
-        int chosen = getChosen(nonSeparatingAtoms, refiner.getBest());
+        int chosen = getChosen(blockCutTree, refiner.getBest());
         int last = augmentedMolecule.getVertexCount() - 1;
         return inOrbit(chosen, last, refiner.getAutomorphismPartition());
     }
@@ -45,32 +42,23 @@ public class VertexCanonicalChecker implements CanonicalChecker<ByVertexAugmenta
         return false;   
     }
     
-    // TODO : combine this method with get non separating atoms
-    private int getChosen(Set<Integer> nonSeparatingAtoms, Permutation labelling) {
+    private int getChosen(BlockCutTree blockCutTree, Permutation labelling) {
         for (int index = labelling.size() - 1; index >= 0; index--) {
             int label = labelling.get(index);
-            if (nonSeparatingAtoms.contains(label)) {
+            if (!blockCutTree.isCutVertex(label)) {
                 return label;
-            } else {
-                continue;
             }
         }
         return -1;  // XXX shouldn't happen...
     }
     
-    private Set<Integer> getNonSeparatingAtoms(Graph mol) {
-        Set<Integer> nonSeparatingVertices = new HashSet<>();
-        Set<Integer> cutVertices = CutCalculator.getCutVertices(mol);
-//        System.out.println(cutVertices);
+    private boolean hasNonSeparatingAtom(Graph mol, BlockCutTree blockCutTree) {
         for (int index = 0; index < mol.getVertexCount(); index++) {
-            if (cutVertices.contains(index)) {
-                continue;
-            } else {
-                nonSeparatingVertices.add(index);
+            if (!blockCutTree.isCutVertex(index)) {
+                return true;
             }
         }
-//        System.out.println(io.AtomContainerPrinter.toString(mol) + " " + nonSeparatingVertices);
-        return nonSeparatingVertices;
+        return false;
     }
  
 }
@@ -24,5 +24,26 @@ public class VertexExtension {
     public int[] getBondOrderList() {
         return bondOrderList;
     }
+    
+    /**
+     * @return the indices of the existing atoms that the new one is bonded to
+     */
+    public int[] getNeighbours() {
+        int count = 0;
+        for (int order : bondOrderList) {
+            if (order > 0) {
+                count++;
+            }
+        }
+        int[] neighbours = new int[count];
+        int position = 0;
+        for (int index = 0; index < bondOrderList.length; index++) {
+            if (bondOrderList[index] > 0) {
+                neighbours[position] = index;
+                position++;
+            }
+        }
+        return neighbours;
+    }
 
 }
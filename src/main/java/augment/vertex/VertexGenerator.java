@@ -1,13 +1,20 @@
 package augment.vertex;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
 
 import app.FormulaParser;
+import augment.AugmentationSpliterator;
 import augment.AugmentingGenerator;
+import augment.Checkpointer;
+import augment.ParallelSearch;
+import augment.Shard;
 import augment.constraints.VertexColorConstraintSource;
 import augment.constraints.VertexColorConstraints;
 import handler.Handler;
+import handler.SynchronizedHandler;
 import model.Graph;
 
 
@@ -35,6 +42,24 @@ public class VertexGenerator implements AugmentingGenerator<Graph> {
     
     private int counter;
     
+    private int threadCount = 1;
+    
+    private transient ParallelSearch<ByVertexAugmentation> parallelSearch;
+    
+    private Shard shard;
+    
+    private Checkpointer checkpointer;
+    
+    /**
+     * The number of searches started, over all calls to run.
+     */
+    private int startCount;
+    
+    /**
+     * The index of the graphs at the top of the current sequential search.
+     */
+    private int rootIndex;
+    
     public VertexGenerator(String elementFormula, Handler<Graph> handler) {
         // XXX - parse the formula once and pass down the parser!
         this.initialConstraints = new VertexColorConstraints(elementFormula);
@@ -46,15 +71,56 @@ public class VertexGenerator implements AugmentingGenerator<Graph> {
         this.maxIndex = formulaParser.getElementSymbols().size() - 1;
     }
     
+    /**
+     * Set the number of worker threads to search with. With more than one
+     * thread, the handler is wrapped so that it is only called by one thread 
+     * at a time - the order of the output is then not fixed.
+     * 
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        if (threadCount > 1) {
+            handler = SynchronizedHandler.wrap(handler);
+        }
+    }
+    
+    public int getThreadCount() {
+        return threadCount;
+    }
+    
+    /**
+     * Only search the subtrees that belong to this shard of the run.
+     * 
+     * @param shard the shard, or null to search the whole tree
+     */
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+    
+    /**
+     * Record the position of the search with this checkpointer, which may also 
+     * be resuming from an earlier checkpoint. Only used with a single thread.
+     * 
+     * @param checkpointer the checkpointer, or null for none
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+    
     public void run() {
         for (Graph start : initialStateSource.get()) {
             String symbol = start.getVertexColor(0);
-            augment(new ByVertexAugmentation(start, initialConstraints.minus(symbol)), 0);
+            search(new ByVertexAugmentation(start, initialConstraints.minus(symbol)), 0);
         }
 //        System.out.println("counter = " + counter);
     }
     
     public void run(Graph initial) {
+        search(getStart(initial), initial.getVertexCount() - 1);  
+    }
+    
+    private ByVertexAugmentation getStart(Graph initial) {
         List<String> toRemove = new ArrayList<String>(initial.getVertexCount());
         for (int index = 0; index < initial.getVertexCount(); index++) {
             toRemove.add(initial.getVertexColor(index));
@@ -62,7 +128,94 @@ public class VertexGenerator implements AugmentingGenerator<Graph> {
         VertexColorConstraints remaining = 
                 new VertexColorConstraints(initialConstraints, 
                         new VertexColorConstraints(toRemove));
-        augment(new ByVertexAugmentation(initial, remaining), initial.getVertexCount() - 1);  
+        return new ByVertexAugmentation(initial, remaining);
+    }
+    
+    @Override
+    public Spliterator<Graph> spliterator() {
+        List<ByVertexAugmentation> roots = new ArrayList<ByVertexAugmentation>();
+        for (Graph start : initialStateSource.get()) {
+            String symbol = start.getVertexColor(0);
+            roots.add(new ByVertexAugmentation(start, initialConstraints.minus(symbol)));
+        }
+        return new AugmentationSpliterator<ByVertexAugmentation, Graph>(new VertexSearchTree(), roots);
+    }
+    
+    @Override
+    public Spliterator<Graph> spliterator(Graph initial) {
+        return new AugmentationSpliterator<ByVertexAugmentation, Graph>(
+                new VertexSearchTree(), Collections.singletonList(getStart(initial)));
+    }
+    
+    private void search(ByVertexAugmentation start, int index) {
+        boolean isSkipped = isSkipped(0, startCount++);
+        if (shard == null) {
+            if (!isSkipped) {
+                searchAll(Collections.singletonList(start), index);
+            }
+        } else {
+            // a start searched before the checkpoint is still split, so that 
+            // the shard numbers the nodes after it as it did the first time
+            int splitIndex = Math.max(index, Shard.getSplitLevel(maxIndex + 1));
+            List<ByVertexAugmentation> kept = new ArrayList<ByVertexAugmentation>();
+            split(start, index, splitIndex, kept);
+            if (!isSkipped) {
+                searchAll(kept, splitIndex);
+            }
+        }
+    }
+    
+    private void searchAll(List<ByVertexAugmentation> starts, int index) {
+        if (threadCount > 1) {
+            getParallelSearch().searchAll(starts);
+        } else {
+            rootIndex = index;
+            for (int position = 0; position < starts.size(); position++) {
+                if (isSkipped(1, position)) continue;
+                augment(starts.get(position), index);
+            }
+        }
+    }
+    
+    /**
+     * @return true if this point in the search was done before the checkpoint 
+     * being resumed from, otherwise records that the search is going here
+     */
+    private boolean isSkipped(int depth, int position) {
+        if (checkpointer == null) {
+            return false;
+        } else if (checkpointer.skip(depth, position)) {
+            return true;
+        } else {
+            checkpointer.enter(depth, position);
+            return false;
+        }
+    }
+    
+    /**
+     * Search down to the split level in a fixed order, keeping the nodes there 
+     * that belong to the shard.
+     */
+    private void split(ByVertexAugmentation parent, int index, int splitIndex, List<ByVertexAugmentation> kept) {
+        if (index >= splitIndex) {
+            if (shard.next()) {
+                kept.add(parent);
+            }
+            return;
+        }
+        
+        for (ByVertexAugmentation augmentation : augmentor.augment(parent)) {
+            if (canonicalChecker.isCanonical(augmentation)) {
+                split(augmentation, index + 1, splitIndex, kept);
+            }
+        }
+    }
+    
+    private ParallelSearch<ByVertexAugmentation> getParallelSearch() {
+        if (parallelSearch == null) {
+            parallelSearch = new ParallelSearch<ByVertexAugmentation>(new VertexExpander(), threadCount);
+        }
+        return parallelSearch;
     }
     
     private void augment(ByVertexAugmentation parent, int index) {
@@ -74,9 +227,16 @@ public class VertexGenerator implements AugmentingGenerator<Graph> {
             return;
         }
         
-        for (ByVertexAugmentation augmentation : augmentor.augment(parent)) {
+        int depth = index - rootIndex + 2;
+        List<ByVertexAugmentation> augmentations = augmentor.augment(parent);
+        for (int position = 0; position < augmentations.size(); position++) {
+            if (checkpointer != null && checkpointer.skip(depth, position)) continue;
+            ByVertexAugmentation augmentation = augmentations.get(position);
             if (canonicalChecker.isCanonical(augmentation)) {
 //                report("C", augmentation);
+                if (checkpointer != null) {
+                    checkpointer.enter(depth, position);
+                }
                 augment(augmentation, index + 1);
             } else {
 //                report("N", augmentation);
@@ -88,8 +248,73 @@ public class VertexGenerator implements AugmentingGenerator<Graph> {
         System.out.println(counter + " " + cOrN + " " + augmentation.getAugmentedObject());
     }
 
+    /**
+     * The same tree as {@link #augment(ByVertexAugmentation, int)}, for the 
+     * spliterator; the index of a node is one less than its vertex count.
+     */
+    private class VertexSearchTree implements AugmentationSpliterator.SearchTree<ByVertexAugmentation, Graph> {
+
+        @Override
+        public List<ByVertexAugmentation> getChildren(ByVertexAugmentation node) {
+            List<ByVertexAugmentation> children = new ArrayList<ByVertexAugmentation>();
+            if (node.getAugmentedObject().getVertexCount() - 1 >= maxIndex) {
+                return children;
+            }
+            for (ByVertexAugmentation augmentation : augmentor.augment(node)) {
+                if (canonicalChecker.isCanonical(augmentation)) {
+                    children.add(augmentation);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public Graph getResult(ByVertexAugmentation node) {
+            Graph graph = node.getAugmentedObject();
+            if (graph.getVertexCount() - 1 >= maxIndex) {
+                return graph;
+            } else {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * The same tree as {@link #augment(ByVertexAugmentation, int)}, for the 
+     * parallel search; the index of a node is one less than its vertex count.
+     */
+    private class VertexExpander implements ParallelSearch.Expander<ByVertexAugmentation> {
+
+        @Override
+        public List<ByVertexAugmentation> expand(ByVertexAugmentation parent) {
+            List<ByVertexAugmentation> children = new ArrayList<ByVertexAugmentation>();
+            if (parent.getAugmentedObject().getVertexCount() - 1 >= maxIndex) {
+                handler.handle(parent.getAugmentedObject());
+                return children;
+            }
+            for (ByVertexAugmentation augmentation : augmentor.augment(parent)) {
+                if (canonicalChecker.isCanonical(augmentation)) {
+                    children.add(augmentation);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public int getDepthLeft(ByVertexAugmentation node) {
+            return maxIndex - (node.getAugmentedObject().getVertexCount() - 1);
+        }
+    }
+
     @Override
     public void finish() {
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        if (checkpointer != null) {
+            checkpointer.finish();
+        }
         handler.finish();
     }
 
@@ -0,0 +1,74 @@
+package combinatorics;
+
+import java.util.function.Consumer;
+
+/**
+ * List the arrays of counts with each count at most its bound, and a sum from
+ * 1 up to a maximum - the multisets of the indices, as count vectors, that do
+ * not use an index more often than its bound allows.
+ *
+ * For each sum, the arrays are listed in the lexicographic order of their
+ * multisets as sorted lists of indices; so the order is that of the
+ * {@link MultiKSubsetLister}, without the multisets that break a bound. Only
+ * the feasible arrays are visited, and all of them are the same buffer.
+ *
+ * @author maclean
+ *
+ */
+public class BoundedCompositionLister {
+
+    private final int[] bounds;
+
+    private final int maxSum;
+
+    /**
+     * The sum of the bounds from each index to the end.
+     */
+    private final int[] suffixCapacity;
+
+    private final int[] counts;
+
+    /**
+     * @param bounds the largest count for each index
+     * @param maxSum the largest sum of the counts
+     */
+    public BoundedCompositionLister(int[] bounds, int maxSum) {
+        this.bounds = bounds;
+        this.maxSum = maxSum;
+        this.counts = new int[bounds.length];
+        this.suffixCapacity = new int[bounds.length + 1];
+        for (int index = bounds.length - 1; index >= 0; index--) {
+            suffixCapacity[index] = suffixCapacity[index + 1] + Math.max(0, bounds[index]);
+        }
+    }
+
+    /**
+     * Visit each array in turn. The array is overwritten by the next one, so it
+     * must be copied if it is kept.
+     *
+     * @param consumer the visitor of the arrays
+     */
+    public void forEach(Consumer<int[]> consumer) {
+        int largestSum = Math.min(maxSum, suffixCapacity[0]);
+        for (int sum = 1; sum <= largestSum; sum++) {
+            list(0, sum, consumer);
+        }
+    }
+
+    private void list(int index, int remaining, Consumer<int[]> consumer) {
+        if (remaining == 0) {
+            consumer.accept(counts);
+            return;
+        }
+
+        // more of a smaller index comes first, and what is left must fit later
+        int max = Math.min(remaining, Math.max(0, bounds[index]));
+        int min = Math.max(0, remaining - suffixCapacity[index + 1]);
+        for (int count = max; count >= min; count--) {
+            counts[index] = count;
+            list(index + 1, remaining - count, consumer);
+        }
+        counts[index] = 0;
+    }
+
+}
@@ -1,9 +1,5 @@
 package group;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
-
 /**
  * Refines vertex partitions until they are discrete, and therefore equivalent
  * to permutations. These permutations are automorphisms of the graph that was
@@ -28,6 +24,41 @@ public abstract class AbstractDiscretePartitionRefiner {
     
     private boolean isVertexColorPreserving;
     
+    /**
+     * The number of bits for each entry of a certificate.
+     */
+    private int bitsPerEntry;
+    
+    /**
+     * The packed upper triangles of the first k rows and columns under the 
+     * best labelling, made as they are needed for comparison; cleared when
+     * the best changes.
+     */
+    private long[][] bestPrefixes;
+    
+    /**
+     * The packed certificate of the first leaf, while it is not the best; a
+     * leaf equal to it gives an automorphism just as one equal to the best.
+     */
+    private long[] firstWords;
+    
+    /**
+     * The number of automorphisms entered into the group during the search, 
+     * so that a node can tell whether its stabilizer orbits are out of date.
+     */
+    private int automorphismCount;
+    
+    /**
+     * True while the group has only the identity, so it has no orbits to prune.
+     */
+    private boolean groupIsTrivial;
+    
+    /**
+     * The number of nodes of the search tree visited by the last refinement
+     * or canonical check.
+     */
+    private long nodeCount;
+    
     public AbstractDiscretePartitionRefiner() {
         this(false);
     }
@@ -37,15 +68,29 @@ public abstract class AbstractDiscretePartitionRefiner {
         this.best = null;
         this.equitableRefiner = null;
         this.isVertexColorPreserving = isVertexColorPreserving;
+        this.bitsPerEntry = Certificate.DEFAULT_BITS;
     }
     
     public abstract int getVertexCount();
     
     public abstract int getConnectivity(int i, int j);
     
+    /**
+     * The largest value that {@link #getConnectivity(int, int)} can return,
+     * which sets the size of the certificate entries.
+     * 
+     * @return the largest connectivity, by default the largest bond order
+     */
+    public int getMaxConnectivity() {
+        return 3;
+    }
+    
     public void setup(PermutationGroup group, IEquitablePartitionRefiner refiner) {
         this.bestExist = false;
         this.best = null;
+        this.bestPrefixes = null;
+        this.firstWords = null;
+        this.bitsPerEntry = Certificate.getBitsPerEntry(getMaxConnectivity());
         this.group = group;
         this.equitableRefiner = refiner;
     }
@@ -60,12 +105,22 @@ public abstract class AbstractDiscretePartitionRefiner {
      * @return a partition of the elements of group 
      */
     public Partition getAutomorphismPartition() {
+        return getAutomorphismPartition(group);
+    }
+    
+    /**
+     * The orbits of a group, for when the group was found by an earlier refinement.
+     * 
+     * @param group a permutation group
+     * @return a partition of the elements of the group into orbits
+     */
+    public static Partition getAutomorphismPartition(PermutationGroup group) {
         int n = group.getSize();
         boolean[] inOrbit = new boolean[n];
-        List<Permutation> permutations = group.all();
+        PermutationGroup.Cursor p = group.cursor();
         DisjointSetForest forest = new DisjointSetForest(n);
         int inOrbitCount = 0;
-        for (Permutation p : permutations) {
+        while (p.next()) {
             for (int i = 0; i < n; i++) {
                 if (inOrbit[i]) {
                     continue;
@@ -98,15 +153,63 @@ public abstract class AbstractDiscretePartitionRefiner {
     }
     
     public String getHalfMatrixString(Permutation p) {
-        String hms = "";
+        StringBuilder hms = new StringBuilder();
         int n = p.size();
         for (int i = 0; i < n - 1; i++) {
             for (int j = i + 1; j < n; j++) {
                 int connectivity = getConnectivity(p.get(i), p.get(j)); 
-                hms += String.valueOf(connectivity);    // XXX what if < 0 ?
+                hms.append(connectivity);    // XXX what if < 0 ?
+            }
+        }
+        return hms.toString();
+    }
+    
+    /**
+     * Get the packed upper triangle of the connection matrix under a labelling.
+     * 
+     * @param p the labelling
+     * @return the certificate of the graph under the labelling
+     */
+    public Certificate getCertificate(Permutation p) {
+        return new Certificate(p.size(), bitsPerEntry, pack(p, p.size()));
+    }
+    
+    /**
+     * The certificate of the best labelling found by the last refinement, 
+     * which is a canonical form of the graph.
+     * 
+     * @return the certificate of the best labelling
+     */
+    public Certificate getBestCertificate() {
+        return getCertificate(best);
+    }
+    
+    /**
+     * Pack the upper triangle of the first <code>size</code> rows and columns
+     * under a labelling, in the layout of {@link Certificate}.
+     */
+    private long[] pack(Permutation p, int size) {
+        long[] words = new long[Certificate.getWordCount(size, bitsPerEntry)];
+        int entriesPerWord = Certificate.getEntriesPerWord(bitsPerEntry);
+        int wordIndex = 0;
+        int inWord = 0;
+        long word = 0;
+        for (int i = 0; i < size - 1; i++) {
+            for (int j = i + 1; j < size; j++) {
+                word = (word << bitsPerEntry) | getConnectivity(p.get(i), p.get(j));
+                inWord++;
+                if (inWord == entriesPerWord) {
+                    words[wordIndex] = word;
+                    wordIndex++;
+                    inWord = 0;
+                    word = 0;
+                }
             }
         }
-        return hms;
+        if (inWord > 0) {
+            words[wordIndex] = word;
+        }
+        return words;
     }
     
     public String getBestHalfMatrixString() {
@@ -121,6 +224,16 @@ public abstract class AbstractDiscretePartitionRefiner {
         return getHalfMatrixString(new Permutation(getVertexCount()));
     }
     
+    /**
+     * The number of nodes in the search tree that the last refinement visited, 
+     * for comparing the effect of different initial partitions.
+     * 
+     * @return the number of partitions refined
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    
     public PermutationGroup getGroup() {
         return this.group;
     }
@@ -144,16 +257,15 @@ public abstract class AbstractDiscretePartitionRefiner {
     }
     
     public boolean isCanonical(Partition partition) {
-        int n = getVertexCount();
-        if (partition.size() == n) {
-            return partition.toPermutation().isIdentity();
-        } else {
-            int l = partition.getIndexOfFirstNonDiscreteCell();
-            int first = partition.getFirstInCell(l);
-            Partition finerPartition = 
-                equitableRefiner.refine(partition.splitBefore(l, first));
-            return isCanonical(finerPartition);
+        ArrayPartition finer = new ArrayPartition(partition);
+        nodeCount = 0;
+        while (!finer.isDiscrete()) {
+            nodeCount++;
+            int l = finer.getIndexOfFirstNonDiscreteCell();
+            finer.individualize(l, finer.getSmallestInCell(l));
+            equitableRefiner.refine(finer);
         }
+        return finer.toPermutation().isIdentity();
     }
     
     public void refine(Partition p) {
@@ -161,67 +273,97 @@ public abstract class AbstractDiscretePartitionRefiner {
     }
     
     public void refine(PermutationGroup group, Partition coarser) {
-//    	System.out.println(coarser);
+        automorphismCount = 0;
+        groupIsTrivial = group.orderAsLong() == 1;
+        nodeCount = 0;
+        refine(group, new ArrayPartition(coarser));
+    }
+    
+    /**
+     * Refine the partition to an equitable one, then search each way of 
+     * splitting its first non-discrete cell. The splits and refinements below
+     * this level are undone after each branch, so the one partition is used 
+     * by the whole search.
+     * 
+     * @param group the automorphisms found so far
+     * @param partition the partition to refine in place
+     */
+    private void refine(PermutationGroup group, ArrayPartition partition) {
+//    	System.out.println(partition);
         int vertexCount = getVertexCount();
+        nodeCount++;
         
-        Partition finer = equitableRefiner.refine(coarser);
+        equitableRefiner.refine(partition);
         
-        int firstNonDiscreteCell = finer.getIndexOfFirstNonDiscreteCell();
+        int firstNonDiscreteCell = partition.getIndexOfFirstNonDiscreteCell();
         if (firstNonDiscreteCell == -1) {
             firstNonDiscreteCell = vertexCount;
         }
         
         Permutation pi1 = new Permutation(firstNonDiscreteCell);
-        Permutation pi2 = new Permutation(vertexCount); // TODO : move this down to local block
         
         Result result = Result.BETTER;
         if (bestExist) {
-            finer.setAsPermutation(pi1, firstNonDiscreteCell);
+            partition.setAsPermutation(pi1, firstNonDiscreteCell);
             result = compareRowwise(pi1);
 //            System.out.println(result + " " + pi1);
         }
         
         // partition is discrete
-        if (finer.size() == vertexCount && (!isVertexColorPreserving || colorsPreserved(pi1))) {    
-//        	System.out.println("Disc :\t" + finer + "\t" + result);
+        if (partition.isDiscrete() && (!isVertexColorPreserving || colorsPreserved(pi1))) {    
+//        	System.out.println("Disc :\t" + partition + "\t" + result);
             if (!bestExist) {
-                best = finer.toPermutation();
-                first = finer.toPermutation();
+                best = partition.toPermutation();
+                first = partition.toPermutation();
                 bestExist = true;
+                bestPrefixes = null;
+                firstWords = null;
             } else {
                 if (result == Result.BETTER) {
+                    if (firstWords == null) {
+                        firstWords = pack(first, vertexCount);
+                    }
                     best = new Permutation(pi1);
+                    bestPrefixes = null;
                 } else if (result == Result.EQUAL) {
-                    pi2 = pi1.multiply(best.invert());
-                    group.enter(pi2);
+                    enterAutomorphism(group, pi1.multiply(best.invert()));
+                } else if (firstWords != null && compare(pi1, firstWords) == Result.EQUAL) {
+                    enterAutomorphism(group, pi1.multiply(first.invert()));
                 }
             }
         } else {
-            if (result != Result.WORSE) {
-                Set<Integer> blockCopy = finer.copyBlock(firstNonDiscreteCell);
+            if (result != Result.WORSE && firstNonDiscreteCell < vertexCount) {
+                int level = partition.getLevel();
+                int cellEnd = partition.getCellEnd(firstNonDiscreteCell);
+                boolean[] blockCopy = new boolean[vertexCount];
+                for (int position = firstNonDiscreteCell; position < cellEnd; position++) {
+                    blockCopy[partition.getElement(position)] = true;
+                }
+                
+                // the orbits of the stabilizer of the fixed vertices, which 
+                // only change when an automorphism is found below this node
+                DisjointSetForest orbits = null;
+                int orbitsCount = -1;
                 for (int vertexInBlock = 0; vertexInBlock < vertexCount; vertexInBlock++) {
-                    if (blockCopy.contains(vertexInBlock)) {
-                        Partition nextPartition = 
-                            finer.splitBefore(firstNonDiscreteCell, vertexInBlock);
+                    if (blockCopy[vertexInBlock]) {
+                        partition.individualize(firstNonDiscreteCell, vertexInBlock);
                         
-                        this.refine(group, nextPartition);
+                        this.refine(group, partition);
+                        partition.restore(level);
                         
-                        Permutation permF = new Permutation(vertexCount);
-                        Permutation invF = new Permutation(vertexCount);
-                        
-                        for (int j = 0; j <= firstNonDiscreteCell; j++) {
-                            int x = nextPartition.getFirstInCell(j);
-                            int i = invF.get(x);
-                            int h = permF.get(j);
-                            permF.set(j, x);
-                            permF.set(i, h);
-                            invF.set(h, i);
-                            invF.set(x, j);
+                        if (groupIsTrivial) {
+                            continue;
+                        }
+                        if (orbitsCount != automorphismCount) {
+                            orbits = getStabilizerOrbits(group, partition, firstNonDiscreteCell);
+                            orbitsCount = automorphismCount;
                         }
-                        group.changeBase(permF);
-                        for (int j = 0; j < vertexCount; j++) {
-                            Permutation g = group.get(firstNonDiscreteCell, j);
-                            if (g != null) blockCopy.remove(g.get(vertexInBlock));
+                        int orbit = orbits.getRoot(vertexInBlock);
+                        for (int position = firstNonDiscreteCell; position < cellEnd; position++) {
+                            int element = partition.getElement(position);
+                            if (orbits.getRoot(element) == orbit) {
+                                blockCopy[element] = false;
+                            }
                         }
                     }
                 }
@@ -229,43 +371,128 @@ public abstract class AbstractDiscretePartitionRefiner {
         }
     }
     
+    private void enterAutomorphism(PermutationGroup group, Permutation automorphism) {
+        group.enter(automorphism);
+        automorphismCount++;
+        groupIsTrivial = false;
+    }
+    
+    /**
+     * Find the orbits of the automorphisms that fix the vertices in the first
+     * <code>fixedCount</code> cells. After changing the base of the group to 
+     * start with those vertices, the permutations in the levels from 
+     * <code>fixedCount</code> on generate that stabilizer.
+     * 
+     * @param group the automorphisms found so far
+     * @param partition a partition whose first cells are singletons
+     * @param fixedCount the number of singleton cells at the start
+     * @return the orbits of the stabilizer
+     */
+    private DisjointSetForest getStabilizerOrbits(
+            PermutationGroup group, ArrayPartition partition, int fixedCount) {
+        int vertexCount = getVertexCount();
+        if (!hasBasePrefix(group, partition, fixedCount)) {
+            Permutation permF = new Permutation(vertexCount);
+            Permutation invF = new Permutation(vertexCount);
+            for (int j = 0; j < fixedCount; j++) {
+                int x = partition.getElement(j);
+                int i = invF.get(x);
+                int h = permF.get(j);
+                permF.set(j, x);
+                permF.set(i, h);
+                invF.set(h, i);
+                invF.set(x, j);
+            }
+            group.changeBase(permF);
+        }
+        
+        DisjointSetForest orbits = new DisjointSetForest(vertexCount);
+        for (int level = fixedCount; level < vertexCount; level++) {
+            for (int j = 0; j < vertexCount; j++) {
+                Permutation g = group.get(level, j);
+                if (g != null && !g.isIdentity()) {
+                    for (int x = 0; x < vertexCount; x++) {
+                        orbits.makeUnion(x, g.get(x));
+                    }
+                }
+            }
+        }
+        return orbits;
+    }
+    
+    private boolean hasBasePrefix(PermutationGroup group, ArrayPartition partition, int fixedCount) {
+        for (int j = 0; j < fixedCount; j++) {
+            if (group.getBasePoint(j) != partition.getElement(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Check a permutation to see if it is better, equal, or worse than the 
-     * current best.
+     * current best. The upper triangle under the permutation is packed a word 
+     * at a time, and each word is compared to the same word for the best as
+     * soon as it is full - so the comparison stops at the first word that 
+     * differs.
      * 
      * @param perm the permutation to check
      * @return BETTER, EQUAL, or WORSE
      */
     public Result compareRowwise(Permutation perm) {
-//        Permutation b1 = best.invert();
-        Permutation b1 = best;
-//        Permutation p1 = perm.invert();
-        Permutation p1 = perm;
-//        System.out.println("comparing " + b1 + " and " + p1);
-        Result result = Result.EQUAL;
+        return compare(perm, getBestPrefix(perm.size()));
+    }
+    
+    /**
+     * Compare the upper triangle under a permutation with packed words of the 
+     * same size, stopping at the first word that differs.
+     */
+    private Result compare(Permutation perm, long[] referenceWords) {
         int m = perm.size();
-        List<Integer> a = new ArrayList<Integer>();
-        List<Integer> b = new ArrayList<Integer>();
+        int entriesPerWord = Certificate.getEntriesPerWord(bitsPerEntry);
+        int wordIndex = 0;
+        int inWord = 0;
+        long word = 0;
         for (int i = 0; i < m - 1; i++) {
             for (int j = i + 1; j < m; j++) {
-                int x = getConnectivity(b1.get(i), b1.get(j));
-                int y = getConnectivity(p1.get(i), p1.get(j));
-                a.add(x);
-                b.add(y);
-                if (x > y && result == Result.EQUAL) {
-                    result = Result.WORSE;
-//                    return Result.WORSE;
-                }
-                if (x < y && result == Result.EQUAL) {
-                    result = Result.BETTER;
-//                    return Result.BETTER;
+                word = (word << bitsPerEntry) | getConnectivity(perm.get(i), perm.get(j));
+                inWord++;
+                if (inWord == entriesPerWord) {
+                    Result result = compareWords(referenceWords[wordIndex], word);
+                    if (result != Result.EQUAL) {
+                        return result;
+                    }
+                    wordIndex++;
+                    inWord = 0;
+                    word = 0;
                 }
             }
         }
-//        return Result.EQUAL;
-//        System.out.println(a);
-//        System.out.println(b);
-        return result;
+        if (inWord > 0) {
+            return compareWords(referenceWords[wordIndex], word);
+        }
+        return Result.EQUAL;
+    }
+    
+    private Result compareWords(long bestWord, long word) {
+        int comparison = Long.compareUnsigned(bestWord, word);
+        if (comparison > 0) {
+            return Result.WORSE;
+        } else if (comparison < 0) {
+            return Result.BETTER;
+        } else {
+            return Result.EQUAL;
+        }
+    }
+    
+    private long[] getBestPrefix(int size) {
+        if (bestPrefixes == null) {
+            bestPrefixes = new long[best.size() + 1][];
+        }
+        if (bestPrefixes[size] == null) {
+            bestPrefixes[size] = pack(best, size);
+        }
+        return bestPrefixes[size];
     }
     
     public abstract boolean colorsPreserved(Permutation p);
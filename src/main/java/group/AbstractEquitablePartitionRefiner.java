@@ -1,19 +1,6 @@
 package group;
 
-import static java.util.Collections.reverseOrder;
-import static java.util.Collections.sort;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
-
-import group.invariant.Invariant;
+import java.util.Arrays;
 
 
 /**
@@ -44,9 +31,33 @@ public abstract class AbstractEquitablePartitionRefiner {
     private SplitOrder splitOrder = SplitOrder.FORWARD;
     
     /**
-     * The blocks to be refined, or at least considered for refinement
+     * The blocks to be refined, or at least considered for refinement, as the
+     * start and end positions they had when they were added. Later splits only
+     * rearrange elements within a block, so the positions still hold the same
+     * elements when the block comes off the queue.
+     */
+    private int[] blockStarts;
+    
+    private int[] blockEnds;
+    
+    private int queueHead;
+    
+    private int queueTail;
+    
+    /**
+     * For each vertex, the number of its connections of each kind to the 
+     * current target block, at (vertex * width) + kind.
      */
-    private Queue<Set<Integer>> blocksToRefine;
+    private int[] counts;
+    
+    /**
+     * The elements of the block being split, sorted a kind at a time.
+     */
+    private int[] sortBuffer;
+    
+    private int[] sortSpare;
+    
+    private int[] buckets;
     
     /**
      * Gets from the graph the number of vertices. Abstract to allow different 
@@ -57,13 +68,34 @@ public abstract class AbstractEquitablePartitionRefiner {
     public abstract int getNumberOfVertices();
     
     /**
-     * Find |a &cap; b| - that is, the size of the intersection between a and b.
+     * Gets the number of counts kept for each vertex - for example, one for
+     * each edge color.
      * 
-     * @param block a set of numbers
-     * @param vertexIndex the element to compare
-     * @return the size of the intersection
+     * @return the number of kinds of connection that are counted
      */
-    public abstract Invariant neighboursInBlock(Set<Integer> block, int vertexIndex);
+    public abstract int getCountWidth();
+    
+    /**
+     * Add one to the count of each vertex connected to the element, at the 
+     * index <code>(vertex * width) + kind</code> for the kind of connection.
+     * Summed over the elements of a block, this gives |N<sub>g</sub>(v) &cap; T|
+     * for every vertex v at once.
+     * 
+     * @param element an element of the target block
+     * @param counts the counts to add to
+     * @param width the number of counts for each vertex
+     */
+    public abstract void countNeighbours(int element, int[] counts, int width);
+    
+    /**
+     * Cells with fewer connections to the target come first in the forward
+     * split order, unless this is overridden.
+     * 
+     * @return true if the larger counts should come first in the forward order
+     */
+    protected boolean isLargestFirst() {
+        return false;
+    }
 
     /**
      * Set the preference for splitting cells.
@@ -81,96 +113,172 @@ public abstract class AbstractEquitablePartitionRefiner {
      * @return a finer partition
      */
     public Partition refine(Partition coarse) {
-        Partition finer = new Partition(coarse);
+        ArrayPartition finer = new ArrayPartition(coarse);
+        refine(finer);
+        return finer.toPartition();
+    }
+    
+    /**
+     * Refines a partition in place, adding the new cell boundaries at the 
+     * current level of the partition.
+     * 
+     * @param finer the partition to refine
+     */
+    public void refine(ArrayPartition finer) {
+        int numberOfVertices = getNumberOfVertices();
+        int width = Math.max(1, getCountWidth());
+        ensureCapacity(numberOfVertices, width);
         
-        // start the queue with the blocks of the coarse partition in reverse order
-        blocksToRefine = new LinkedList<Set<Integer>>();
-        for (int i = 0; i < finer.size(); i++) {
-            blocksToRefine.add(finer.copyBlock(i));
+        // start the queue with the blocks of the coarse partition
+        queueHead = 0;
+        queueTail = 0;
+        int start = 0;
+        while (start < numberOfVertices) {
+            int end = finer.getCellEnd(start);
+            addBlock(start, end);
+            start = end;
         }
         
-        int numberOfVertices = getNumberOfVertices();
-        while (!blocksToRefine.isEmpty()) {
-            Set<Integer> targetBlock = blocksToRefine.remove();
-            int currentBlockIndex = 0;
-            while (currentBlockIndex < finer.size() && finer.size() < numberOfVertices) {
-                if (!finer.isDiscreteCell(currentBlockIndex)) {
-                    SortedSet<Integer> currentBlock = finer.getCell(currentBlockIndex);
-                    
-                    // get the neighbor invariants for this block
-                    Map<Invariant, SortedSet<Integer>> invariants = 
-                            getInvariants(currentBlock, targetBlock);
-
-                    // split the block on the basis of these invariants
-                    if (invariants.size() > 1) {
-                        currentBlockIndex = split(invariants, currentBlockIndex, finer);
-                    }
+        while (queueHead < queueTail) {
+            int targetStart = blockStarts[queueHead];
+            int targetEnd = blockEnds[queueHead];
+            queueHead++;
+            
+            // splits only rearrange elements within a block, so the counts 
+            // against the target hold for all the cells
+            Arrays.fill(counts, 0, numberOfVertices * width, 0);
+            for (int position = targetStart; position < targetEnd; position++) {
+                countNeighbours(finer.getElement(position), counts, width);
+            }
+            
+            int currentStart = 0;
+            while (currentStart < numberOfVertices && finer.getCellCount() < numberOfVertices) {
+                int currentEnd = finer.getCellEnd(currentStart);
+                if (currentEnd - currentStart > 1) {
+                    split(finer, currentStart, currentEnd, width);
                 }
-                currentBlockIndex++;
+                // skip over any newly added blocks
+                currentStart = currentEnd;
             }
 
             // the partition is discrete
-            if (finer.size() == numberOfVertices) {
-                return finer;
+            if (finer.isDiscrete()) {
+                return;
             }
         }
-        return finer;
     }
     
     /**
-     * Gets the neighbor invariants for the block j as a map of 
-     * |N<sub>g</sub>(v) &cap; T| to elements of the block j. That is, the
-     * size of the intersection between the set of neighbors of element v in
-     * the graph and the target block T. 
-     *  
-     * @param partition the current partition
-     * @param targetBlock the current target block of the partition
-     * @return a map of set intersection sizes to partition cells
+     * Make the buffers large enough for a partition - they are kept between
+     * refinements, so this only allocates when the partitions get larger.
      */
-    private Map<Invariant, SortedSet<Integer>> getInvariants(
-            SortedSet<Integer> currentBlock, Set<Integer> targetBlock) {
-        Map<Invariant, SortedSet<Integer>> invariantMap = new HashMap<Invariant, SortedSet<Integer>>();
-        for (int element : currentBlock) {
-            Invariant invariant = neighboursInBlock(targetBlock, element);
-            if (invariantMap.containsKey(invariant)) {
-                invariantMap.get(invariant).add(element);
-            } else {
-                SortedSet<Integer> set = new TreeSet<Integer>();
-                set.add(element);
-                invariantMap.put(invariant, set);
-            }
+    private void ensureCapacity(int numberOfVertices, int width) {
+        // each split of a cell into k adds k - 1 cells and k blocks
+        int capacity = 2 * numberOfVertices + 1;
+        if (blockStarts == null || blockStarts.length < capacity) {
+            blockStarts = new int[capacity];
+            blockEnds = new int[capacity];
+            sortBuffer = new int[numberOfVertices];
+            sortSpare = new int[numberOfVertices];
+            buckets = new int[numberOfVertices + 2];
+        }
+        if (counts == null || counts.length < numberOfVertices * width) {
+            counts = new int[numberOfVertices * width];
         }
-//        System.out.println("current block " + currentBlock + " target block " + targetBlock + " inv " + invariantMap);
-        return invariantMap;
+    }
+    
+    private void addBlock(int start, int end) {
+        blockStarts[queueTail] = start;
+        blockEnds[queueTail] = end;
+        queueTail++;
     }
     
     /**
-     * Split the current block using the invariants calculated in getInvariants.
+     * Split the current block by the counts of its elements against the 
+     * target block. The elements are sorted with a counting sort for each 
+     * kind of connection, from the last kind to the first, so that the new 
+     * cells are in the lexicographic order of their counts. The new cells 
+     * replace the current block in that order, and are added to the queue.
      * 
-     * @param invariantMap a map of neighbor counts to elements
      * @param partition the partition that is being refined
+     * @param currentStart the first position of the block to split
+     * @param currentEnd the position after the last one in the block
+     * @param width the number of counts for each vertex
      */
-    private int split(Map<Invariant, SortedSet<Integer>> invariantMap, 
-                       int currentBlockIndex, Partition partition) {
-        List<Invariant> invariantKeys =  new ArrayList<Invariant>();
-        invariantKeys.addAll(invariantMap.keySet());
-        if (splitOrder == SplitOrder.REVERSE) {
-            sort(invariantKeys);
-        } else {
-            sort(invariantKeys, reverseOrder());
+    private void split(ArrayPartition partition, int currentStart, int currentEnd, int width) {
+        int blockSize = currentEnd - currentStart;
+        int[] sorted = sortBuffer;
+        for (int index = 0; index < blockSize; index++) {
+            sorted[index] = partition.getElement(currentStart + index);
+        }
+        if (allEqual(sorted, blockSize, width)) {
+            return;
+        }
+        
+        boolean descending = isLargestFirst() == (splitOrder == SplitOrder.FORWARD);
+        for (int kind = width - 1; kind >= 0; kind--) {
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (int index = 0; index < blockSize; index++) {
+                int count = counts[(sorted[index] * width) + kind];
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+            }
+            if (min == max) {
+                continue;
+            }
+            
+            // the start of each bucket, then a stable pass into the spare array
+            Arrays.fill(buckets, 0, max + 2, 0);
+            for (int index = 0; index < blockSize; index++) {
+                int count = counts[(sorted[index] * width) + kind];
+                buckets[(descending? max - count : count) + 1]++;
+            }
+            for (int bucket = 1; bucket <= max + 1; bucket++) {
+                buckets[bucket] += buckets[bucket - 1];
+            }
+            int[] spare = (sorted == sortBuffer)? sortSpare : sortBuffer;
+            for (int index = 0; index < blockSize; index++) {
+                int element = sorted[index];
+                int count = counts[(element * width) + kind];
+                int bucket = descending? max - count : count;
+                spare[buckets[bucket]] = element;
+                buckets[bucket]++;
+            }
+            sorted = spare;
         }
-//        System.out.println(invariantKeys);
         
-        partition.removeCell(currentBlockIndex);
-        int insertPoint = currentBlockIndex;
-        for (Invariant invariant : invariantKeys) {
-            SortedSet<Integer> setH = invariantMap.get(invariant);
-            partition.insertCell(insertPoint, setH);
-            blocksToRefine.add(setH);
-            insertPoint++;
+        int cellStart = currentStart;
+        for (int index = 0; index < blockSize; index++) {
+            int position = currentStart + index;
+            if (index > 0 && !sameCounts(sorted[index - 1], sorted[index], width)) {
+                addBlock(cellStart, position);
+                partition.addBoundary(position - 1);
+                cellStart = position;
+            }
+            partition.setElement(position, sorted[index]);
+        }
+        addBlock(cellStart, currentEnd);
+    }
+    
+    private boolean allEqual(int[] elements, int size, int width) {
+        for (int index = 1; index < size; index++) {
+            if (!sameCounts(elements[0], elements[index], width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean sameCounts(int elementA, int elementB, int width) {
+        int offsetA = elementA * width;
+        int offsetB = elementB * width;
+        for (int kind = 0; kind < width; kind++) {
+            if (counts[offsetA + kind] != counts[offsetB + kind]) {
+                return false;
+            }
         }
-        // skip over the newly added blocks
-        return currentBlockIndex + invariantMap.keySet().size() - 1;
+        return true;
     }
 
 }
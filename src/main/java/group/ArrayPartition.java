@@ -0,0 +1,275 @@
+package group;
+
+/**
+ * An ordered partition of the numbers 0 to n-1 held in two int arrays, as in
+ * nauty: the elements in cell order, and for each position the level at which
+ * a cell boundary was put after that position. Cells are split in place by
+ * rearranging elements within the cell and adding boundaries, and the splits
+ * made below a level are undone by restoring to that level - so a search can
+ * work on a single partition rather than copying one for every branch.
+ *
+ * The order of the elements within a cell has no meaning.
+ *
+ * @author maclean
+ * @cdk.module group
+ */
+public class ArrayPartition {
+
+    /**
+     * The level of a position that is not the last in its cell.
+     */
+    private static final int NO_BOUNDARY = Integer.MAX_VALUE;
+
+    private final int size;
+
+    /**
+     * The elements, in cell order.
+     */
+    private final int[] elements;
+
+    /**
+     * The position of each element in the elements array.
+     */
+    private final int[] positions;
+
+    /**
+     * For each position, the level of the boundary after it, or NO_BOUNDARY.
+     */
+    private final int[] boundaryLevels;
+
+    /**
+     * The positions that have a boundary after them, in the order they were
+     * added; there is one for each cell.
+     */
+    private final int[] boundaryStack;
+
+    private int cellCount;
+
+    private int level;
+
+    /**
+     * Make a partition with the same cells as a set-based partition.
+     *
+     * @param partition the cells to start with
+     */
+    public ArrayPartition(Partition partition) {
+        this(partition.numberOfElements());
+        int position = 0;
+        for (int cellIndex = 0; cellIndex < partition.size(); cellIndex++) {
+            for (int element : partition.getCell(cellIndex)) {
+                setElement(position, element);
+                position++;
+            }
+            addBoundary(position - 1);
+        }
+    }
+
+    private ArrayPartition(int size) {
+        this.size = size;
+        this.elements = new int[size];
+        this.positions = new int[size];
+        this.boundaryLevels = new int[size];
+        this.boundaryStack = new int[size];
+        for (int position = 0; position < size; position++) {
+            boundaryLevels[position] = NO_BOUNDARY;
+        }
+        this.cellCount = 0;
+        this.level = 0;
+    }
+
+    /**
+     * Create a unit partition, with all the elements in one cell.
+     *
+     * @param size the number of elements
+     * @return a partition with one cell
+     */
+    public static ArrayPartition unit(int size) {
+        ArrayPartition unit = new ArrayPartition(size);
+        for (int element = 0; element < size; element++) {
+            unit.setElement(element, element);
+        }
+        if (size > 0) {
+            unit.addBoundary(size - 1);
+        }
+        return unit;
+    }
+
+    /**
+     * @return the number of elements
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of cells
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return the level of the last split
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isDiscrete() {
+        return cellCount == size;
+    }
+
+    /**
+     * @param position a position in cell order
+     * @return the element at that position
+     */
+    public int getElement(int position) {
+        return elements[position];
+    }
+
+    /**
+     * @param element an element
+     * @return the position of the element in cell order
+     */
+    public int getPosition(int element) {
+        return positions[element];
+    }
+
+    /**
+     * Put an element at a position. The caller has to keep the elements of
+     * each cell within the cell, which is only a matter of rearranging them.
+     *
+     * @param position a position in cell order
+     * @param element the element to put there
+     */
+    public void setElement(int position, int element) {
+        elements[position] = element;
+        positions[element] = position;
+    }
+
+    /**
+     * @param start the first position of a cell
+     * @return the position after the last one in that cell
+     */
+    public int getCellEnd(int start) {
+        int position = start;
+        while (boundaryLevels[position] == NO_BOUNDARY) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * End a cell after a position, as part of the current level.
+     *
+     * @param position the last position of the new cell
+     */
+    public void addBoundary(int position) {
+        boundaryLevels[position] = level;
+        boundaryStack[cellCount] = position;
+        cellCount++;
+    }
+
+    /**
+     * Start a new level by splitting an element out of its cell, so that it is
+     * in a singleton cell just before the rest of the cell.
+     *
+     * @param cellStart the first position of the cell
+     * @param element the element to split out
+     */
+    public void individualize(int cellStart, int element) {
+        level++;
+        int position = positions[element];
+        setElement(position, elements[cellStart]);
+        setElement(cellStart, element);
+        addBoundary(cellStart);
+    }
+
+    /**
+     * Remove the boundaries added after a level, leaving the cells as they
+     * were at the end of that level.
+     *
+     * @param toLevel the level to go back to
+     */
+    public void restore(int toLevel) {
+        while (cellCount > 0 && boundaryLevels[boundaryStack[cellCount - 1]] > toLevel) {
+            cellCount--;
+            boundaryLevels[boundaryStack[cellCount]] = NO_BOUNDARY;
+        }
+        this.level = toLevel;
+    }
+
+    /**
+     * Gets the index of the first cell that is not discrete. As the cells
+     * before it are singletons, this is also its first position.
+     *
+     * @return the index of the first cell with more than one element, or -1
+     */
+    public int getIndexOfFirstNonDiscreteCell() {
+        int start = 0;
+        while (start < size) {
+            int end = getCellEnd(start);
+            if (end - start > 1) {
+                return start;
+            }
+            start = end;
+        }
+        return -1;
+    }
+
+    /**
+     * @param start the first position of a cell
+     * @return the smallest element in that cell
+     */
+    public int getSmallestInCell(int start) {
+        int end = getCellEnd(start);
+        int smallest = elements[start];
+        for (int position = start + 1; position < end; position++) {
+            smallest = Math.min(smallest, elements[position]);
+        }
+        return smallest;
+    }
+
+    /**
+     * Fill the permutation with the element at each position, up to the point
+     * <code>upTo</code> - which should be within the singleton cells at the start.
+     *
+     * @param permutation the permutation to fill with elements
+     * @param upTo the point to stop at
+     */
+    public void setAsPermutation(Permutation permutation, int upTo) {
+        for (int position = 0; position < upTo; position++) {
+            permutation.set(position, elements[position]);
+        }
+    }
+
+    /**
+     * Converts a discrete partition into a permutation.
+     *
+     * @return the partition as a permutation
+     */
+    public Permutation toPermutation() {
+        return new Permutation(elements.clone());
+    }
+
+    /**
+     * @return a set-based partition with the same cells, in the same order
+     */
+    public Partition toPartition() {
+        Partition partition = new Partition();
+        int start = 0;
+        while (start < size) {
+            int end = getCellEnd(start);
+            int[] cell = new int[end - start];
+            System.arraycopy(elements, start, cell, 0, end - start);
+            partition.addCell(cell);
+            start = end;
+        }
+        return partition;
+    }
+
+    public String toString() {
+        return toPartition().toString();
+    }
+
+}
@@ -0,0 +1,146 @@
+package group;
+
+import java.util.Arrays;
+
+/**
+ * The upper triangle of a connection matrix under a labelling - the entries
+ * (0, 1), (0, 2), ..., (0, n-1), (1, 2), ..., (n-2, n-1) - packed into longs.
+ * Each entry takes a fixed number of bits, two for bond orders up to 3, and the
+ * earlier entries are in the higher bits of each word; so two certificates of
+ * the same size compare word by word in the same order as their half matrix
+ * strings.
+ *
+ * For the best labelling of a refiner this is a canonical form: two graphs
+ * with the same initial partition have equal certificates if and only if they
+ * are isomorphic.
+ *
+ * @author maclean
+ *
+ */
+public class Certificate implements Comparable<Certificate> {
+
+    /**
+     * The number of bits for each entry, if no entry is larger than 3.
+     */
+    public static final int DEFAULT_BITS = 2;
+
+    private final int vertexCount;
+
+    private final int bitsPerEntry;
+
+    private final long[] words;
+
+    /**
+     * @param vertexCount the number of rows of the matrix
+     * @param bitsPerEntry the number of bits used for each entry
+     * @param words the packed entries
+     */
+    public Certificate(int vertexCount, int bitsPerEntry, long[] words) {
+        this.vertexCount = vertexCount;
+        this.bitsPerEntry = bitsPerEntry;
+        this.words = words;
+    }
+
+    /**
+     * @param maxValue the largest value in the matrix
+     * @return the number of bits needed for each entry
+     */
+    public static int getBitsPerEntry(int maxValue) {
+        return Math.max(DEFAULT_BITS, Integer.SIZE - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    /**
+     * @param bitsPerEntry the number of bits for each entry
+     * @return the number of entries in one word
+     */
+    public static int getEntriesPerWord(int bitsPerEntry) {
+        return Long.SIZE / bitsPerEntry;
+    }
+
+    /**
+     * @param vertexCount the number of rows of the matrix
+     * @param bitsPerEntry the number of bits for each entry
+     * @return the number of words for the upper triangle
+     */
+    public static int getWordCount(int vertexCount, int bitsPerEntry) {
+        int entryCount = (vertexCount * (vertexCount - 1)) / 2;
+        int entriesPerWord = getEntriesPerWord(bitsPerEntry);
+        return (entryCount + entriesPerWord - 1) / entriesPerWord;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Get one entry of the matrix.
+     *
+     * @param i a row
+     * @param j a column, greater than the row
+     * @return the value at (i, j)
+     */
+    public int get(int i, int j) {
+        int entry = (i * ((2 * vertexCount) - i - 1)) / 2 + (j - i - 1);
+        int entriesPerWord = getEntriesPerWord(bitsPerEntry);
+        int wordIndex = entry / entriesPerWord;
+
+        // a partly filled last word has its entries in the lowest bits
+        int inWord = (wordIndex == words.length - 1)?
+                getEntryCount() - (wordIndex * entriesPerWord) : entriesPerWord;
+        int shift = bitsPerEntry * (inWord - 1 - (entry % entriesPerWord));
+        return (int) ((words[wordIndex] >>> shift) & ((1L << bitsPerEntry) - 1));
+    }
+
+    private int getEntryCount() {
+        return (vertexCount * (vertexCount - 1)) / 2;
+    }
+
+    @Override
+    public int compareTo(Certificate other) {
+        if (vertexCount != other.vertexCount) {
+            return Integer.compare(vertexCount, other.vertexCount);
+        }
+        if (bitsPerEntry != other.bitsPerEntry) {
+            return Integer.compare(bitsPerEntry, other.bitsPerEntry);
+        }
+        for (int index = 0; index < words.length; index++) {
+            int comparison = Long.compareUnsigned(words[index], other.words[index]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof Certificate) {
+            Certificate o = (Certificate) other;
+            return vertexCount == o.vertexCount
+                && bitsPerEntry == o.bitsPerEntry
+                && Arrays.equals(words, o.words);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * vertexCount) + Arrays.hashCode(words);
+    }
+
+    /**
+     * @return the half matrix string, as the entries one after another
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < vertexCount - 1; i++) {
+            for (int j = i + 1; j < vertexCount; j++) {
+                sb.append(get(i, j));
+            }
+        }
+        return sb.toString();
+    }
+
+}
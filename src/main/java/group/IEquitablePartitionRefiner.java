@@ -17,5 +17,13 @@ public interface IEquitablePartitionRefiner {
      * @return a partition that is at least as fine, or finer
      */
     public Partition refine(Partition coarse);
+    
+    /**
+     * Refines a partition in place into an equitable partition, adding any new
+     * cell boundaries at the current level of the partition.
+     * 
+     * @param partition the partition to refine
+     */
+    public void refine(ArrayPartition partition);
 
 }
@@ -31,7 +31,15 @@ public class OrbitLister {
     }
     
     public int[][] getOrbits(int kvalue, int size, PermutationGroup group) {
-        return getOrbits(kvalue, size, group.all());
+        int nchoosek = nChooseK(size, kvalue);
+        DisjointSetForest orbits = new DisjointSetForest(nchoosek);
+        PermutationGroup.Cursor cursor = group.cursor();
+        while (cursor.next()) {
+            use_generator_kset(cursor.current(), nchoosek, kvalue, orbits);
+        }
+        
+        int[][] orbitList = getOrbits(nchoosek, orbits);
+        return reconstructOrbits(orbitList, kvalue);
     }
     
     public int[][] getOrbits(int nchoosek, DisjointSetForest orbits) {
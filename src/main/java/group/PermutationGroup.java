@@ -102,6 +102,27 @@ public class PermutationGroup {
         }
     }
     
+    /**
+     * Creates a group from the transversals of another representation with the
+     * same base, so that no permutations have to be entered.
+     * 
+     * @param base the base of the group
+     * @param table for each level i and point j, the values of the permutation
+     *        in U<sub>i</sub> that takes the base point i to j, or null
+     */
+    public PermutationGroup(Permutation base, int[][][] table) {
+        this.n = base.size();
+        this.base = new Permutation(base);
+        this.permutations = new Permutation[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (table[i][j] != null) {
+                    this.permutations[i][j] = new Permutation(table[i][j].clone());
+                }
+            }
+        }
+    }
+    
     /**
      * Creates a group from a set of generators. See the makeSymN method for
      * where this is used to make the symmetric group on N using the two 
@@ -196,6 +217,17 @@ public class PermutationGroup {
         return this.permutations[i][j];
     }
     
+    /**
+     * Get the point of the base at one level; the permutations in U<sub>i</sub>
+     * fix the base points before it.
+     * 
+     * @param i the index of the set U
+     * @return the base point of that level
+     */
+    public int getBasePoint(int i) {
+        return this.base.get(i);
+    }
+    
     
     /**
      * Get the traversal U<sub>i</sub> from the list of transversals.
@@ -221,7 +253,7 @@ public class PermutationGroup {
      */
     public List<Permutation> transversal(final PermutationGroup subgroup) {
         final int size = n;
-        final int m = this.order() / subgroup.order();
+        final long m = this.orderAsLong() / subgroup.orderAsLong();
         final List<Permutation> results = new ArrayList<Permutation>();
         Backtracker transversalBacktracker = new Backtracker() {
 
@@ -250,33 +282,32 @@ public class PermutationGroup {
     }
     
     /**
-     * Apply the backtracker to all permutations in the larger group.
+     * Apply the backtracker to all permutations in the larger group, stopping
+     * early if the backtracker is finished. Each permutation passed to the 
+     * backtracker is a new copy, so it may be kept.
      * 
      * @param backtracker a hook for acting on the permutations
      */
     public void apply(Backtracker backtracker) {
-        this.backtrack(0, new Permutation(this.n), backtracker);
-    }
-    
-    private void backtrack(int l, Permutation g, Backtracker backtracker) {
-        if (l == this.n) {
-            backtracker.applyTo(g);
-        } else {
-            for (int i = 0; i < this.n; i++) {
-                Permutation h = this.permutations[l][i]; 
-                if (h != null) {
-                    backtrack(l + 1, g.multiply(h), backtracker);
-                }
-            }
+        Cursor cursor = this.cursor();
+        while (!backtracker.finished() && cursor.next()) {
+            backtracker.applyTo(new Permutation(cursor.current()));
         }
     }
     
     /**
-     * Generate the whole group from the compact list of permutations.
+     * Generate the whole group from the compact list of permutations. For 
+     * large groups - or where only some of the elements may be needed - use 
+     * the {@link #cursor()} instead.
      * 
      * @return a list of permutations
+     * @throws IllegalStateException if the group is too large for a list
      */
     public List<Permutation> all() {
+        if (this.orderAsLong() > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "Group of order " + this.orderAsLong() + " is too large to list");
+        }
         final List<Permutation> permutations = new ArrayList<Permutation>();
         Backtracker counter = new Backtracker() {
             public void applyTo(Permutation p) {
@@ -287,6 +318,110 @@ public class PermutationGroup {
         this.apply(counter);
         return permutations;
     }
+    
+    /**
+     * Make a cursor over the elements of the group, in the same order as 
+     * {@link #all()}, that does not make a new permutation for each one.
+     * 
+     * @return a cursor positioned before the first element
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Steps through the elements of the group by backtracking over the table,
+     * keeping the product of the permutations chosen so far in one array per
+     * level. A caller that has found what it needs can just stop calling next,
+     * so the whole group is never listed.
+     * 
+     * The permutation returned by current is backed by the array for the last
+     * level, so it changes with each call to next; copy it to keep it.
+     */
+    public class Cursor {
+        
+        /**
+         * The index in U<sub>i</sub> of the permutation chosen at each level.
+         */
+        private final int[] choices;
+        
+        /**
+         * The product of the permutations chosen above each level; the first
+         * is the identity.
+         */
+        private final int[][] products;
+        
+        private final Permutation current;
+        
+        private boolean started;
+        
+        private Cursor() {
+            this.choices = new int[n];
+            this.products = new int[n + 1][n];
+            for (int i = 0; i < n; i++) {
+                this.products[0][i] = i;
+            }
+            this.current = new Permutation(products[n]);
+            this.started = false;
+        }
+        
+        /**
+         * Move on to the next element of the group.
+         * 
+         * @return false if there are no more elements
+         */
+        public boolean next() {
+            int level;
+            if (started) {
+                level = n - 1;
+            } else {
+                started = true;
+                if (n == 0) {
+                    return false;
+                }
+                level = 0;
+                choices[0] = -1;
+            }
+            while (level >= 0) {
+                int choice = choices[level] + 1;
+                while (choice < n && permutations[level][choice] == null) {
+                    choice++;
+                }
+                if (choice == n) {
+                    level--;
+                    continue;
+                }
+                choices[level] = choice;
+                int[] product = products[level];
+                int[] next = products[level + 1];
+                Permutation h = permutations[level][choice];
+                for (int i = 0; i < n; i++) {
+                    next[i] = product[h.get(i)];
+                }
+                if (level == n - 1) {
+                    return true;
+                }
+                level++;
+                choices[level] = -1;
+            }
+            return false;
+        }
+        
+        /**
+         * @return the current element, which is overwritten by the next call to next
+         */
+        public Permutation current() {
+            return current;
+        }
+        
+        /**
+         * @param i a point
+         * @return the image of the point under the current element
+         */
+        public int get(int i) {
+            return products[n][i];
+        }
+    }
 
     /**
      * Change the base of the group to the new base <code>newBase</code>.
@@ -299,10 +434,11 @@ public class PermutationGroup {
         
         int r = this.base.firstIndexOfDifference(newBase);
         
+        // H already has the identity at each level
         for (int j = r; j < n; j++) {
             for (int a = 0; a < n; a++) {
                 Permutation g = this.permutations[j][a];
-                if (g != null) {
+                if (g != null && !g.isIdentity()) {
                     H.enter(g);
                 }
             }
@@ -0,0 +1,174 @@
+package group;
+
+/**
+ * The Schreier-Sims table of a permutation group, with the base 0, 1, ..., n-1,
+ * held as int arrays so that an array can be tested against its images under
+ * the group without listing the group.
+ *
+ * Every element of the group is u<sub>0</sub>u<sub>1</sub>...u<sub>n-1</sub>
+ * for some choice of u<sub>i</sub> in the transversal U<sub>i</sub>, and as
+ * the elements of U<sub>j</sub> fix 0 to j - 1 the image of i depends only on
+ * the choice of u<sub>0</sub> to u<sub>i</sub>. So the images of an array can
+ * be compared to the array an index at a time, dropping any branch where the
+ * first difference is in the wrong direction.
+ *
+ * Not thread safe - the search uses a workspace kept between calls.
+ *
+ * @author maclean
+ *
+ */
+public class StabilizerChain {
+
+    private final int size;
+
+    /**
+     * For each level i, the points that U<sub>i</sub> maps i to.
+     */
+    private final int[][] images;
+
+    /**
+     * For each level i, the permutations in U<sub>i</sub> other than the identity.
+     */
+    private final int[][][] representatives;
+
+    /**
+     * The product of the chosen representatives above each level.
+     */
+    private final int[][] products;
+
+    /**
+     * @param table for each level i, the values of the permutation mapping i to j
+     * at index j - or null if there is none; the base must be 0, 1, ..., n-1
+     */
+    public StabilizerChain(int[][][] table) {
+        this.size = table.length;
+        this.images = new int[size][];
+        this.representatives = new int[size][][];
+        for (int level = 0; level < size; level++) {
+            int count = 0;
+            for (int point = level + 1; point < size; point++) {
+                if (table[level][point] != null) {
+                    count++;
+                }
+            }
+            images[level] = new int[count];
+            representatives[level] = new int[count][];
+            int index = 0;
+            for (int point = level + 1; point < size; point++) {
+                if (table[level][point] != null) {
+                    images[level][index] = point;
+                    representatives[level][index] = table[level][point];
+                    index++;
+                }
+            }
+        }
+        this.products = new int[size + 1][size];
+        for (int point = 0; point < size; point++) {
+            products[0][point] = point;
+        }
+    }
+
+    /**
+     * Make the table for a group, changing its base to 0, 1, ..., n-1 first if
+     * it has some other base.
+     *
+     * @param group a permutation group
+     * @return the table for that group
+     */
+    public static StabilizerChain of(PermutationGroup group) {
+        int size = group.getSize();
+        if (!hasIdentityBase(group)) {
+            group.changeBase(new Permutation(size));
+        }
+        int[][][] table = new int[size][size][];
+        for (int level = 0; level < size; level++) {
+            for (int point = 0; point < size; point++) {
+                Permutation representative = group.get(level, point);
+                if (representative != null) {
+                    table[level][point] = representative.getValues();
+                }
+            }
+        }
+        return new StabilizerChain(table);
+    }
+
+    /**
+     * The base point of each level is where that level holds the identity.
+     */
+    private static boolean hasIdentityBase(PermutationGroup group) {
+        for (int level = 0; level < group.getSize(); level++) {
+            Permutation representative = group.get(level, level);
+            if (representative == null || !representative.isIdentity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Test an array against its images under the group, where the image under
+     * p has the value of a[i] at p(i). The comparison is lexicographic, as
+     * for the strings of the arrays when all the values are single digits.
+     *
+     * @param array the values for each point
+     * @return true if no image of the array is larger than the array
+     */
+    public boolean isLargestImage(int[] array) {
+        return isLargestImage(array, 0);
+    }
+
+    /**
+     * As the group is closed under inverses, look for an element h where the
+     * array with a[h(i)] at i is larger - so that h(i) can be read from the
+     * representatives chosen at levels 0 to i.
+     */
+    private boolean isLargestImage(int[] array, int level) {
+        if (level == size) {
+            return true;
+        }
+        int[] product = products[level];
+        int[] next = products[level + 1];
+        int target = array[level];
+
+        // the identity in U_level
+        int value = array[product[level]];
+        if (value > target) {
+            return false;
+        } else if (value == target) {
+            System.arraycopy(product, 0, next, 0, size);
+            if (!isLargestImage(array, level + 1)) {
+                return false;
+            }
+        }
+
+        for (int index = 0; index < images[level].length; index++) {
+            value = array[product[images[level][index]]];
+            if (value > target) {
+                return false;
+            } else if (value < target) {
+                continue;
+            }
+            int[] representative = representatives[level][index];
+            boolean sameAsIdentity = true;
+            for (int point = 0; point < size; point++) {
+                next[point] = product[representative[point]];
+                if (array[next[point]] != array[product[point]]) {
+                    sameAsIdentity = false;
+                }
+            }
+            // the images below this branch are the same as below the identity
+            if (sameAsIdentity) {
+                continue;
+            }
+            if (!isLargestImage(array, level + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+}
@@ -91,6 +91,11 @@ public class GraphDiscretePartitionRefiner extends AbstractDiscretePartitionRefi
         return lazyRefinable.getVertexCount();
     }
     
+    @Override
+    public int getMaxConnectivity() {
+        return lazyRefinable.getMaxConnectivity();
+    }
+    
     @Override
     public boolean colorsPreserved(Permutation p) {
         if (colors == null) {
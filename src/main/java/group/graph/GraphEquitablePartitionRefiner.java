@@ -1,12 +1,8 @@
 package group.graph;
 
-import java.util.Set;
-
 import group.AbstractEquitablePartitionRefiner;
 import group.IEquitablePartitionRefiner;
 import group.Refinable;
-import group.invariant.IntegerListInvariant;
-import group.invariant.Invariant;
 
 
 /**
@@ -31,16 +27,20 @@ public class GraphEquitablePartitionRefiner extends AbstractEquitablePartitionRe
     }
 
     @Override
-    public Invariant neighboursInBlock(Set<Integer> block, int vertexIndex) {
-        int[] colorCounts = new int[refinable.getMaxConnectivity()];
-        
-        for (int connectedIndex : refinable.getConnectedIndices(vertexIndex)) {
-            if (block.contains(connectedIndex)) {
-                int color = refinable.getConnectivity(vertexIndex, connectedIndex);
-                colorCounts[color - 1]++;
+    public int getCountWidth() {
+        return refinable.getMaxConnectivity();
+    }
+
+    @Override
+    public void countNeighbours(int element, int[] counts, int width) {
+        int vertexCount = refinable.getVertexCount();
+        for (int connectedIndex : refinable.getConnectedIndices(element)) {
+            // an edge to a vertex outside the graph is not in any block
+            if (connectedIndex < vertexCount) {
+                int color = refinable.getConnectivity(connectedIndex, element);
+                counts[(connectedIndex * width) + color - 1]++;
             }
         }
-        return new IntegerListInvariant(colorCounts);
     }
 
 }
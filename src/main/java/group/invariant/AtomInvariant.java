@@ -0,0 +1,29 @@
+package group.invariant;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * A property of each atom that does not depend on how the atoms are numbered,
+ * used to split the initial partition before the search for the automorphism 
+ * group - so that atoms which could never be mapped to each other start in 
+ * different cells, instead of being told apart by branching.
+ * 
+ * @author maclean
+ *
+ */
+public interface AtomInvariant {
+    
+    /**
+     * Get the value of the invariant for every atom.
+     * 
+     * @param atomContainer the atoms and bonds
+     * @return the value for each atom, by atom index
+     */
+    public int[] getValues(IAtomContainer atomContainer);
+    
+    /**
+     * @return the name used to choose this invariant
+     */
+    public String getName();
+
+}
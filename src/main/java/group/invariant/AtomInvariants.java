@@ -0,0 +1,113 @@
+package group.invariant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+
+import group.Partition;
+
+/**
+ * Chooses atom invariants by name, and splits partitions by their values.
+ * 
+ * @author maclean
+ *
+ */
+public class AtomInvariants {
+    
+    private static final AtomInvariant[] ALL = {
+        new DegreeInvariant(),
+        new BondOrderInvariant(),
+        new HydrogenCountInvariant(),
+        new RingMembershipInvariant(),
+        new DistanceInvariant()
+    };
+    
+    /**
+     * Get the invariants for a list of names like "degree,ring", in the 
+     * order they are listed.
+     * 
+     * @param names a comma-separated list of invariant names
+     * @return the named invariants
+     * @throws IllegalArgumentException for a name that is not known
+     */
+    public static List<AtomInvariant> fromNames(String names) {
+        List<AtomInvariant> invariants = new ArrayList<AtomInvariant>();
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            invariants.add(forName(trimmed));
+        }
+        return invariants;
+    }
+    
+    private static AtomInvariant forName(String name) {
+        for (AtomInvariant invariant : ALL) {
+            if (invariant.getName().equalsIgnoreCase(name)) {
+                return invariant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown atom invariant : " + name 
+                + " (choose from " + getNames() + ")");
+    }
+    
+    /**
+     * @return the names of all the invariants
+     */
+    public static String getNames() {
+        StringBuilder names = new StringBuilder();
+        for (AtomInvariant invariant : ALL) {
+            if (names.length() > 0) {
+                names.append(",");
+            }
+            names.append(invariant.getName());
+        }
+        return names.toString();
+    }
+    
+    /**
+     * Split each cell of a partition by the values of the invariants, keeping
+     * the cells in order and putting the new cells of each one in the order of
+     * their values - so that the result does not depend on the atom numbering
+     * any more than the partition did.
+     * 
+     * @param partition the partition to split
+     * @param values for each invariant, the value of each element
+     * @return a partition at least as fine
+     */
+    public static Partition split(Partition partition, final int[][] values) {
+        Comparator<Integer> byValues = new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                for (int[] invariantValues : values) {
+                    int comparison = Integer.compare(invariantValues[a], invariantValues[b]);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return 0;
+            }
+        };
+        Partition finer = new Partition();
+        for (int cellIndex = 0; cellIndex < partition.size(); cellIndex++) {
+            SortedSet<Integer> cell = partition.getCell(cellIndex);
+            Integer[] elements = cell.toArray(new Integer[cell.size()]);
+            Arrays.sort(elements, byValues);
+            List<Integer> newCell = new ArrayList<Integer>();
+            for (Integer element : elements) {
+                if (!newCell.isEmpty() && byValues.compare(newCell.get(0), element) != 0) {
+                    finer.addCell(newCell);
+                    newCell = new ArrayList<Integer>();
+                }
+                newCell.add(element);
+            }
+            if (!newCell.isEmpty()) {
+                finer.addCell(newCell);
+            }
+        }
+        return finer;
+    }
+
+}
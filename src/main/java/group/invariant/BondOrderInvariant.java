@@ -0,0 +1,47 @@
+package group.invariant;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+
+/**
+ * The multiset of the orders of the bonds to each atom, as the number of
+ * single, double, and triple bonds in one value.
+ * 
+ * @author maclean
+ *
+ */
+public class BondOrderInvariant implements AtomInvariant {
+    
+    /**
+     * More than enough bonds of one order for any atom.
+     */
+    private static final int RADIX = 16;
+
+    @Override
+    public int[] getValues(IAtomContainer atomContainer) {
+        int[] values = new int[atomContainer.getAtomCount()];
+        for (int index = 0; index < values.length; index++) {
+            int value = 0;
+            for (IBond bond : atomContainer.getConnectedBondsList(atomContainer.getAtom(index))) {
+                value += getWeight(bond.getOrder());
+            }
+            values[index] = value;
+        }
+        return values;
+    }
+    
+    private int getWeight(IBond.Order order) {
+        switch (order) {
+            case SINGLE: return 1;
+            case DOUBLE: return RADIX;
+            case TRIPLE: return RADIX * RADIX;
+            default: return RADIX * RADIX * RADIX;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "bonds";
+    }
+
+}
@@ -0,0 +1,27 @@
+package group.invariant;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * The number of atoms bonded to each atom.
+ * 
+ * @author maclean
+ *
+ */
+public class DegreeInvariant implements AtomInvariant {
+
+    @Override
+    public int[] getValues(IAtomContainer atomContainer) {
+        int[] values = new int[atomContainer.getAtomCount()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = atomContainer.getConnectedAtomsCount(atomContainer.getAtom(index));
+        }
+        return values;
+    }
+
+    @Override
+    public String getName() {
+        return "degree";
+    }
+
+}
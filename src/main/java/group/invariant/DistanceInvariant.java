@@ -0,0 +1,72 @@
+package group.invariant;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * The sum of the shortest path lengths from each atom to the other atoms it is
+ * connected to, so that atoms at the center of a structure are told apart from
+ * atoms at the edge.
+ * 
+ * @author maclean
+ *
+ */
+public class DistanceInvariant implements AtomInvariant {
+
+    @Override
+    public int[] getValues(IAtomContainer atomContainer) {
+        int[][] neighbours = getNeighbours(atomContainer);
+        int atomCount = neighbours.length;
+        int[] values = new int[atomCount];
+        int[] distances = new int[atomCount];
+        int[] queue = new int[atomCount];
+        for (int start = 0; start < atomCount; start++) {
+            Arrays.fill(distances, -1);
+            distances[start] = 0;
+            queue[0] = start;
+            int head = 0;
+            int tail = 1;
+            int sum = 0;
+            while (head < tail) {
+                int current = queue[head];
+                head++;
+                sum += distances[current];
+                for (int neighbour : neighbours[current]) {
+                    if (distances[neighbour] == -1) {
+                        distances[neighbour] = distances[current] + 1;
+                        queue[tail] = neighbour;
+                        tail++;
+                    }
+                }
+            }
+            values[start] = sum;
+        }
+        return values;
+    }
+    
+    /**
+     * @param atomContainer the atoms and bonds
+     * @return the indices of the atoms bonded to each atom
+     */
+    static int[][] getNeighbours(IAtomContainer atomContainer) {
+        int atomCount = atomContainer.getAtomCount();
+        int[][] neighbours = new int[atomCount][];
+        for (int index = 0; index < atomCount; index++) {
+            List<IAtom> connected = atomContainer.getConnectedAtomsList(atomContainer.getAtom(index));
+            neighbours[index] = new int[connected.size()];
+            for (int neighbourIndex = 0; neighbourIndex < connected.size(); neighbourIndex++) {
+                neighbours[index][neighbourIndex] = atomContainer.getAtomNumber(connected.get(neighbourIndex));
+            }
+        }
+        return neighbours;
+    }
+
+    @Override
+    public String getName() {
+        return "distance";
+    }
+
+}
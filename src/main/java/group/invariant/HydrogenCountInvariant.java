@@ -0,0 +1,28 @@
+package group.invariant;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * The implicit hydrogen count of each atom, with an unset count as zero.
+ * 
+ * @author maclean
+ *
+ */
+public class HydrogenCountInvariant implements AtomInvariant {
+
+    @Override
+    public int[] getValues(IAtomContainer atomContainer) {
+        int[] values = new int[atomContainer.getAtomCount()];
+        for (int index = 0; index < values.length; index++) {
+            Integer hCount = atomContainer.getAtom(index).getImplicitHydrogenCount();
+            values[index] = (hCount == null)? 0 : hCount;
+        }
+        return values;
+    }
+
+    @Override
+    public String getName() {
+        return "hydrogens";
+    }
+
+}
@@ -1,9 +0,0 @@
-package group.invariant;
-
-/**
- * Marker interface for invariants.
- * 
- * @author maclean
- *
- */
-public interface Invariant extends Comparable<Invariant> { }
\ No newline at end of file
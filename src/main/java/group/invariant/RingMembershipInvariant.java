@@ -0,0 +1,73 @@
+package group.invariant;
+
+import java.util.List;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+
+import util.molecule.ChainDecomposition;
+
+/**
+ * Whether each atom is in a ring, from a chain decomposition: every bond in 
+ * a chain - cycle or path - is in a ring, so the atoms of those bonds get 1, 
+ * and the rest 0.
+ * 
+ * The decomposition only spans the atoms connected to the first atom, which
+ * depends on the numbering; so for a disconnected structure every atom gets 0.
+ * 
+ * @author maclean
+ *
+ */
+public class RingMembershipInvariant implements AtomInvariant {
+
+    @Override
+    public int[] getValues(IAtomContainer atomContainer) {
+        int atomCount = atomContainer.getAtomCount();
+        int[] values = new int[atomCount];
+        if (atomCount < 3 || !isConnected(atomContainer)) {
+            return values;
+        }
+        ChainDecomposition chains = new ChainDecomposition(atomContainer);
+        mark(atomContainer, chains.getCycleChains(), values);
+        mark(atomContainer, chains.getPathChains(), values);
+        return values;
+    }
+    
+    private void mark(IAtomContainer atomContainer, List<List<IBond>> chains, int[] values) {
+        for (List<IBond> chain : chains) {
+            for (IBond bond : chain) {
+                values[atomContainer.getAtomNumber(bond.getAtom(0))] = 1;
+                values[atomContainer.getAtomNumber(bond.getAtom(1))] = 1;
+            }
+        }
+    }
+    
+    private boolean isConnected(IAtomContainer atomContainer) {
+        int[][] neighbours = DistanceInvariant.getNeighbours(atomContainer);
+        boolean[] visited = new boolean[neighbours.length];
+        int[] stack = new int[neighbours.length];
+        stack[0] = 0;
+        visited[0] = true;
+        int size = 1;
+        int visitedCount = 1;
+        while (size > 0) {
+            size--;
+            int current = stack[size];
+            for (int neighbour : neighbours[current]) {
+                if (!visited[neighbour]) {
+                    visited[neighbour] = true;
+                    visitedCount++;
+                    stack[size] = neighbour;
+                    size++;
+                }
+            }
+        }
+        return visitedCount == neighbours.length;
+    }
+
+    @Override
+    public String getName() {
+        return "ring";
+    }
+
+}
@@ -11,9 +11,12 @@ import java.util.TreeSet;
 import org.openscience.cdk.interfaces.IAtomContainer;
 
 import group.AbstractDiscretePartitionRefiner;
+import group.Certificate;
 import group.Partition;
 import group.Permutation;
 import group.PermutationGroup;
+import group.invariant.AtomInvariant;
+import group.invariant.AtomInvariants;
 
 /**
  * A refiner for CDK atom containers; see: 
@@ -22,7 +25,7 @@ import group.PermutationGroup;
  * @author maclean
  * @cdk.module group
  */
-public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefiner {
+public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefiner implements AutomorphismEngine {
     
     // TODO : use interface
     private MoleculeRefinable refinable;
@@ -48,6 +51,11 @@ public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefin
      */
     private Partition colors;
     
+    /**
+     * Invariants to split the initial partition by, before the search.
+     */
+    private List<AtomInvariant> invariants = Collections.emptyList();
+    
     /**
      * Default constructor - does not check for disconnected atoms, ignore elements
      * or bond orders.
@@ -88,6 +96,18 @@ public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefin
         refinable = null;
     }
     
+    /**
+     * Set the invariants that split the initial partition of 
+     * {@link #getAutomorphismGroup(IAtomContainer)}. The group is the same 
+     * with or without them, but the best labelling - and so the canonical 
+     * key - depends on which invariants are used.
+     * 
+     * @param invariants the invariants to use, in order
+     */
+    public void setInvariants(List<AtomInvariant> invariants) {
+        this.invariants = invariants;
+    }
+    
     
     public int[] getIndexMap() {
         return refinable.getIndexMap();
@@ -149,10 +169,51 @@ public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefin
         } else {
             initial = getElementPartition(atomContainer);
         }
+        if (!invariants.isEmpty()) {
+            initial = splitByInvariants(initial, atomContainer);
+        }
         super.refine(initial);
         return super.getGroup();
     }
     
+    private Partition splitByInvariants(Partition initial, IAtomContainer atomContainer) {
+        int[] indexMap = refinable.getIndexMap();
+        int[][] values = new int[invariants.size()][];
+        for (int invariantIndex = 0; invariantIndex < invariants.size(); invariantIndex++) {
+            int[] atomValues = invariants.get(invariantIndex).getValues(atomContainer);
+            if (indexMap == null) {
+                values[invariantIndex] = atomValues;
+            } else {
+                // only the atoms with bonds are in the compact table
+                int[] mappedValues = new int[getVertexCount()];
+                for (int atomIndex = 0; atomIndex < atomValues.length; atomIndex++) {
+                    if (indexMap[atomIndex] >= 0) {
+                        mappedValues[indexMap[atomIndex]] = atomValues[atomIndex];
+                    }
+                }
+                values[invariantIndex] = mappedValues;
+            }
+        }
+        return AtomInvariants.split(initial, values);
+    }
+    
+    /**
+     * Gets a canonical key for the atom container - the certificate of the best
+     * labelling, starting from the partition of the atoms by element. Molecules
+     * with the same elements, and hydrogens that follow from the bonds, have 
+     * equal keys if and only if they are isomorphic; so the key can be used to 
+     * find duplicates or to cache results without making a canonical string.
+     * Keys are only comparable between refiners with the same invariants.
+     * 
+     * @param atomContainer the atom container to use
+     * @return the certificate of the canonical labelling
+     */
+    public Certificate getCanonicalKey(IAtomContainer atomContainer) {
+        reset();
+        getAutomorphismGroup(atomContainer);
+        return getBestCertificate();
+    }
+    
     /**
      * Get the element partition from an atom container, which is simply a list
      * of sets of atom indices where all atoms in one set have the same element
@@ -250,6 +311,11 @@ public class AtomDiscretePartitionRefiner extends AbstractDiscretePartitionRefin
         return refinable.getConnectivity(i, j);
     }
 
+    @Override
+    public int getMaxConnectivity() {
+        return refinable.getMaxConnectivity();
+    }
+
     @Override
     public boolean colorsPreserved(Permutation p) {
         if (colors != null) {
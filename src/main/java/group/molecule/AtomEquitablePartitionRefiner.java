@@ -1,12 +1,8 @@
 package group.molecule;
 
-import java.util.Set;
-
 import group.AbstractEquitablePartitionRefiner;
 import group.IEquitablePartitionRefiner;
 import group.Refinable;
-import group.invariant.IntegerListInvariant;
-import group.invariant.Invariant;
 
 /**
  * Refiner for atom containers, which refines partitions of the atoms to
@@ -25,15 +21,17 @@ public class AtomEquitablePartitionRefiner extends
         this.refinable = refinable;
     }
 
-    public Invariant neighboursInBlock(Set<Integer> block, int vertexIndex) {
-        int[] bondOrderCounts = new int[refinable.getMaxConnectivity()];
-        for (int connected : refinable.getConnectedIndices(vertexIndex)) {
-            if (block.contains(connected)) {
-                int bondOrder = refinable.getConnectivity(vertexIndex, connected);
-                bondOrderCounts[bondOrder - 1]++;
-            }
+    @Override
+    public int getCountWidth() {
+        return refinable.getMaxConnectivity();
+    }
+
+    @Override
+    public void countNeighbours(int element, int[] counts, int width) {
+        for (int connected : refinable.getConnectedIndices(element)) {
+            int bondOrder = refinable.getConnectivity(connected, element);
+            counts[(connected * width) + bondOrder - 1]++;
         }
-        return new IntegerListInvariant(bondOrderCounts);
     }
     
     @Override
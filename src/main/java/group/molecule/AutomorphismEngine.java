@@ -0,0 +1,64 @@
+package group.molecule;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import group.Partition;
+import group.Permutation;
+import group.PermutationGroup;
+
+/**
+ * Finds the automorphisms and a canonical labelling of an atom container, for 
+ * the canonical checks and augmentations of the atom-wise search. An engine 
+ * holds the results of its last search, so each thread should have its own.
+ * 
+ * @author maclean
+ *
+ */
+public interface AutomorphismEngine {
+    
+    /**
+     * The implementations to choose from.
+     */
+    public enum Type {
+        
+        /**
+         * CDK's refiner, with the results copied to this package's types.
+         */
+        CDK {
+            public AutomorphismEngine create() {
+                return new CDKAutomorphismEngine();
+            }
+        },
+        
+        /**
+         * The {@link AtomDiscretePartitionRefiner} of this package.
+         */
+        GROUP {
+            public AutomorphismEngine create() {
+                return new AtomDiscretePartitionRefiner();
+            }
+        };
+        
+        public abstract AutomorphismEngine create();
+    }
+    
+    /**
+     * Search for the automorphisms of the atom container, starting from the
+     * partition of the atoms by element.
+     * 
+     * @param atomContainer the atom container to search
+     * @return the automorphism group
+     */
+    public PermutationGroup getAutomorphismGroup(IAtomContainer atomContainer);
+    
+    /**
+     * @return the best labelling found by the last search
+     */
+    public Permutation getBest();
+    
+    /**
+     * @return the orbits of the group found by the last search
+     */
+    public Partition getAutomorphismPartition();
+
+}
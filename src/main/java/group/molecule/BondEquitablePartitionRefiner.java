@@ -1,12 +1,8 @@
 package group.molecule;
 
-import java.util.Set;
-
 import group.AbstractEquitablePartitionRefiner;
 import group.IEquitablePartitionRefiner;
 import group.Refinable;
-import group.invariant.IntegerInvariant;
-import group.invariant.Invariant;
 
 /**
  * Refiner for atom containers, which refines partitions of the bonds to
@@ -28,15 +24,24 @@ public class BondEquitablePartitionRefiner extends
         this.refinable = refinable;
     }
 
-    public Invariant neighboursInBlock(Set<Integer> block, int vertexIndex) {
-        int neighbours = 0;
-        int[] connectedBonds = refinable.getConnectedIndices(vertexIndex); 
-        for (int connected : connectedBonds) {
-            if (block.contains(connected)) {
-                neighbours++;
-            }
+    @Override
+    public int getCountWidth() {
+        return 1;
+    }
+
+    @Override
+    public void countNeighbours(int element, int[] counts, int width) {
+        for (int connected : refinable.getConnectedIndices(element)) {
+            counts[connected * width]++;
         }
-        return new IntegerInvariant(neighbours);
+    }
+    
+    /**
+     * Bonds with more neighbours in the target come first in the forward order.
+     */
+    @Override
+    protected boolean isLargestFirst() {
+        return true;
     }
     
     @Override
@@ -0,0 +1,72 @@
+package group.molecule;
+
+import java.util.TreeSet;
+
+import org.openscience.cdk.group.AtomContainerDiscretePartitionRefiner;
+import org.openscience.cdk.group.PartitionRefinement;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import group.Partition;
+import group.Permutation;
+import group.PermutationGroup;
+
+/**
+ * An {@link AutomorphismEngine} that uses CDK's atom container refiner, and 
+ * copies the group, labelling, and orbits it finds into the types of this 
+ * package.
+ * 
+ * @author maclean
+ *
+ */
+public class CDKAutomorphismEngine implements AutomorphismEngine {
+    
+    private AtomContainerDiscretePartitionRefiner refiner;
+    
+    @Override
+    public PermutationGroup getAutomorphismGroup(IAtomContainer atomContainer) {
+        refiner = PartitionRefinement.forAtoms().create();
+        return toGroup(refiner.getAutomorphismGroup(atomContainer));
+    }
+
+    @Override
+    public Permutation getBest() {
+        return new Permutation(refiner.getBest().getValues());
+    }
+
+    @Override
+    public Partition getAutomorphismPartition() {
+        org.openscience.cdk.group.Partition orbits = refiner.getAutomorphismPartition();
+        Partition partition = new Partition();
+        for (int cellIndex = 0; cellIndex < orbits.size(); cellIndex++) {
+            partition.addCell(new TreeSet<Integer>(orbits.getCell(cellIndex)));
+        }
+        return partition;
+    }
+    
+    /**
+     * Copy the transversals of a group, first changing the base to 0, 1, ..., 
+     * n-1 if the refiner left it elsewhere - the CDK group does not say what 
+     * its base is.
+     */
+    private static PermutationGroup toGroup(org.openscience.cdk.group.PermutationGroup autG) {
+        int size = autG.getSize();
+        for (int level = 0; level < size; level++) {
+            org.openscience.cdk.group.Permutation representative = autG.get(level, level);
+            if (representative == null || !representative.isIdentity()) {
+                autG.changeBase(new org.openscience.cdk.group.Permutation(size));
+                break;
+            }
+        }
+        int[][][] table = new int[size][size][];
+        for (int level = 0; level < size; level++) {
+            for (int point = 0; point < size; point++) {
+                org.openscience.cdk.group.Permutation representative = autG.get(level, point);
+                if (representative != null) {
+                    table[level][point] = representative.getValues();
+                }
+            }
+        }
+        return new PermutationGroup(new Permutation(size), table);
+    }
+
+}
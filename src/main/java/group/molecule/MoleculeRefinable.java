@@ -37,6 +37,11 @@ public class MoleculeRefinable implements Refinable {
      */
     private int[] indexMap;
     
+    /**
+     * The keys of each row of the connection table, made once for the refiners.
+     */
+    private int[][] connectedIndices;
+    
     private int maxBondOrder;
     
     public MoleculeRefinable(IAtomContainer atomContainer) {
@@ -71,14 +76,7 @@ public class MoleculeRefinable implements Refinable {
     
     @Override
     public int[] getConnectedIndices(int vertexIndex) {
-        Set<Integer> connectedSet = connectionTable.get(vertexIndex).keySet(); 
-        int[] connected = new int[connectedSet.size()];
-        int index = 0;
-        for (int element : connectedSet) {
-            connected[index] = element;
-            index++;
-        }
-        return connected;
+        return connectedIndices[vertexIndex];
     }
 
     @Override
@@ -97,6 +95,17 @@ public class MoleculeRefinable implements Refinable {
         } else {
             this.connectionTable = makeConnectionTable(atomContainer);
         }
+        connectedIndices = new int[connectionTable.size()][];
+        for (int vertexIndex = 0; vertexIndex < connectionTable.size(); vertexIndex++) {
+            Set<Integer> connectedSet = connectionTable.get(vertexIndex).keySet(); 
+            int[] connected = new int[connectedSet.size()];
+            int index = 0;
+            for (int element : connectedSet) {
+                connected[index] = element;
+                index++;
+            }
+            connectedIndices[vertexIndex] = connected;
+        }
     }
     
     /**
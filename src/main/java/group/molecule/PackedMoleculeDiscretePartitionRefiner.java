@@ -0,0 +1,103 @@
+package group.molecule;
+
+import java.util.Arrays;
+
+import group.AbstractDiscretePartitionRefiner;
+import group.Certificate;
+import group.Partition;
+import group.Permutation;
+import group.PermutationGroup;
+import group.graph.GraphEquitablePartitionRefiner;
+import model.PackedMolecule;
+
+/**
+ * A refiner for packed molecules; see: {@link AbstractDiscretePartitionRefiner}.
+ * The initial partition has one cell for each element code, in code order.
+ * 
+ * @author maclean
+ *
+ */
+public class PackedMoleculeDiscretePartitionRefiner extends AbstractDiscretePartitionRefiner {
+    
+    private PackedMoleculeRefinable refinable;
+    
+    private void setup(PackedMolecule molecule) {
+        refinable = new PackedMoleculeRefinable(molecule);
+        PermutationGroup group = new PermutationGroup(new Permutation(getVertexCount()));
+        setup(group, new GraphEquitablePartitionRefiner(refinable));
+    }
+    
+    /**
+     * Gets the automorphism group of the molecule, starting from the partition 
+     * of the atoms by element.
+     * 
+     * @param molecule the molecule to use
+     * @return the automorphism group of the molecule
+     */
+    public PermutationGroup getAutomorphismGroup(PackedMolecule molecule) {
+        setup(molecule);
+        refine(getElementPartition(molecule));
+        return getGroup();
+    }
+    
+    /**
+     * Gets a canonical key for the molecule - the certificate of the best 
+     * labelling from the element partition. Molecules with the same element 
+     * codes have equal keys if and only if they are isomorphic.
+     * 
+     * @param molecule the molecule to use
+     * @return the certificate of the canonical labelling
+     */
+    public Certificate getCanonicalKey(PackedMolecule molecule) {
+        getAutomorphismGroup(molecule);
+        return getBestCertificate();
+    }
+    
+    /**
+     * Get the element partition of a packed molecule; so for atoms C0,N1,C2,O3 
+     * with codes C=0, N=1, O=2 this is [{0, 2}, {1}, {3}].
+     * 
+     * @param molecule the molecule to get element codes from
+     * @return a partition of the atom indices by element
+     */
+    public Partition getElementPartition(PackedMolecule molecule) {
+        int atomCount = molecule.getAtomCount();
+        int codeCount = molecule.getSymbols().length;
+        Partition elementPartition = new Partition();
+        for (int code = 0; code < codeCount; code++) {
+            int[] cell = new int[atomCount];
+            int cellSize = 0;
+            for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+                if (molecule.getElement(atomIndex) == code) {
+                    cell[cellSize] = atomIndex;
+                    cellSize++;
+                }
+            }
+            if (cellSize > 0) {
+                elementPartition.addCell(Arrays.copyOf(cell, cellSize));
+            }
+        }
+        return elementPartition;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return refinable.getVertexCount();
+    }
+
+    @Override
+    public int getConnectivity(int i, int j) {
+        return refinable.getConnectivity(i, j);
+    }
+
+    @Override
+    public int getMaxConnectivity() {
+        return refinable.getMaxConnectivity();
+    }
+
+    @Override
+    public boolean colorsPreserved(Permutation p) {
+        return true;    // only called for color preserving refiners
+    }
+
+}
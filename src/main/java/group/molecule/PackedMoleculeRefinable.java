@@ -0,0 +1,61 @@
+package group.molecule;
+
+import group.Refinable;
+import model.PackedMolecule;
+
+/**
+ * A refinable view of a {@link PackedMolecule}, where the connectivity of two
+ * atoms is the order of the bond between them.
+ * 
+ * @author maclean
+ *
+ */
+public class PackedMoleculeRefinable implements Refinable {
+    
+    private final PackedMolecule molecule;
+    
+    /**
+     * A convenience lookup table for connections, taken from the neighbour masks.
+     */
+    private final int[][] connectionTable;
+    
+    private int maxBondOrder;
+    
+    public PackedMoleculeRefinable(PackedMolecule molecule) {
+        this.molecule = molecule;
+        int atomCount = molecule.getAtomCount();
+        this.connectionTable = new int[atomCount][];
+        for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+            long connected = molecule.getNeighbours(atomIndex);
+            int[] row = new int[Long.bitCount(connected)];
+            for (int i = 0; connected != 0; i++) {
+                int otherIndex = Long.numberOfTrailingZeros(connected);
+                connected &= connected - 1;
+                row[i] = otherIndex;
+                maxBondOrder = Math.max(maxBondOrder, molecule.getBondOrder(atomIndex, otherIndex));
+            }
+            connectionTable[atomIndex] = row;
+        }
+    }
+
+    @Override
+    public int[] getConnectedIndices(int vertexIndex) {
+        return connectionTable[vertexIndex];
+    }
+
+    @Override
+    public int getVertexCount() {
+        return molecule.getAtomCount();
+    }
+
+    @Override
+    public int getConnectivity(int vertexI, int vertexJ) {
+        return molecule.getBondOrder(vertexI, vertexJ);
+    }
+
+    @Override
+    public int getMaxConnectivity() {
+        return maxBondOrder;
+    }
+
+}
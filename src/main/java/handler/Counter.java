@@ -0,0 +1,21 @@
+package handler;
+
+/**
+ * A handler that keeps a count of the structures it has seen, which can be
+ * saved and restored when a run is checkpointed.
+ * 
+ * @author maclean
+ *
+ */
+public interface Counter {
+    
+    public int getCount();
+    
+    /**
+     * Count a structure that was not made.
+     */
+    public void count();
+    
+    public void setCount(int count);
+
+}
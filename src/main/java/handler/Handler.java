@@ -2,10 +2,17 @@ package handler;
 
 import java.io.Serializable;
 
-public interface Handler<T> extends Serializable {
+public interface Handler<T> extends Serializable {
     
     public void handle(T object);
     
     public void finish();
+    
+    /**
+     * Write out any structures held in a buffer. Called before a checkpoint 
+     * is written, so that the output is never behind the count saved.
+     */
+    public default void flush() {
+    }
 
 }
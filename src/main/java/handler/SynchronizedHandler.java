@@ -0,0 +1,54 @@
+package handler;
+
+/**
+ * Wraps a handler so that it can be shared between the worker threads of
+ * a parallel generator run. All calls are serialized on the wrapper.
+ *
+ * @author maclean
+ *
+ * @param <T> the type of object handled
+ */
+public class SynchronizedHandler<T> implements Handler<T> {
+
+    private static final long serialVersionUID = 2748516935807146731L;
+
+    private final Handler<T> delegate;
+
+    public SynchronizedHandler(Handler<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wrap the handler, unless it is already synchronized.
+     *
+     * @param handler the handler to wrap
+     * @return a thread-safe handler
+     */
+    public static <T> Handler<T> wrap(Handler<T> handler) {
+        if (handler instanceof SynchronizedHandler) {
+            return handler;
+        } else {
+            return new SynchronizedHandler<T>(handler);
+        }
+    }
+
+    @Override
+    public synchronized void handle(T object) {
+        delegate.handle(object);
+    }
+
+    @Override
+    public synchronized void finish() {
+        delegate.finish();
+    }
+
+    @Override
+    public synchronized void flush() {
+        delegate.flush();
+    }
+
+    public Handler<T> getDelegate() {
+        return delegate;
+    }
+
+}
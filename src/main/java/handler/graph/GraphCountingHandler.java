@@ -1,18 +1,27 @@
 package handler.graph;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import handler.Counter;
 import handler.Handler;
 import model.Graph;
 
-public class GraphCountingHandler implements Handler<Graph> {
+/**
+ * Counts graphs; safe to share between the threads of a parallel run.
+ * 
+ * @author maclean
+ *
+ */
+public class GraphCountingHandler implements Handler<Graph>, Counter {
     
-    private int count;
+    private final AtomicInteger count;
     
     private boolean isTiming;
     
     private long startTime;
     
     public GraphCountingHandler(boolean isTiming) {
-        count = 0;
+        count = new AtomicInteger();
         this.isTiming = isTiming; 
         if (isTiming) {
             startTime = System.currentTimeMillis();
@@ -21,20 +30,29 @@ public class GraphCountingHandler implements Handler<Graph> {
     
     @Override
     public void handle(Graph graph) {
-        count++;
+        count.incrementAndGet();
+    }
+    
+    @Override
+    public void count() {
+        count.incrementAndGet();
     }
     
     public int getCount() {
-        return count;
+        return count.get();
+    }
+    
+    public void setCount(int count) {
+        this.count.set(count);
     }
 
     @Override
     public void finish() {
         if (isTiming) {
             long time = System.currentTimeMillis() - startTime;
-            System.out.println(count + " structures in " + time + " ms");
+            System.out.println(count.get() + " structures in " + time + " ms");
         } else {
-            System.out.println(count + " structures");
+            System.out.println(count.get() + " structures");
         }
     }
     
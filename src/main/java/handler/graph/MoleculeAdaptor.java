@@ -70,4 +70,9 @@ public class MoleculeAdaptor implements Handler<Graph> {
         delegate.finish();
     }
 
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
 }
@@ -2,9 +2,10 @@ package handler.molecule;
 
 import org.openscience.cdk.interfaces.IAtomContainer;
 
+import handler.Counter;
 import handler.Handler;
 
-public class CountingHandler implements Handler<IAtomContainer> {
+public class CountingHandler implements Handler<IAtomContainer>, Counter {
     
     private int count;
     
@@ -25,9 +26,18 @@ public class CountingHandler implements Handler<IAtomContainer> {
         count++;
     }
     
+    @Override
+    public void count() {
+        count++;
+    }
+    
     public int getCount() {
         return count;
     }
+    
+    public void setCount(int count) {
+        this.count = count;
+    }
 
     @Override
     public void finish() {
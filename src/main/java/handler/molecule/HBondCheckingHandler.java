@@ -30,4 +30,9 @@ public class HBondCheckingHandler implements Handler<IAtomContainer> {
         delegate.finish();
     }
 
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
 }
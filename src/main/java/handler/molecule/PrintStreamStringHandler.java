@@ -77,6 +77,11 @@ public class PrintStreamStringHandler implements Handler<IAtomContainer> {
     public void finish() {
 	    printStream.close();
     }
+	
+	@Override
+	public void flush() {
+	    printStream.flush();
+	}
 
     private String getStringForm(IAtomContainer atomContainer) throws CDKException {
 	    if (format == DataFormat.SMILES) {
@@ -1,7 +1,10 @@
 package handler.molecule;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -19,12 +22,31 @@ public class SDFHandler implements Handler<IAtomContainer> {
 	
 	private SDFWriter writer;
 	
+	/**
+	 * The buffer the SDF writer writes to, kept to flush it.
+	 */
+	private BufferedWriter out;
+	
 	public SDFHandler() {
-        writer = new SDFWriter(System.out);
+	    this(new OutputStreamWriter(System.out));
     }
 	
+	private SDFHandler(Writer writer) {
+	    this.out = new BufferedWriter(writer);
+	    this.writer = new SDFWriter(out);
+	}
+	
 	public SDFHandler(String outfile) throws IOException {
-	    writer = new SDFWriter(new FileWriter(outfile));
+	    this(outfile, false);
+	}
+	
+	/**
+	 * @param outfile the file to write to
+	 * @param append if true, add to the end of the file (when resuming a run)
+	 * @throws IOException if the file cannot be opened
+	 */
+	public SDFHandler(String outfile, boolean append) throws IOException {
+	    this(new FileWriter(outfile, append));
 	}
 
 	@Override
@@ -37,6 +59,15 @@ public class SDFHandler implements Handler<IAtomContainer> {
         }
 	}
 	
+	@Override
+	public void flush() {
+	    try {
+	        out.flush();
+	    } catch (IOException ioe) {
+	        System.err.println("Could not flush output : " + ioe.getMessage());
+	    }
+	}
+	
 	@Override
     public void finish() {
 	    try {
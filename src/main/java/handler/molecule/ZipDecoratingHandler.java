@@ -31,6 +31,11 @@ public class ZipDecoratingHandler implements Handler<IAtomContainer> {
 		this.delegate.handle(atomContainer);
 	}
 
+	@Override
+	public void flush() {
+		this.delegate.flush();
+	}
+
 	@Override
 	public void finish() {
 		try {
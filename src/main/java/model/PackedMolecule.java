@@ -0,0 +1,200 @@
+package model;
+
+/**
+ * A compact molecule of at most 64 heavy atoms, for the inner loop of atom
+ * augmentation. Elements are stored as small integer codes, bond orders in a
+ * flat adjacency matrix, and the neighbours of each atom as a bit mask - so
+ * that the checks on each candidate need no object lookups.
+ *
+ * Atoms are only ever added at the end and removed from the end, so one
+ * instance can be augmented in place and restored as the search goes up and
+ * down the tree.
+ *
+ * @author maclean
+ *
+ */
+public class PackedMolecule {
+
+    /**
+     * The largest number of atoms that fit in the neighbour masks.
+     */
+    public static final int MAX_ATOM_COUNT = 64;
+
+    /**
+     * The element symbols for each code.
+     */
+    private final String[] symbols;
+
+    private final int capacity;
+
+    private final byte[] elements;
+
+    /**
+     * Bond orders, indexed by (i * capacity) + j, with 0 for no bond.
+     */
+    private final byte[] bondOrders;
+
+    private final long[] neighbours;
+
+    /**
+     * For each atom, the sum of the orders of its bonds.
+     */
+    private final int[] bondOrderSums;
+
+    private int atomCount;
+
+    private int bondCount;
+
+    /**
+     * @param symbols the element symbols, indexed by code
+     * @param capacity the largest number of atoms this will hold
+     */
+    public PackedMolecule(String[] symbols, int capacity) {
+        if (capacity < 1 || capacity > MAX_ATOM_COUNT) {
+            throw new IllegalArgumentException(
+                    "Capacity must be from 1 to " + MAX_ATOM_COUNT + " not " + capacity);
+        }
+        this.symbols = symbols;
+        this.capacity = capacity;
+        this.elements = new byte[capacity];
+        this.bondOrders = new byte[capacity * capacity];
+        this.neighbours = new long[capacity];
+        this.bondOrderSums = new int[capacity];
+    }
+
+    /**
+     * @param symbol an element symbol
+     * @return the code for the element, or -1 if it is not one of the symbols
+     */
+    public int getCode(String symbol) {
+        for (int code = 0; code < symbols.length; code++) {
+            if (symbols[code].equals(symbol)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    public void addAtom(int code) {
+        elements[atomCount] = (byte) code;
+        atomCount++;
+    }
+
+    public void addBond(int atomIndex, int otherAtomIndex, int order) {
+        bondOrders[(atomIndex * capacity) + otherAtomIndex] = (byte) order;
+        bondOrders[(otherAtomIndex * capacity) + atomIndex] = (byte) order;
+        neighbours[atomIndex] |= 1L << otherAtomIndex;
+        neighbours[otherAtomIndex] |= 1L << atomIndex;
+        bondOrderSums[atomIndex] += order;
+        bondOrderSums[otherAtomIndex] += order;
+        bondCount++;
+    }
+
+    /**
+     * Add an atom, bonded to the existing atoms with the given orders.
+     *
+     * @param code the element code of the new atom
+     * @param orders the bond order to each existing atom, or 0 for no bond
+     */
+    public void addAtom(int code, int[] orders) {
+        int last = atomCount;
+        addAtom(code);
+        for (int index = 0; index < orders.length; index++) {
+            if (orders[index] > 0) {
+                addBond(index, last, orders[index]);
+            }
+        }
+    }
+
+    /**
+     * Remove the last atom and all its bonds.
+     */
+    public void removeLastAtom() {
+        int last = atomCount - 1;
+        long lastBit = 1L << last;
+        long connected = neighbours[last];
+        while (connected != 0) {
+            int index = Long.numberOfTrailingZeros(connected);
+            connected &= connected - 1;
+            int order = bondOrders[(index * capacity) + last];
+            bondOrders[(index * capacity) + last] = 0;
+            bondOrders[(last * capacity) + index] = 0;
+            neighbours[index] &= ~lastBit;
+            bondOrderSums[index] -= order;
+            bondCount--;
+        }
+        neighbours[last] = 0;
+        bondOrderSums[last] = 0;
+        atomCount--;
+    }
+
+    public int getAtomCount() {
+        return atomCount;
+    }
+
+    public int getBondCount() {
+        return bondCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getElement(int atomIndex) {
+        return elements[atomIndex];
+    }
+
+    public String getSymbol(int atomIndex) {
+        return symbols[elements[atomIndex]];
+    }
+
+    public String[] getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * @return the order of the bond between the atoms, or 0 if they are not bonded
+     */
+    public int getBondOrder(int atomIndex, int otherAtomIndex) {
+        return bondOrders[(atomIndex * capacity) + otherAtomIndex];
+    }
+
+    /**
+     * @param atomIndex an atom
+     * @return a mask with bit i set if atom i is bonded to this atom
+     */
+    public long getNeighbours(int atomIndex) {
+        return neighbours[atomIndex];
+    }
+
+    public int getDegree(int atomIndex) {
+        return Long.bitCount(neighbours[atomIndex]);
+    }
+
+    public int getBondOrderSum(int atomIndex) {
+        return bondOrderSums[atomIndex];
+    }
+
+    public String toString() {
+        StringBuffer sb = new StringBuffer();
+        for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+            sb.append(getSymbol(atomIndex)).append(atomIndex);
+        }
+        sb.append(" ");
+        int edgeCounter = 0;
+        for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+            for (int otherIndex = atomIndex + 1; otherIndex < atomCount; otherIndex++) {
+                int order = getBondOrder(atomIndex, otherIndex);
+                if (order > 0) {
+                    sb.append(atomIndex + ":" + otherIndex + "(" + order + ")");
+                    if (edgeCounter < bondCount - 1) {
+                        sb.append(",");
+                    }
+                    edgeCounter++;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,276 @@
+package util.graph;
+
+import java.util.Arrays;
+
+/**
+ * The blocks (biconnected components) and cut vertices of a graph, kept up to
+ * date as vertices and edges are added - so a child in an augmentation can be
+ * made from its parent's tree, instead of searching the whole child again.
+ *
+ * Each component is a tree of blocks, rooted at one of its vertices. A block
+ * has a head, its vertex nearest the root, and every other vertex is in one
+ * block where it is not the head; so the blocks of a vertex are that one and
+ * the blocks it is the head of. An edge between two vertices of a component
+ * merges the blocks on the path between them into one; an edge between two
+ * components is a new block of its own. The blocks that are merged are joined
+ * in a union-find forest, so the block of a vertex is the root of its set.
+ *
+ * @author maclean
+ *
+ */
+public class BlockCutTree {
+
+    private static final int NONE = -1;
+
+    private int vertexCount;
+
+    /**
+     * For each vertex, the block it is in but not the head of, or NONE for
+     * the root of a component.
+     */
+    private int[] vertexBlock;
+
+    /**
+     * For each vertex, the number of blocks it is the head of.
+     */
+    private int[] headCount;
+
+    private int blockCount;
+
+    /**
+     * For each block, the block it was merged into, or itself.
+     */
+    private int[] blockParent;
+
+    private int[] blockHead;
+
+    /**
+     * For each block that has not been merged, its number of vertices.
+     */
+    private int[] blockSize;
+
+    /**
+     * Marks for the vertices on the path from one end of an edge to the root.
+     */
+    private int[] marks;
+
+    private int stamp;
+
+    public BlockCutTree() {
+        this(8);
+    }
+
+    /**
+     * @param capacity the number of vertices and blocks to make space for
+     */
+    public BlockCutTree(int capacity) {
+        this.vertexBlock = new int[capacity];
+        this.headCount = new int[capacity];
+        this.blockParent = new int[capacity];
+        this.blockHead = new int[capacity];
+        this.blockSize = new int[capacity];
+    }
+
+    /**
+     * Copy another tree, with space for one more vertex and a few more blocks.
+     *
+     * @param other the tree to copy
+     */
+    public BlockCutTree(BlockCutTree other) {
+        this.vertexCount = other.vertexCount;
+        this.blockCount = other.blockCount;
+        this.vertexBlock = Arrays.copyOf(other.vertexBlock, vertexCount + 1);
+        this.headCount = Arrays.copyOf(other.headCount, vertexCount + 1);
+        int blockCapacity = blockCount + vertexCount + 1;
+        this.blockParent = Arrays.copyOf(other.blockParent, blockCapacity);
+        this.blockHead = Arrays.copyOf(other.blockHead, blockCapacity);
+        this.blockSize = Arrays.copyOf(other.blockSize, blockCapacity);
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Add a vertex, and edges from it to some of the existing vertices.
+     *
+     * @param neighbours the vertices joined to the new one
+     * @return the index of the new vertex
+     */
+    public int addVertex(int... neighbours) {
+        if (vertexCount == vertexBlock.length) {
+            int capacity = (vertexCount * 2) + 1;
+            vertexBlock = Arrays.copyOf(vertexBlock, capacity);
+            headCount = Arrays.copyOf(headCount, capacity);
+        }
+        int vertex = vertexCount;
+        vertexBlock[vertex] = NONE;
+        headCount[vertex] = 0;
+        vertexCount++;
+        for (int neighbour : neighbours) {
+            addEdge(neighbour, vertex);
+        }
+        return vertex;
+    }
+
+    /**
+     * Add an edge between two vertices that are not already joined.
+     *
+     * @param x a vertex
+     * @param y another vertex
+     */
+    public void addEdge(int x, int y) {
+        mark(x);
+
+        // go up from y to the first vertex on the path from x to the root
+        int meeting = y;
+        int lastBlockOfY = NONE;
+        while (marks[meeting] != stamp) {
+            if (vertexBlock[meeting] == NONE) {
+                // y is in another component
+                reroot(y);
+                addBlock(x, y);
+                return;
+            }
+            lastBlockOfY = find(vertexBlock[meeting]);
+            meeting = blockHead[lastBlockOfY];
+        }
+
+        int lastBlockOfX = NONE;
+        for (int vertex = x; vertex != meeting; vertex = blockHead[lastBlockOfX]) {
+            lastBlockOfX = find(vertexBlock[vertex]);
+        }
+
+        int target;
+        if (lastBlockOfX == NONE) {
+            target = lastBlockOfY;
+        } else if (lastBlockOfY == NONE) {
+            target = lastBlockOfX;
+        } else if (lastBlockOfX == lastBlockOfY) {
+            target = lastBlockOfX;
+        } else {
+            // two blocks with the meeting vertex as head become one
+            target = lastBlockOfX;
+            join(lastBlockOfY, target);
+        }
+        mergePath(x, meeting, target);
+        mergePath(y, meeting, target);
+    }
+
+    /**
+     * Merge the blocks on the path from a vertex up to the meeting vertex into
+     * the target block.
+     */
+    private void mergePath(int start, int meeting, int target) {
+        int vertex = start;
+        while (vertex != meeting) {
+            int block = find(vertexBlock[vertex]);
+            if (block == target) {
+                return;
+            }
+            vertex = blockHead[block];
+            join(block, target);
+        }
+    }
+
+    /**
+     * Merge a block into another that shares its head - either as the next
+     * block up the tree, or as a block with the same head.
+     */
+    private void join(int block, int target) {
+        blockParent[block] = target;
+        blockSize[target] += blockSize[block] - 1;
+        headCount[blockHead[block]]--;
+    }
+
+    private void mark(int x) {
+        if (marks == null || marks.length < vertexCount) {
+            marks = new int[vertexBlock.length];
+            stamp = 0;
+        }
+        stamp++;
+        int vertex = x;
+        marks[vertex] = stamp;
+        while (vertexBlock[vertex] != NONE) {
+            vertex = blockHead[find(vertexBlock[vertex])];
+            marks[vertex] = stamp;
+        }
+    }
+
+    /**
+     * Make a vertex the root of its component, by making each block on its
+     * path to the old root the block of its old head instead.
+     */
+    private void reroot(int vertex) {
+        int block = (vertexBlock[vertex] == NONE)? NONE : find(vertexBlock[vertex]);
+        vertexBlock[vertex] = NONE;
+        if (block == NONE) {
+            return;
+        }
+        headCount[vertex]++;
+        int head = vertex;
+        while (block != NONE) {
+            int oldHead = blockHead[block];
+            int next = (vertexBlock[oldHead] == NONE)? NONE : find(vertexBlock[oldHead]);
+            blockHead[block] = head;
+            vertexBlock[oldHead] = block;
+            head = oldHead;
+            block = next;
+        }
+        headCount[head]--;
+    }
+
+    /**
+     * Add a block of one edge from a vertex to the root of another component.
+     */
+    private void addBlock(int head, int root) {
+        if (blockCount == blockParent.length) {
+            int capacity = (blockCount * 2) + 1;
+            blockParent = Arrays.copyOf(blockParent, capacity);
+            blockHead = Arrays.copyOf(blockHead, capacity);
+            blockSize = Arrays.copyOf(blockSize, capacity);
+        }
+        int block = blockCount;
+        blockParent[block] = block;
+        blockHead[block] = head;
+        blockSize[block] = 2;
+        blockCount++;
+        headCount[head]++;
+        vertexBlock[root] = block;
+    }
+
+    private int find(int block) {
+        while (blockParent[block] != block) {
+            blockParent[block] = blockParent[blockParent[block]];
+            block = blockParent[block];
+        }
+        return block;
+    }
+
+    /**
+     * @param vertex a vertex
+     * @return true if removing the vertex would disconnect its component
+     */
+    public boolean isCutVertex(int vertex) {
+        int blocks = headCount[vertex] + ((vertexBlock[vertex] == NONE)? 0 : 1);
+        return blocks > 1;
+    }
+
+    /**
+     * @param x a vertex
+     * @param y a vertex joined to x
+     * @return true if removing the edge between them would disconnect their component
+     */
+    public boolean isBridge(int x, int y) {
+        return isBlockEdge(x, y) || isBlockEdge(y, x);
+    }
+
+    private boolean isBlockEdge(int member, int head) {
+        if (vertexBlock[member] == NONE) {
+            return false;
+        }
+        int block = find(vertexBlock[member]);
+        return blockHead[block] == head && blockSize[block] == 2;
+    }
+
+}
@@ -23,6 +23,24 @@ public class CutCalculator {
         }
      }
     
+    /**
+     * Make the block-cut tree of a graph from scratch; see {@link BlockCutTree}
+     * for making it from the tree of a parent.
+     * 
+     * @param graph the graph
+     * @return the blocks and cut vertices of the graph
+     */
+    public static BlockCutTree getBlockCutTree(Graph graph) {
+        BlockCutTree tree = new BlockCutTree(graph.getVertexCount());
+        for (int index = 0; index < graph.getVertexCount(); index++) {
+            tree.addVertex();
+        }
+        for (Edge edge : graph.edges()) {
+            tree.addEdge(edge.getVertex(0), edge.getVertex(1));
+        }
+        return tree;
+    }
+    
     public static Set<Integer> getCutVertices(Graph graph) {
        if (isTree(graph)) {
            return getVerticesForTree(graph); 
@@ -1,105 +1,73 @@
 package util.graph;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 
 import augment.bond.IndexPair;
+import augment.chem.ValenceTable;
+import combinatorics.BoundedCompositionLister;
 import combinatorics.KSubsetLister;
-import combinatorics.MultiKSubsetLister;
 import model.Graph;
 
 public class SaturationCalculator {
     
-    /**
-     * TODO : this is a very crude method
-     * The max BOS is the maximum sum of bond orders of the bonds 
-     * attached to an atom of this element type. eg if maxBOS = 4, 
-     * then the atom can have any of {{4}, {3, 1}, {2, 2}, {2, 1, 1}, ...} 
-     */
-    private Map<String, Integer> maxBondOrderSumMap;
-    
-    /**
-     * TODO : this is a very crude method
-     * The max bond order is the maximum order of any bond attached.
-     */
-    private Map<String, Integer> maxBondOrderMap;
+    private final ValenceTable valenceTable;
     
     private List<String> elementSymbols;
     
     public SaturationCalculator(List<String> elementSymbols) {
         this.elementSymbols = elementSymbols;
-        
-        maxBondOrderSumMap = new HashMap<String, Integer>();
-        maxBondOrderSumMap.put("C", 4);
-        maxBondOrderSumMap.put("O", 2);
-        maxBondOrderSumMap.put("N", 3);
-        maxBondOrderSumMap.put("S", 6);
-        maxBondOrderSumMap.put("P", 5);
-        maxBondOrderSumMap.put("Br", 1);
-        maxBondOrderSumMap.put("F", 1);
-        maxBondOrderSumMap.put("I", 1);
-        maxBondOrderSumMap.put("Cl", 1);
-        
-        maxBondOrderMap = new HashMap<String, Integer>();
-        maxBondOrderMap.put("C", 3);
-        maxBondOrderMap.put("O", 2);
-        maxBondOrderMap.put("N", 3);
-        maxBondOrderMap.put("S", 2);
-        maxBondOrderMap.put("P", 2);
-        maxBondOrderMap.put("Br", 1);
-        maxBondOrderMap.put("F", 1);
-        maxBondOrderMap.put("I", 1);
-        maxBondOrderMap.put("Cl", 1);
+        this.valenceTable = new ValenceTable(elementSymbols);
     }
     
     public int getMaxBondOrderSum(int index) {
-        return maxBondOrderSumMap.get(elementSymbols.get(index));
+        return valenceTable.getMaxValence(elementSymbols.get(index));
     }
     
     public int getMaxBondOrder(int currentAtomIndex) {
-        return maxBondOrderMap.get(elementSymbols.get(currentAtomIndex));
+        return valenceTable.getMaxBondOrder(elementSymbols.get(currentAtomIndex));
     }
     
     public List<int[]> getBondOrderArrays(
             List<Integer> baseSet, int atomCount, int maxDegreeSumForCurrent, int maxDegree, int[] saturationCapacity) {
         // the possible extensions
         List<int[]> bondOrderArrays = new ArrayList<int[]>();
-        
+        forEachBondOrderArray(baseSet, atomCount, maxDegreeSumForCurrent, maxDegree, saturationCapacity, 
+                bondOrderArray -> bondOrderArrays.add(bondOrderArray.clone()));
+        return bondOrderArrays;
+    }
+    
+    /**
+     * Visit the arrays of bond orders from a new atom to the atoms in the base
+     * set, in the same order as {@link #getBondOrderArrays}, but only making 
+     * the arrays that neither oversaturate an atom nor exceed the maximum bond
+     * order or the maximum sum for the new atom. The array is reused for each
+     * visit, so must be copied to be kept.
+     * 
+     * @param baseSet the indices of the undersaturated atoms
+     * @param atomCount the number of atoms
+     * @param maxDegreeSumForCurrent the maximum bond order sum of the new atom
+     * @param maxDegree the maximum bond order of the new atom
+     * @param saturationCapacity the free valence of each atom
+     * @param consumer the visitor of the bond order arrays
+     */
+    public void forEachBondOrderArray(List<Integer> baseSet, int atomCount, int maxDegreeSumForCurrent, 
+            int maxDegree, int[] saturationCapacity, Consumer<int[]> consumer) {
         // no extension possible
         if (baseSet.size() == 0) {
-            return bondOrderArrays;
-        } else {
-            for (int k = 1; k <= maxDegreeSumForCurrent; k++) {
-                MultiKSubsetLister<Integer> lister = new MultiKSubsetLister<Integer>(k, baseSet);
-                for (List<Integer> multiset : lister) {
-                    int[] bondOrderArray = 
-                        toIntArray(multiset, atomCount, maxDegree, saturationCapacity);
-                    if (bondOrderArray != null) {
-                        bondOrderArrays.add(bondOrderArray);
-                    }
-                }
-            }
-            return bondOrderArrays;
+            return;
         }
-    }
-    
-    public int[] toIntArray(List<Integer> multiset, int size, int maxDegree, int[] satCap) {
-        int[] intArray = new int[size];
-        for (int atomIndex : multiset) {
-            if (atomIndex >= size) return null; // XXX
-            intArray[atomIndex]++;
-            // XXX avoid quadruple bonds and oversaturation 
-            if (intArray[atomIndex] > maxDegree || intArray[atomIndex] > satCap[atomIndex]) {
-                return null;   
+        int[] bounds = new int[atomCount];
+        for (int atomIndex : baseSet) {
+            if (atomIndex < atomCount) {
+                bounds[atomIndex] = Math.min(maxDegree, saturationCapacity[atomIndex]);
             }
         }
-//        System.out.println(multiset + "\t" + Arrays.toString(intArray) + "\t" + Arrays.toString(satCap));
-        return intArray;
+        new BoundedCompositionLister(bounds, maxDegreeSumForCurrent).forEach(consumer);
     }
     
     public int[] getSaturationCapacity(Graph parent) {
@@ -107,7 +75,7 @@ public class SaturationCalculator {
         int[] satCap = new int[vCount];
         for (int index = 0; index < vCount; index++) {
             String color = parent.getVertexColor(index);
-            int maxDegree = maxBondOrderSumMap.get(color);
+            int maxDegree = valenceTable.getMaxValence(color);
             int degree = 0;
             for (int neighbour : parent.getConnected(index)) {
                 degree += parent.getEdgeColor(index, neighbour);
@@ -165,10 +133,10 @@ public class SaturationCalculator {
     }
 
     public int getMaxBondOrder(String elementSymbol) {
-        return maxBondOrderMap.get(elementSymbol);
+        return valenceTable.getMaxBondOrder(elementSymbol);
     }
 
     public int getMaxBondOrderSum(String symbol) {
-        return maxBondOrderSumMap.get(symbol);
+        return valenceTable.getMaxValence(symbol);
     }
 }
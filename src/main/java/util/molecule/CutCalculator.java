@@ -9,6 +9,8 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 
+import util.graph.BlockCutTree;
+
 /**
  * Determines the cut vertices and edges of a molecule. 
  * 
@@ -25,6 +27,24 @@ public class CutCalculator {
         }
      }
     
+    /**
+     * Make the block-cut tree of a molecule from scratch; see {@link BlockCutTree}
+     * for making it from the tree of a parent.
+     * 
+     * @param graph the molecule
+     * @return the blocks and cut vertices of the molecule
+     */
+    public static BlockCutTree getBlockCutTree(IAtomContainer graph) {
+        BlockCutTree tree = new BlockCutTree(graph.getAtomCount());
+        for (int index = 0; index < graph.getAtomCount(); index++) {
+            tree.addVertex();
+        }
+        for (IBond bond : graph.bonds()) {
+            tree.addEdge(graph.getAtomNumber(bond.getAtom(0)), graph.getAtomNumber(bond.getAtom(1)));
+        }
+        return tree;
+    }
+    
     public static Set<Integer> getCutVertices(IAtomContainer graph) {
        if (isTree(graph)) {
            return getVerticesForTree(graph); 
@@ -0,0 +1,73 @@
+package util.molecule;
+
+import model.PackedMolecule;
+
+/**
+ * Finds the cut vertices of a connected {@link PackedMolecule} as a bit mask, 
+ * by the same depth-first search as {@link CutVertexCalculator}. 
+ * 
+ * @author maclean
+ *
+ */
+public class PackedCutVertexCalculator {
+    
+    private final PackedMolecule molecule;
+    
+    private final int[] disc;
+    
+    private final int[] low;
+    
+    private int time;
+    
+    private long cutVertices;
+    
+    private PackedCutVertexCalculator(PackedMolecule molecule) {
+        this.molecule = molecule;
+        this.disc = new int[molecule.getAtomCount()];
+        this.low = new int[molecule.getAtomCount()];
+    }
+    
+    /**
+     * @param molecule a connected molecule
+     * @return a mask with bit i set if atom i is a cut vertex
+     */
+    public static long getCutVertices(PackedMolecule molecule) {
+        int atomCount = molecule.getAtomCount();
+        if (molecule.getBondCount() == atomCount - 1) {
+            // for a tree, every atom that is not a leaf
+            long cut = 0;
+            for (int atomIndex = 0; atomIndex < atomCount; atomIndex++) {
+                if (molecule.getDegree(atomIndex) > 1) {
+                    cut |= 1L << atomIndex;
+                }
+            }
+            return cut;
+        }
+        PackedCutVertexCalculator calculator = new PackedCutVertexCalculator(molecule);
+        calculator.visit(0, -1);
+        return calculator.cutVertices;
+    }
+    
+    private void visit(int u, int parent) {
+        int children = 0;
+        time++;
+        disc[u] = time;
+        low[u] = time;
+        long connected = molecule.getNeighbours(u);
+        while (connected != 0) {
+            int v = Long.numberOfTrailingZeros(connected);
+            connected &= connected - 1;
+            if (disc[v] == 0) {
+                children++;
+                visit(v, u);
+                low[u] = Math.min(low[u], low[v]);
+                if ((parent == -1 && children > 1) || (parent != -1 && low[v] >= disc[u])) {
+                    cutVertices |= 1L << u;
+                }
+            } else if (v != parent) {
+                low[u] = Math.min(low[u], disc[v]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package augment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.signature.MoleculeSignature;
+
+import augment.atom.AtomGenerator;
+import augment.bond.BondGenerator;
+import augment.vertex.VertexGenerator;
+import handler.graph.GraphCountingHandler;
+import handler.molecule.CountingHandler;
+import handler.molecule.DuplicateHandler;
+import model.Graph;
+
+public class TestAugmentationSpliterator {
+
+    private Set<String> signatures(List<IAtomContainer> atomContainers) {
+        Set<String> signatures = new HashSet<String>();
+        for (IAtomContainer atomContainer : atomContainers) {
+            signatures.add(new MoleculeSignature(atomContainer).toCanonicalString());
+        }
+        return signatures;
+    }
+
+    @Test
+    public void atomStreamTest() {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator("C6H6", handler);
+        gen.run();
+        List<IAtomContainer> streamed = gen.stream().collect(Collectors.toList());
+        assertEquals(217, streamed.size());
+        assertEquals(handler.getDupMap().keySet(), signatures(streamed));
+    }
+
+    @Test
+    public void atomParallelStreamTest() {
+        AtomGenerator gen = new AtomGenerator("C6H6", new CountingHandler(false));
+        List<IAtomContainer> streamed = gen.stream().parallel().collect(Collectors.toList());
+        assertEquals(217, streamed.size());
+        assertEquals(217, signatures(streamed).size());
+    }
+
+    @Test
+    public void bondStreamTest() {
+        CountingHandler handler = new CountingHandler(false);
+        BondGenerator gen = new BondGenerator("C4H6O", handler);
+        gen.run();
+        assertEquals(handler.getCount(), gen.stream().count());
+    }
+
+    @Test
+    public void vertexStreamTest() {
+        GraphCountingHandler handler = new GraphCountingHandler(false);
+        VertexGenerator gen = new VertexGenerator("C6", handler);
+        gen.run();
+        assertEquals(handler.getCount(), gen.stream().parallel().count());
+    }
+
+    @Test
+    public void limitTest() {
+        AtomGenerator gen = new AtomGenerator("C8H18", new CountingHandler(false));
+        assertEquals(5, gen.stream().limit(5).count());
+    }
+
+    @Test
+    public void iteratorTest() {
+        VertexGenerator gen = new VertexGenerator("C4", new GraphCountingHandler(false));
+        Iterator<Graph> iterator = gen.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        assertEquals(gen.stream().count(), count);
+    }
+
+}
@@ -0,0 +1,350 @@
+package augment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import augment.atom.AtomGenerator;
+import augment.bond.BondGenerator;
+import augment.vertex.VertexGenerator;
+import handler.graph.GraphCountingHandler;
+import handler.molecule.CountingHandler;
+import handler.molecule.DataFormat;
+import handler.molecule.PrintStreamStringHandler;
+import io.AtomContainerPrinter;
+import model.Graph;
+
+public class TestCheckpoint {
+
+    /**
+     * Stands in for a crash part way through a run.
+     */
+    private class CrashingHandler extends CountingHandler {
+
+        private int crashAt;
+
+        public CrashingHandler(int crashAt) {
+            super(false);
+            this.crashAt = crashAt;
+        }
+
+        @Override
+        public void handle(IAtomContainer atomContainer) {
+            super.handle(atomContainer);
+            if (getCount() == crashAt) {
+                throw new IllegalStateException("crash");
+            }
+        }
+    }
+
+    private class CrashingGraphHandler extends GraphCountingHandler {
+
+        private int crashAt;
+
+        public CrashingGraphHandler(int crashAt) {
+            super(false);
+            this.crashAt = crashAt;
+        }
+
+        /**
+         * The count when the output was last flushed.
+         */
+        private int flushedCount;
+
+        @Override
+        public void handle(Graph graph) {
+            super.handle(graph);
+            if (getCount() == crashAt) {
+                throw new IllegalStateException("crash");
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushedCount = getCount();
+        }
+    }
+
+    /**
+     * Writes the structures to a file, and crashes part way through.
+     */
+    private class CrashingPrintHandler extends PrintStreamStringHandler {
+
+        private int count;
+
+        private int crashAt;
+
+        public CrashingPrintHandler(PrintStream printStream, int crashAt) {
+            super(printStream, DataFormat.ACP);
+            this.crashAt = crashAt;
+        }
+
+        @Override
+        public void handle(IAtomContainer atomContainer) {
+            super.handle(atomContainer);
+            count++;
+            if (count == crashAt) {
+                throw new IllegalStateException("crash");
+            }
+        }
+    }
+
+    private File tempFile() throws IOException {
+        File file = File.createTempFile("amg", ".checkpoint");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void writeReadTest() throws IOException {
+        String filepath = tempFile().getPath();
+        new Checkpoint("C4H8", 12, new int[] { 0, 0, 3, 1 }, 96).write(filepath);
+        Checkpoint checkpoint = Checkpoint.read(filepath);
+        assertEquals("C4H8", checkpoint.getFormula());
+        assertEquals(12, checkpoint.getCount());
+        assertArrayEquals(new int[] { 0, 0, 3, 1 }, checkpoint.getPath());
+        assertEquals(96, checkpoint.getOutputLength());
+    }
+
+    @Test
+    public void resumeAtomGeneratorTest() throws IOException {
+        String formula = "C6H6O";
+        CountingHandler full = new CountingHandler(false);
+        new AtomGenerator(formula, full).run();
+
+        String filepath = tempFile().getPath();
+        CrashingHandler crashing = new CrashingHandler(full.getCount() - 100);
+        AtomGenerator crashingGen = new AtomGenerator(formula, crashing);
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            crashingGen.run();
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+
+        CountingHandler resumed = new CountingHandler(false);
+        AtomGenerator resumedGen = new AtomGenerator(formula, resumed);
+        Checkpointer resumer = new Checkpointer(formula, filepath, resumed);
+        resumer.resumeFrom(Checkpoint.read(filepath));
+        resumedGen.setCheckpointer(resumer);
+        resumedGen.run();
+        assertEquals(full.getCount(), resumed.getCount());
+    }
+
+    /**
+     * In the bond search a complete structure can have children, so the path
+     * to the checkpoint may pass through structures already handled.
+     */
+    @Test
+    public void resumeBondGeneratorTest() throws IOException {
+        String formula = "C6H6O";
+        CountingHandler full = new CountingHandler(false);
+        new BondGenerator(formula, full).run();
+
+        String filepath = tempFile().getPath();
+        CrashingHandler crashing = new CrashingHandler(full.getCount() - 100);
+        BondGenerator crashingGen = new BondGenerator(formula, crashing);
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            crashingGen.run();
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+
+        CountingHandler resumed = new CountingHandler(false);
+        BondGenerator resumedGen = new BondGenerator(formula, resumed);
+        Checkpointer resumer = new Checkpointer(formula, filepath, resumed);
+        resumer.resumeFrom(Checkpoint.read(filepath));
+        resumedGen.setCheckpointer(resumer);
+        resumedGen.run();
+        assertEquals(full.getCount(), resumed.getCount());
+    }
+
+    @Test
+    public void resumeVertexGeneratorTest() throws IOException {
+        String formula = "CCCCCCO";
+        GraphCountingHandler full = new GraphCountingHandler(false);
+        new VertexGenerator(formula, full).run();
+
+        String filepath = tempFile().getPath();
+        CrashingGraphHandler crashing = new CrashingGraphHandler(full.getCount() - 100);
+        VertexGenerator crashingGen = new VertexGenerator(formula, crashing);
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            crashingGen.run();
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+
+        GraphCountingHandler resumed = new GraphCountingHandler(false);
+        VertexGenerator resumedGen = new VertexGenerator(formula, resumed);
+        Checkpointer resumer = new Checkpointer(formula, filepath, resumed);
+        resumer.resumeFrom(Checkpoint.read(filepath));
+        resumedGen.setCheckpointer(resumer);
+        resumedGen.run();
+        assertEquals(full.getCount(), resumed.getCount());
+    }
+
+    private void run(AtomGenerator generator, String... seeds) {
+        for (String seed : seeds) {
+            generator.run(AtomContainerPrinter.fromString(seed, SilentChemObjectBuilder.getInstance()));
+        }
+    }
+
+    private void run(BondGenerator generator, String... seeds) {
+        for (String seed : seeds) {
+            generator.run(AtomContainerPrinter.fromString(seed, SilentChemObjectBuilder.getInstance()));
+        }
+    }
+
+    /**
+     * The seeds searched before the checkpoint are still split on resume, so
+     * the shard keeps the same nodes after them as in the first run.
+     */
+    @Test
+    public void resumeShardedAtomGeneratorTest() throws IOException {
+        String formula = "C6H8O";
+        String[] seeds = { "C0O1 0:1(1)", "C0C1 0:1(1)" };
+        CountingHandler full = new CountingHandler(false);
+        AtomGenerator fullGen = new AtomGenerator(formula, full);
+        fullGen.setShard(new Shard(1, 2));
+        run(fullGen, seeds);
+
+        String filepath = tempFile().getPath();
+        CrashingHandler crashing = new CrashingHandler(full.getCount() - 10);
+        AtomGenerator crashingGen = new AtomGenerator(formula, crashing);
+        crashingGen.setShard(new Shard(1, 2));
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            run(crashingGen, seeds);
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+        Checkpoint checkpoint = Checkpoint.read(filepath);
+        assertEquals(1, checkpoint.getPath()[0]);
+
+        CountingHandler resumed = new CountingHandler(false);
+        AtomGenerator resumedGen = new AtomGenerator(formula, resumed);
+        resumedGen.setShard(new Shard(1, 2));
+        Checkpointer resumer = new Checkpointer(formula, filepath, resumed);
+        resumer.resumeFrom(checkpoint);
+        resumedGen.setCheckpointer(resumer);
+        run(resumedGen, seeds);
+        assertEquals(full.getCount(), resumed.getCount());
+    }
+
+    @Test
+    public void resumeShardedBondGeneratorTest() throws IOException {
+        String formula = "C5H6O";
+        String[] seeds = { "C0C1 0:1(1)", "C0C1 0:1(2)", "C0C1 0:1(3)" };
+        CountingHandler full = new CountingHandler(false);
+        BondGenerator fullGen = new BondGenerator(formula, full);
+        fullGen.setShard(new Shard(1, 4));
+        run(fullGen, seeds);
+
+        String filepath = tempFile().getPath();
+        CrashingHandler crashing = new CrashingHandler(full.getCount() - 10);
+        BondGenerator crashingGen = new BondGenerator(formula, crashing);
+        crashingGen.setShard(new Shard(1, 4));
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            run(crashingGen, seeds);
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+        Checkpoint checkpoint = Checkpoint.read(filepath);
+        assertEquals(1, checkpoint.getPath()[0]);
+
+        CountingHandler resumed = new CountingHandler(false);
+        BondGenerator resumedGen = new BondGenerator(formula, resumed);
+        resumedGen.setShard(new Shard(1, 4));
+        Checkpointer resumer = new Checkpointer(formula, filepath, resumed);
+        resumer.resumeFrom(checkpoint);
+        resumedGen.setCheckpointer(resumer);
+        run(resumedGen, seeds);
+        assertEquals(full.getCount(), resumed.getCount());
+    }
+
+    @Test
+    public void flushBeforeWriteTest() throws IOException {
+        String formula = "CCCCCCO";
+        String filepath = tempFile().getPath();
+        CrashingGraphHandler crashing = new CrashingGraphHandler(1500);
+        VertexGenerator crashingGen = new VertexGenerator(formula, crashing);
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, crashing, crashing);
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            crashingGen.run();
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+        // everything counted in the checkpoint had been written out
+        assertEquals(crashing.flushedCount, Checkpoint.read(filepath).getCount());
+    }
+
+    /**
+     * The structures written between the last checkpoint and the crash are
+     * cut off on resume, so the output is the same as a run with no crash.
+     */
+    @Test
+    public void resumedOutputTest() throws IOException {
+        String formula = "C6H6O";
+        File expected = tempFile();
+        PrintStreamStringHandler full = new PrintStreamStringHandler(
+                new PrintStream(new FileOutputStream(expected)), DataFormat.ACP);
+        new AtomGenerator(formula, full).run();
+        full.finish();
+        int total = Files.readAllLines(expected.toPath()).size();
+
+        File output = tempFile();
+        String filepath = tempFile().getPath();
+        CrashingPrintHandler crashing = new CrashingPrintHandler(
+                new PrintStream(new FileOutputStream(output)), total - 100);
+        AtomGenerator crashingGen = new AtomGenerator(formula, crashing);
+        Checkpointer checkpointer = new Checkpointer(formula, filepath, null, crashing);
+        checkpointer.setOutputFilepath(output.getPath());
+        checkpointer.setInterval(0);
+        crashingGen.setCheckpointer(checkpointer);
+        try {
+            crashingGen.run();
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+        crashing.finish();
+        Checkpoint checkpoint = Checkpoint.read(filepath);
+        assertTrue(output.length() > checkpoint.getOutputLength());
+
+        checkpoint.truncateOutput(output.getPath());
+        PrintStreamStringHandler resumed = new PrintStreamStringHandler(
+                new PrintStream(new FileOutputStream(output, true)), DataFormat.ACP);
+        AtomGenerator resumedGen = new AtomGenerator(formula, resumed);
+        Checkpointer resumer = new Checkpointer(formula, filepath, null, resumed);
+        resumer.resumeFrom(checkpoint);
+        resumedGen.setCheckpointer(resumer);
+        resumedGen.run();
+        resumed.finish();
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(output.toPath()));
+    }
+
+}
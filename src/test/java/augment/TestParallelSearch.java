@@ -0,0 +1,66 @@
+package augment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestParallelSearch {
+
+    /**
+     * A complete ternary tree, where each node is its depth; counts the leaves.
+     */
+    private class TernaryTree implements ParallelSearch.Expander<Integer> {
+
+        private final int depth;
+
+        private final AtomicInteger leafCount = new AtomicInteger();
+
+        public TernaryTree(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        public List<Integer> expand(Integer node) {
+            if (node == depth) {
+                leafCount.incrementAndGet();
+                return Collections.emptyList();
+            }
+            List<Integer> children = new ArrayList<Integer>();
+            for (int index = 0; index < 3; index++) {
+                children.add(node + 1);
+            }
+            return children;
+        }
+
+        @Override
+        public int getDepthLeft(Integer node) {
+            return depth - node;
+        }
+    }
+
+    @Test
+    public void leafCountTest() {
+        TernaryTree tree = new TernaryTree(8);
+        ParallelSearch<Integer> search = new ParallelSearch<Integer>(tree, 4);
+        search.searchAll(Arrays.asList(0, 0));
+        search.shutdown();
+        assertEquals(2 * 6561, tree.leafCount.get());
+    }
+
+    @Test
+    public void reuseTest() {
+        TernaryTree tree = new TernaryTree(4);
+        ParallelSearch<Integer> search = new ParallelSearch<Integer>(tree, 2);
+        search.searchAll(Collections.singletonList(0));
+        search.searchAll(Collections.singletonList(2));
+        search.shutdown();
+        assertEquals(81 + 9, tree.leafCount.get());
+    }
+
+}
@@ -0,0 +1,125 @@
+package augment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import augment.atom.AtomGenerator;
+import augment.bond.BondGenerator;
+import augment.vertex.VertexGenerator;
+import handler.graph.MoleculeAdaptor;
+import handler.molecule.DuplicateHandler;
+import handler.molecule.HBondCheckingHandler;
+import io.AtomContainerPrinter;
+
+public class TestShard {
+
+    private Set<String> atom(String formula, Shard shard) {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator(formula, handler);
+        gen.setShard(shard);
+        gen.run();
+        return handler.getDupMap().keySet();
+    }
+
+    private Set<String> bond(String formula, Shard shard) {
+        DuplicateHandler handler = new DuplicateHandler();
+        BondGenerator gen = new BondGenerator(formula, handler);
+        gen.setShard(shard);
+        gen.run();
+        return handler.getDupMap().keySet();
+    }
+
+    private Set<String> bond(String formula, Shard shard, String... seeds) {
+        DuplicateHandler handler = new DuplicateHandler();
+        BondGenerator gen = new BondGenerator(formula, handler);
+        gen.setShard(shard);
+        for (String seed : seeds) {
+            gen.run(AtomContainerPrinter.fromString(seed, SilentChemObjectBuilder.getInstance()));
+        }
+        return handler.getDupMap().keySet();
+    }
+
+    private Set<String> vertex(String formula, Shard shard) {
+        DuplicateHandler handler = new DuplicateHandler();
+        VertexGenerator gen = new VertexGenerator(formula,
+                new MoleculeAdaptor(new HBondCheckingHandler(formula, handler)));
+        gen.setShard(shard);
+        gen.run();
+        return handler.getDupMap().keySet();
+    }
+
+    private void assertPartition(Set<String> all, Set<String>... parts) {
+        Set<String> union = new HashSet<String>();
+        int total = 0;
+        for (Set<String> part : parts) {
+            union.addAll(part);
+            total += part.size();
+        }
+        assertEquals(all, union);
+        assertEquals(all.size(), total);
+    }
+
+    @Test
+    public void fromStringTest() {
+        Shard shard = Shard.fromString("2/5");
+        assertEquals(2, shard.getResidue());
+        assertEquals(5, shard.getModulus());
+        assertFalse(shard.next());
+        assertFalse(shard.next());
+        assertTrue(shard.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badResidueTest() {
+        Shard.fromString("5/5");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void atomShardsTest() {
+        String formula = "C6H6";
+        assertPartition(atom(formula, null),
+                atom(formula, new Shard(0, 3)),
+                atom(formula, new Shard(1, 3)),
+                atom(formula, new Shard(2, 3)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bondShardsTest() {
+        String formula = "C4H6O";
+        assertPartition(bond(formula, null),
+                bond(formula, new Shard(0, 2)),
+                bond(formula, new Shard(1, 2)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void vertexShardsTest() {
+        String formula = "C5H8";
+        assertPartition(vertex(formula, null),
+                vertex(formula, new Shard(0, 2)),
+                vertex(formula, new Shard(1, 2)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void completeSeedsTest() {
+        String formula = "C3H6";
+        String[] seeds = { "C0C1C2 0:1(2),1:2(1)", "C0C1C2 0:1(1),1:2(1),0:2(1)" };
+        Set<String> all = bond(formula, null, seeds);
+        assertEquals(2, all.size());
+        assertPartition(all,
+                bond(formula, new Shard(0, 2), seeds),
+                bond(formula, new Shard(1, 2), seeds));
+        assertTrue(bond(formula, new Shard(1, 2), seeds).isEmpty());
+    }
+
+}
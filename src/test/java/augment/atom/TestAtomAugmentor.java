@@ -1,5 +1,8 @@
 package augment.atom;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -92,5 +95,32 @@ public class TestAtomAugmentor {
     public void testFoursFromCCCTriangle() {
         findDups(gen("CCCC", "C0C1C2 0:1(1),0:2(1),1:2(1)"));
     }
-
+    
+    @Test
+    public void testReusedAutomorphismGroup() {
+        AtomAugmentor augmentor = new AtomAugmentor("CCCCC");
+        AtomCanonicalChecker checker = new AtomCanonicalChecker();
+        int reusedCount = 0;
+        for (AtomAugmentation child : gen("CCCCC", "C0C1C2 0:1(1),0:2(1)")) {
+            if (!checker.isCanonical(child)) {
+                continue;
+            }
+            // the group is only kept when the invariants left a tie
+            if (child.getAutomorphismGroup() != null) {
+                reusedCount++;
+            }
+            AtomAugmentation fresh = new AtomAugmentation(child.getAugmentedObject(), child.getConstraints());
+            assertEquals(toStrings(augmentor.augment(fresh)), toStrings(augmentor.augment(child)));
+        }
+        assertTrue(reusedCount > 0);
+    }
+    
+    private List<String> toStrings(List<AtomAugmentation> augmentations) {
+        List<String> strings = new ArrayList<String>();
+        for (AtomAugmentation augmentation : augmentations) {
+            strings.add(AtomContainerPrinter.toString(augmentation.getAugmentedObject()));
+        }
+        return strings;
+    }
+    
 }
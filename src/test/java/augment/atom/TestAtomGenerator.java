@@ -1,6 +1,7 @@
 package augment.atom;
 
 import static io.AtomContainerPrinter.fromString;
+import static org.junit.Assert.assertEquals;
 
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.silent.SilentChemObjectBuilder;
 
 import handler.Handler;
+import handler.SynchronizedHandler;
 import handler.molecule.CountingHandler;
 import handler.molecule.DuplicateHandler;
 import handler.molecule.PrintStreamHandler;
@@ -110,4 +112,54 @@ public class TestAtomGenerator {
         printDups(handler);
     }
 
+    private int countOnly(String elementFormula, CountingHandler handler, boolean inPlace, boolean packed) {
+        AtomGenerator gen = new AtomGenerator(elementFormula, handler);
+        gen.setCountingOnly(true);
+        gen.setInPlace(inPlace);
+        gen.setPacked(packed);
+        gen.run();
+        return handler.getCount();
+    }
+    
+    @Test
+    public void testCountingOnly() {
+        CountingHandler made = new CountingHandler(false);
+        new AtomGenerator("C6H6O", made).run();
+        assertEquals(made.getCount(), countOnly("C6H6O", new CountingHandler(false), false, false));
+        assertEquals(made.getCount(), countOnly("C6H6O", new CountingHandler(false), true, false));
+        assertEquals(made.getCount(), countOnly("C6H6O", new CountingHandler(false), false, true));
+    }
+    
+    @Test
+    public void testCountingOnlyThroughWrappers() {
+        CountingHandler made = new CountingHandler(false);
+        new AtomGenerator("C4H6O", made).run();
+        CountingHandler wrapped = new CountingHandler(false);
+        AtomGenerator gen = new AtomGenerator("C4H6O", SynchronizedHandler.wrap(wrapped));
+        gen.setCountingOnly(true);
+        gen.run();
+        assertEquals(made.getCount(), wrapped.getCount());
+    }
+    
+    @Test
+    public void testCountingOnlyNeverHandles() {
+        int[] handled = new int[1];
+        CountingHandler handler = new CountingHandler(false) {
+            @Override
+            public void handle(IAtomContainer atomContainer) {
+                super.handle(atomContainer);
+                handled[0]++;
+            }
+        };
+        CountingHandler made = new CountingHandler(false);
+        new AtomGenerator("C4H6O", made).run();
+        assertEquals(made.getCount(), countOnly("C4H6O", handler, true, false));
+        assertEquals(0, handled[0]);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testCountingOnlyNeedsCounter() {
+        new AtomGenerator("C4H6O", new DuplicateHandler()).setCountingOnly(true);
+    }
+
 }
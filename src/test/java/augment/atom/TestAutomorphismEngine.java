@@ -0,0 +1,69 @@
+package augment.atom;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import group.molecule.AutomorphismEngine;
+import handler.molecule.DuplicateHandler;
+import io.AtomContainerPrinter;
+
+public class TestAutomorphismEngine {
+
+    private static final String[] MOLECULES = {
+        "C0C1C2C3C4C5 0:1(2),1:2(1),2:3(2),3:4(1),4:5(2),0:5(1)",
+        "C0C1C2C3C4C5O6 0:1(1),1:2(1),2:3(1),3:4(1),4:5(1),0:5(1),0:6(1)",
+        "C0C1C2C3N4O5 0:1(1),1:2(1),2:3(1),0:3(1),3:4(1),4:5(2)",
+        "C0C1C2C3C4C5C6C7 0:1(1),1:2(1),2:3(1),0:3(1),4:5(1),5:6(1),6:7(1),4:7(1),0:4(1),1:5(1),2:6(1),3:7(1)",
+        "C0C1C2C3C4C5C6 0:1(1),0:2(1),0:3(1),3:4(1),3:5(1),5:6(3)",
+        "C0C1C2 0:1(1),0:2(1)",
+    };
+
+    private DuplicateHandler generate(String elementFormula, AutomorphismEngine.Type engineType) {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator(elementFormula, handler);
+        gen.setEngineType(engineType);
+        gen.run();
+        return handler;
+    }
+
+    private void compare(String elementFormula, int expected) {
+        DuplicateHandler cdk = generate(elementFormula, AutomorphismEngine.Type.CDK);
+        DuplicateHandler group = generate(elementFormula, AutomorphismEngine.Type.GROUP);
+        assertEquals(expected, group.getDupMap().size());
+        assertEquals(cdk.getDupMap().keySet(), group.getDupMap().keySet());
+    }
+
+    @Test
+    public void sameGroupsTest() {
+        for (String moleculeString : MOLECULES) {
+            IAtomContainer molecule = AtomContainerPrinter.fromString(
+                    moleculeString, SilentChemObjectBuilder.getInstance());
+            AutomorphismEngine cdk = AutomorphismEngine.Type.CDK.create();
+            AutomorphismEngine group = AutomorphismEngine.Type.GROUP.create();
+            assertEquals(moleculeString, 
+                    cdk.getAutomorphismGroup(molecule).order(), 
+                    group.getAutomorphismGroup(molecule).order());
+            assertEquals(moleculeString, 
+                    cdk.getAutomorphismPartition(), group.getAutomorphismPartition());
+        }
+    }
+
+    @Test
+    public void c6H6Test() {
+        compare("C6H6", 217);
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O", 55);
+    }
+
+    @Test
+    public void c5H10OTest() {
+        compare("C5H10O", 74);
+    }
+
+}
@@ -0,0 +1,64 @@
+package augment.atom;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import handler.molecule.DuplicateHandler;
+import io.AtomContainerPrinter;
+
+public class TestInPlaceAugmentation {
+
+    private DuplicateHandler generate(String elementFormula, boolean inPlace) {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator(elementFormula, handler);
+        gen.setInPlace(inPlace);
+        gen.run();
+        return handler;
+    }
+
+    private void compare(String elementFormula, int expected) {
+        DuplicateHandler cloning = generate(elementFormula, false);
+        DuplicateHandler inPlace = generate(elementFormula, true);
+        assertEquals(expected, inPlace.getDupMap().size());
+        assertEquals(cloning.getDupMap().keySet(), inPlace.getDupMap().keySet());
+    }
+
+    @Test
+    public void c6H6Test() {
+        compare("C6H6", 217);
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O", 55);
+    }
+
+    @Test
+    public void c5H10OTest() {
+        compare("C5H10O", 74);
+    }
+
+    @Test
+    public void pushPopTest() {
+        IAtomContainer initial = 
+                AtomContainerPrinter.fromString("C0C1C2 0:1(2),1:2(1)", SilentChemObjectBuilder.getInstance());
+        WorkingMolecule working = new WorkingMolecule(initial);
+        String before = AtomContainerPrinter.toString(working.getAtomContainer());
+        Integer hCountBefore = working.getAtomContainer().getAtom(0).getImplicitHydrogenCount();
+
+        working.push(new AtomExtension("O", new int[] { 1, 0, 1 }));
+        assertEquals(4, working.getAtomContainer().getAtomCount());
+        assertEquals(4, working.getAtomContainer().getBondCount());
+        working.push(new AtomExtension("C", new int[] { 0, 1, 0, 0 }));
+        working.pop();
+        working.pop();
+
+        assertEquals(before, AtomContainerPrinter.toString(working.getAtomContainer()));
+        assertEquals(hCountBefore, working.getAtomContainer().getAtom(0).getImplicitHydrogenCount());
+        assertEquals(3, initial.getAtomCount());
+    }
+
+}
@@ -0,0 +1,101 @@
+package augment.atom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import handler.molecule.CountingHandler;
+import handler.molecule.DuplicateHandler;
+import io.AtomContainerPrinter;
+import model.PackedMolecule;
+import util.molecule.PackedCutVertexCalculator;
+
+public class TestPackedAtomGenerator {
+
+    private DuplicateHandler generate(String elementFormula, boolean packed) {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator(elementFormula, handler);
+        gen.setPacked(packed);
+        gen.run();
+        return handler;
+    }
+
+    private void compare(String elementFormula, int expected) {
+        DuplicateHandler cloning = generate(elementFormula, false);
+        DuplicateHandler packed = generate(elementFormula, true);
+        assertEquals(expected, packed.getDupMap().size());
+        assertEquals(cloning.getDupMap().keySet(), packed.getDupMap().keySet());
+    }
+
+    @Test
+    public void c6H6Test() {
+        compare("C6H6", 217);
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O", 55);
+    }
+
+    @Test
+    public void c5H10OTest() {
+        compare("C5H10O", 74);
+    }
+
+    @Test
+    public void fromSeedTest() {
+        CountingHandler cloning = new CountingHandler(false);
+        new AtomGenerator("C5H8", cloning).run(
+                AtomContainerPrinter.fromString("C0C1C2 0:1(1),0:2(1),1:2(1)",
+                        SilentChemObjectBuilder.getInstance()));
+        CountingHandler packed = new CountingHandler(false);
+        AtomGenerator gen = new AtomGenerator("C5H8", packed);
+        gen.setPacked(true);
+        gen.run(AtomContainerPrinter.fromString("C0C1C2 0:1(1),0:2(1),1:2(1)",
+                SilentChemObjectBuilder.getInstance()));
+        assertEquals(cloning.getCount(), packed.getCount());
+    }
+
+    @Test
+    public void addRemoveTest() {
+        PackedMolecule molecule = new PackedMolecule(new String[] { "C", "O" }, 6);
+        molecule.addAtom(0);
+        molecule.addAtom(0, new int[] { 2 });
+        molecule.addAtom(0, new int[] { 1, 0 });
+        molecule.addAtom(1, new int[] { 0, 1, 1 });
+        assertEquals("C0C1C2O3 0:1(2),0:2(1),1:3(1),2:3(1)", molecule.toString());
+        assertEquals(0, PackedCutVertexCalculator.getCutVertices(molecule));
+
+        molecule.addAtom(0, new int[] { 0, 0, 0, 1 });
+        assertEquals(1L << 3, PackedCutVertexCalculator.getCutVertices(molecule));
+        molecule.removeLastAtom();
+        molecule.removeLastAtom();
+        assertEquals("C0C1C2 0:1(2),0:2(1)", molecule.toString());
+        assertEquals(2, molecule.getBondOrderSum(1));
+        assertEquals(1L << 0, PackedCutVertexCalculator.getCutVertices(molecule));
+    }
+
+    @Test
+    public void invariantStageTest() {
+        PackedAtomCanonicalChecker checker = new PackedAtomCanonicalChecker();
+        PackedMolecule molecule = new PackedMolecule(new String[] { "C", "O" }, 4);
+        molecule.addAtom(0);
+        molecule.addAtom(0, new int[] { 1 });
+        molecule.addAtom(1, new int[] { 0, 1 });
+
+        // the new carbon is not the oxygen, which has the largest invariant
+        molecule.addAtom(0, new int[] { 0, 1, 0 });
+        assertFalse(checker.isCanonical(molecule));
+        molecule.removeLastAtom();
+
+        // the new oxygen is the only non-separating atom with the largest invariant
+        molecule.addAtom(1, new int[] { 0, 0, 1 });
+        assertTrue(checker.isCanonical(molecule));
+        assertTrue(checker.getStatistics().startsWith(
+                "checks 2 invariant rejects 1 (50.0%) invariant accepts 1 (50.0%) refinements 0"));
+    }
+
+}
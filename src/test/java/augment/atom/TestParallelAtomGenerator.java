@@ -0,0 +1,42 @@
+package augment.atom;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import handler.molecule.DuplicateHandler;
+
+public class TestParallelAtomGenerator {
+
+    private DuplicateHandler generate(String elementFormula, int threadCount) {
+        DuplicateHandler handler = new DuplicateHandler();
+        AtomGenerator gen = new AtomGenerator(elementFormula, handler);
+        gen.setThreadCount(threadCount);
+        gen.run();
+        gen.finish();
+        return handler;
+    }
+
+    private void compare(String elementFormula, int expected) {
+        DuplicateHandler sequential = generate(elementFormula, 1);
+        DuplicateHandler parallel = generate(elementFormula, 4);
+        assertEquals(expected, parallel.getDupMap().size());
+        assertEquals(sequential.getDupMap().keySet(), parallel.getDupMap().keySet());
+    }
+
+    @Test
+    public void c6H6Test() {
+        compare("C6H6", 217);
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O", 55);
+    }
+
+    @Test
+    public void c5H10OTest() {
+        compare("C5H10O", 74);
+    }
+
+}
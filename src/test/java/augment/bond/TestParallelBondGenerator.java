@@ -0,0 +1,69 @@
+package augment.bond;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import handler.molecule.DuplicateHandler;
+import io.AtomContainerPrinter;
+
+public class TestParallelBondGenerator {
+
+    private IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+
+    private DuplicateHandler generate(String elementFormula, int threadCount) {
+        DuplicateHandler handler = new DuplicateHandler();
+        BondGenerator gen = new BondGenerator(elementFormula, handler);
+        gen.setThreadCount(threadCount);
+        gen.run();
+        gen.finish();
+        return handler;
+    }
+
+    private DuplicateHandler generateFromSeeds(String elementFormula, int threadCount, String... seeds) {
+        DuplicateHandler handler = new DuplicateHandler();
+        BondGenerator gen = new BondGenerator(elementFormula, handler);
+        gen.setThreadCount(threadCount);
+        for (String seed : seeds) {
+            gen.run(AtomContainerPrinter.fromString(seed, builder));
+        }
+        gen.finish();
+        return handler;
+    }
+
+    private void compare(String elementFormula) {
+        DuplicateHandler sequential = generate(elementFormula, 1);
+        DuplicateHandler parallel = generate(elementFormula, 4);
+        assertEquals(sequential.getDupMap().keySet(), parallel.getDupMap().keySet());
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O");
+    }
+
+    @Test
+    public void c5H8Test() {
+        compare("C5H8");
+    }
+
+    @Test
+    public void seededC4H6Test() {
+        DuplicateHandler full = generate("C4H6", 1);
+        DuplicateHandler seeded = generateFromSeeds("C4H6", 1,
+                "C0C1 0:1(1)", "C0C1 0:1(2)", "C0C1 0:1(3)");
+        assertEquals(full.getDupMap().keySet(), seeded.getDupMap().keySet());
+    }
+
+    @Test
+    public void seededParallelC4H6Test() {
+        DuplicateHandler sequential = generateFromSeeds("C4H6", 1,
+                "C0C1 0:1(1)", "C0C1 0:1(2)", "C0C1 0:1(3)");
+        DuplicateHandler parallel = generateFromSeeds("C4H6", 4,
+                "C0C1 0:1(1)", "C0C1 0:1(2)", "C0C1 0:1(3)");
+        assertEquals(sequential.getDupMap().keySet(), parallel.getDupMap().keySet());
+    }
+
+}
@@ -41,4 +41,41 @@ public class HCountValidatorTest {
         HCountValidator validator = new HCountValidator(new FormulaParser(formula));
         Assert.assertTrue(validator.isValidMol(ac, size));
     }
+    
+    @Test
+    public void sameAsAtomTypesTest() {
+        String[][] cases = {
+            { "C3H6O3", "C0C1C2O3O4O5 0:1(1),0:3(1),1:3(1),0:4(1),2:5(1),4:5(1)" },
+            { "C2H7N", "C0C1N2 0:2(1),1:2(1)" },
+            { "C3H3NO", "C0C1C2N3O4 0:1(2),1:2(1),2:3(3),0:4(1)" },
+            { "C3H4", "C0C1C2 0:1(2),1:2(2)" },
+            { "C2H3Cl", "C0C1Cl2 0:1(2),1:2(1)" },
+            { "C2H6", "C0C1 0:1(2)" },
+        };
+        for (String[] formulaAndMolecule : cases) {
+            HCountValidator tableValidator = new HCountValidator(new FormulaParser(formulaAndMolecule[0]));
+            HCountValidator typingValidator = new HCountValidator(new FormulaParser(formulaAndMolecule[0]));
+            typingValidator.setUsingAtomTypes(true);
+            IAtomContainer ac = AtomContainerPrinter.fromString(formulaAndMolecule[1], builder);
+            Assert.assertEquals(formulaAndMolecule[1], 
+                    typingValidator.hydrogensCorrect(ac), tableValidator.hydrogensCorrect(ac));
+        }
+    }
+    
+    @Test
+    public void valenceOptionsTest() {
+        // divalent S in methanethiol, tetravalent S in dimethyl sulfoxide
+        String methanethiol = "C0S1 0:1(1)";
+        String dmso = "C0C1S2O3 0:2(1),1:2(1),2:3(2)";
+        Assert.assertTrue(new HCountValidator(new FormulaParser("CH4S")).hydrogensCorrect(
+                AtomContainerPrinter.fromString(methanethiol, builder)));
+        Assert.assertTrue(new HCountValidator(new FormulaParser("C2H6OS")).hydrogensCorrect(
+                AtomContainerPrinter.fromString(dmso, builder)));
+        // the options all change the count by two
+        Assert.assertFalse(new HCountValidator(new FormulaParser("CH5S")).hydrogensCorrect(
+                AtomContainerPrinter.fromString(methanethiol, builder)));
+        // too few hydrogens for any valence
+        Assert.assertFalse(new HCountValidator(new FormulaParser("C2H4OS")).hydrogensCorrect(
+                AtomContainerPrinter.fromString(dmso, builder)));
+    }
 }
@@ -1,5 +1,7 @@
 package augment.chem;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -13,7 +15,7 @@ import augment.constraints.ElementConstraints;
 
 public class TestHCountExtensionChecker {
     
-    private void test(int hCount, String partialString, String... elements) {
+    private boolean canExtend(int hCount, String partialString, String... elements) {
         List<String> elementList = new ArrayList<String>();
         for (String element : elements) { elementList.add(element); }
         IAtomContainer partial = 
@@ -21,7 +23,11 @@ public class TestHCountExtensionChecker {
                         partialString, SilentChemObjectBuilder.getInstance());
         
         HCountExtensionChecker checker = new HCountExtensionChecker(hCount);
-        assertTrue(checker.canExtend(partial, new ElementConstraints(elementList)));
+        return checker.canExtend(partial, new ElementConstraints(elementList));
+    }
+    
+    private void test(int hCount, String partialString, String... elements) {
+        assertTrue(canExtend(hCount, partialString, elements));
     }
     
     @Test
@@ -35,5 +41,42 @@ public class TestHCountExtensionChecker {
         int hCount = 6;
         test(hCount, "C0C1 0:1(1)", "C");
     }
+    
+    @Test
+    public void testOddDegreesOfUnsaturation() {
+        // C3H7 would need half a bond more than propane
+        assertFalse(canExtend(7, "C0C1 0:1(1)", "C"));
+    }
+    
+    @Test
+    public void testTooUnsaturated() {
+        // a triple bond leaves too little valence for C3H8
+        assertFalse(canExtend(8, "C0C1 0:1(3)", "C"));
+    }
+    
+    @Test
+    public void testSulfurLowerValence() {
+        // CH3SH has divalent S, not the hexavalent of the saturation checks
+        test(4, "C0S1 0:1(1)");
+    }
+    
+    @Test
+    public void testExtendedBoundsSameAsFromScratch() {
+        HCountExtensionChecker checker = new HCountExtensionChecker(6);
+        IAtomContainer parent = io.AtomContainerPrinter.fromString(
+                "C0C1 0:1(1)", SilentChemObjectBuilder.getInstance());
+        IAtomContainer child = io.AtomContainerPrinter.fromString(
+                "C0C1O2 0:1(1),0:2(1),1:2(1)", SilentChemObjectBuilder.getInstance());
+        List<String> remaining = new ArrayList<String>();
+        remaining.add("O");
+        remaining.add("C");
+        ElementConstraints constraints = new ElementConstraints(remaining);
+        
+        HCountExtensionChecker.Bounds extended = checker.extend(
+                checker.getBounds(parent, constraints), "O", new int[] { 1, 1 });
+        HCountExtensionChecker.Bounds fromScratch = 
+                checker.getBounds(child, constraints.minus("O"));
+        assertEquals(fromScratch.toString(), extended.toString());
+    }
 
 }
@@ -0,0 +1,51 @@
+package augment.chem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import augment.constraints.ElementCodes;
+
+public class TestValenceTable {
+
+    @Test
+    public void codeIndexedTest() {
+        ValenceTable table = new ValenceTable(Arrays.asList("S", "C", "O", "C"));
+        ElementCodes codes = table.getCodes();
+        int s = codes.getCode("S");
+        assertEquals(6, table.getMaxValence(s));
+        assertEquals(2, table.getMinValence(s));
+        assertArrayEquals(new int[] { 2, 4, 6 }, table.getValences(s));
+        assertEquals(4, table.getMaxValence(codes.getCode("C")));
+        assertEquals(3, table.getMaxBondOrder(codes.getCode("C")));
+    }
+
+    @Test
+    public void symbolOutsideRunTest() {
+        ValenceTable table = new ValenceTable(Arrays.asList("C", "O"));
+        assertEquals(-1, table.getCodes().getCode("P"));
+        assertEquals(5, table.getMaxValence("P"));
+        assertEquals(3, table.getMinValence("P"));
+        assertEquals(1, table.getMaxBondOrder("Cl"));
+    }
+
+    @Test
+    public void minHydrogensTest() {
+        ValenceTable table = new ValenceTable(Arrays.asList("C", "S"));
+        int s = table.getCode("S");
+        assertEquals(1, table.getMinHydrogens(s, 1));
+        assertEquals(1, table.getMinHydrogens(s, 3));
+        assertEquals(0, table.getMinHydrogens(s, 4));
+        assertEquals(-1, table.getMinHydrogens(s, 7));
+        assertEquals(0, table.getMinHydrogens(table.getCode("C"), 4));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownElementTest() {
+        new ValenceTable().getMaxValence("Xx");
+    }
+
+}
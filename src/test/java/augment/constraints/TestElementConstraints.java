@@ -0,0 +1,74 @@
+package augment.constraints;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestElementConstraints {
+
+    private List<String> toList(ElementConstraints constraints) {
+        List<String> elements = new ArrayList<String>();
+        for (String element : constraints) {
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    @Test
+    public void minusTest() {
+        ElementConstraints constraints = new ElementConstraints(Arrays.asList("O", "C", "N", "C"));
+        assertEquals(Arrays.asList("C", "N", "O"), toList(constraints));
+        assertEquals(2, constraints.getCount("C"));
+
+        ElementConstraints minusN = constraints.minus("N");
+        assertEquals(Arrays.asList("C", "O"), toList(minusN));
+        assertEquals(2, minusN.getCount("C"));
+        assertEquals(0, minusN.getCount("N"));
+        assertEquals(1, constraints.getCount("N"));
+
+        // nothing to take
+        assertEquals("{C=2, O=1}", minusN.minus("N").toString());
+        assertEquals("{C=2, O=1}", minusN.minus("S").toString());
+    }
+
+    @Test
+    public void symbolOrderTest() {
+        // sorted by symbol, so Cl comes before F
+        ElementConstraints constraints = new ElementConstraints(Arrays.asList("F", "C", "Cl", "C"));
+        assertEquals(Arrays.asList("C", "Cl", "F"), toList(constraints));
+        VertexColorConstraints colors = new VertexColorConstraints(Arrays.asList("F", "C", "Cl", "C"));
+        assertEquals("{C=2, Cl=1, F=1}", colors.minus("Br").toString());
+    }
+
+    @Test
+    public void differenceTest() {
+        ElementConstraints source = new ElementConstraints(Arrays.asList("C", "C", "C", "O"));
+        ElementConstraints diff = new ElementConstraints(Arrays.asList("C", "O"));
+        ElementConstraints remaining = new ElementConstraints(source, diff);
+        assertEquals("{C=2}", remaining.toString());
+        assertFalse(remaining.minus("C").minus("C").iterator().hasNext());
+    }
+
+    @Test
+    public void unpackedTest() {
+        List<String> elements = new ArrayList<String>();
+        for (String element : new String[] { "Br", "C", "Cl", "F", "I", "N", "O", "P", "S" }) {
+            elements.add(element);
+        }
+        for (int index = 0; index < 300; index++) {
+            elements.add("C");
+        }
+        ElementConstraints constraints = new ElementConstraints(elements);
+        assertEquals(9, toList(constraints).size());
+        assertEquals(301, constraints.getCount("C"));
+        ElementConstraints minusS = constraints.minus("S");
+        assertEquals(8, toList(minusS).size());
+        assertEquals(1, constraints.getCount("S"));
+    }
+
+}
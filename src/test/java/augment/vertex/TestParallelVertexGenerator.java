@@ -0,0 +1,63 @@
+package augment.vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import handler.SynchronizedHandler;
+import handler.graph.GraphCountingHandler;
+import handler.graph.MoleculeAdaptor;
+import handler.molecule.DuplicateHandler;
+import handler.molecule.HBondCheckingHandler;
+
+public class TestParallelVertexGenerator {
+
+    private DuplicateHandler generate(String elementFormula, int threadCount) {
+        DuplicateHandler handler = new DuplicateHandler();
+        MoleculeAdaptor adaptor = new MoleculeAdaptor(
+                new HBondCheckingHandler(elementFormula, handler));
+        VertexGenerator gen = new VertexGenerator(elementFormula, adaptor);
+        gen.setThreadCount(threadCount);
+        gen.run();
+        gen.finish();
+        return handler;
+    }
+
+    private void compare(String elementFormula, int expected) {
+        DuplicateHandler sequential = generate(elementFormula, 1);
+        DuplicateHandler parallel = generate(elementFormula, 4);
+        assertEquals(expected, parallel.getDupMap().size());
+        assertEquals(sequential.getDupMap().keySet(), parallel.getDupMap().keySet());
+    }
+
+    @Test
+    public void c6H6Test() {
+        compare("C6H6", 217);
+    }
+
+    @Test
+    public void c4H6OTest() {
+        compare("C4H6O", 55);
+    }
+
+    @Test
+    public void graphCountTest() {
+        GraphCountingHandler sequential = new GraphCountingHandler(false);
+        new VertexGenerator("C7", sequential).run();
+        GraphCountingHandler parallel = new GraphCountingHandler(false);
+        VertexGenerator gen = new VertexGenerator("C7", parallel);
+        gen.setThreadCount(4);
+        gen.run();
+        gen.finish();
+        assertEquals(sequential.getCount(), parallel.getCount());
+    }
+
+    @Test
+    public void wrapsHandlerTest() {
+        VertexGenerator gen = new VertexGenerator("C4", new GraphCountingHandler(false));
+        gen.setThreadCount(4);
+        assertTrue(gen.getHandler() instanceof SynchronizedHandler);
+    }
+
+}
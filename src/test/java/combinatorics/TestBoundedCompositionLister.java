@@ -0,0 +1,88 @@
+package combinatorics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestBoundedCompositionLister {
+
+    private List<int[]> list(int[] bounds, int maxSum) {
+        List<int[]> arrays = new ArrayList<int[]>();
+        new BoundedCompositionLister(bounds, maxSum).forEach(array -> arrays.add(array.clone()));
+        return arrays;
+    }
+
+    /**
+     * The multisets of the indices with a positive bound, as count arrays,
+     * dropping the ones that break a bound.
+     */
+    private List<int[]> listByMultisets(int[] bounds, int maxSum) {
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int index = 0; index < bounds.length; index++) {
+            if (bounds[index] > 0) {
+                indices.add(index);
+            }
+        }
+        List<int[]> arrays = new ArrayList<int[]>();
+        if (indices.isEmpty()) {
+            return arrays;
+        }
+        for (int k = 1; k <= maxSum; k++) {
+            for (List<Integer> multiset : new MultiKSubsetLister<Integer>(k, indices)) {
+                int[] array = new int[bounds.length];
+                boolean fits = true;
+                for (int index : multiset) {
+                    array[index]++;
+                    fits = fits && array[index] <= bounds[index];
+                }
+                if (fits) {
+                    arrays.add(array);
+                }
+            }
+        }
+        return arrays;
+    }
+
+    private void assertSameArrays(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertArrayEquals(expected.get(index), actual.get(index));
+        }
+    }
+
+    @Test
+    public void smallTest() {
+        List<int[]> arrays = list(new int[] { 2, 0, 1 }, 2);
+        assertEquals(4, arrays.size());
+        assertEquals("[1, 0, 0]", Arrays.toString(arrays.get(0)));
+        assertEquals("[0, 0, 1]", Arrays.toString(arrays.get(1)));
+        assertEquals("[2, 0, 0]", Arrays.toString(arrays.get(2)));
+        assertEquals("[1, 0, 1]", Arrays.toString(arrays.get(3)));
+    }
+
+    @Test
+    public void noBoundsTest() {
+        assertEquals(0, list(new int[] { 0, 0, 0 }, 4).size());
+        assertEquals(0, list(new int[0], 4).size());
+    }
+
+    @Test
+    public void sameAsMultisetsTest() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            int[] bounds = new int[1 + random.nextInt(6)];
+            for (int index = 0; index < bounds.length; index++) {
+                bounds[index] = random.nextInt(4);
+            }
+            int maxSum = 1 + random.nextInt(5);
+            assertSameArrays(listByMultisets(bounds, maxSum), list(bounds, maxSum));
+        }
+    }
+
+}
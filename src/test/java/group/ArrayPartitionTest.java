@@ -0,0 +1,67 @@
+package group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import group.graph.GraphEquitablePartitionRefiner;
+import group.graph.GraphRefinable;
+import model.Graph;
+
+public class ArrayPartitionTest {
+
+    @Test
+    public void fromPartitionTest() {
+        Partition partition = Partition.fromString("0|1,2,3|4,5");
+        ArrayPartition arrayPartition = new ArrayPartition(partition);
+        assertEquals(3, arrayPartition.getCellCount());
+        assertEquals(partition, arrayPartition.toPartition());
+        assertEquals(1, arrayPartition.getIndexOfFirstNonDiscreteCell());
+        assertEquals(4, arrayPartition.getCellEnd(1));
+    }
+
+    @Test
+    public void individualizeAndRestoreTest() {
+        ArrayPartition partition = ArrayPartition.unit(4);
+        partition.individualize(0, 2);
+        assertEquals(1, partition.getLevel());
+        assertEquals(2, partition.getElement(0));
+        assertEquals(0, partition.getPosition(2));
+        assertEquals(2, partition.getCellCount());
+
+        partition.individualize(1, 3);
+        partition.individualize(2, 1);
+        assertTrue(partition.isDiscrete());
+        assertEquals(-1, partition.getIndexOfFirstNonDiscreteCell());
+
+        partition.restore(1);
+        assertEquals(2, partition.getCellCount());
+        assertFalse(partition.isDiscrete());
+        assertEquals(1, partition.getIndexOfFirstNonDiscreteCell());
+        assertEquals(0, partition.getSmallestInCell(1));
+
+        partition.restore(0);
+        assertEquals(1, partition.getCellCount());
+        assertEquals(4, partition.getCellEnd(0));
+    }
+
+    @Test
+    public void refineInPlaceTest() {
+        Graph g = new Graph(
+                "C0C1C2C3C4C5C6C7 "
+                + "0:1(1),0:3(1),0:7(1),1:2(1),1:4(1),2:3(1),2:6(1),3:4(1),4:5(1),5:6(1),5:7(1),6:7(1)");
+        GraphEquitablePartitionRefiner refiner =
+                new GraphEquitablePartitionRefiner(new GraphRefinable(g));
+        ArrayPartition partition = ArrayPartition.unit(8);
+        partition.individualize(0, 0);
+        refiner.refine(partition);
+        assertEquals(Partition.fromString("0|2,4|5,6|7|1,3"), partition.toPartition());
+
+        // the refinement belongs to the level of the individualization
+        partition.restore(0);
+        assertEquals(Partition.fromString("0,1,2,3,4,5,6,7"), partition.toPartition());
+    }
+
+}
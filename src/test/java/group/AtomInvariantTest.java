@@ -0,0 +1,87 @@
+package group;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import group.invariant.AtomInvariant;
+import group.invariant.AtomInvariants;
+import group.molecule.AtomDiscretePartitionRefiner;
+import io.AtomContainerPrinter;
+
+public class AtomInvariantTest {
+
+    private IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+
+    private static final String[] MOLECULES = {
+        "C0C1C2C3C4C5 0:1(2),1:2(1),2:3(2),3:4(1),4:5(2),0:5(1)",
+        "C0C1C2C3C4C5O6 0:1(1),1:2(1),2:3(1),3:4(1),4:5(1),0:5(1),0:6(1)",
+        "C0C1C2C3N4O5 0:1(1),1:2(1),2:3(1),0:3(1),3:4(1),4:5(2)",
+        "C0C1C2C3C4C5C6C7 0:1(1),1:2(1),2:3(1),0:3(1),4:5(1),5:6(1),6:7(1),4:7(1),0:4(1),1:5(1),2:6(1),3:7(1)",
+        "C0C1C2C3C4C5C6 0:1(1),0:2(1),0:3(1),3:4(1),3:5(1),5:6(3)",
+    };
+
+    private AtomDiscretePartitionRefiner getRefiner(String names) {
+        AtomDiscretePartitionRefiner refiner = new AtomDiscretePartitionRefiner();
+        if (names != null) {
+            refiner.setInvariants(AtomInvariants.fromNames(names));
+        }
+        return refiner;
+    }
+
+    @Test
+    public void fromNamesTest() {
+        List<AtomInvariant> invariants = AtomInvariants.fromNames("degree, ring,distance");
+        assertEquals(3, invariants.size());
+        assertEquals("ring", invariants.get(1).getName());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownNameTest() {
+        AtomInvariants.fromNames("degree,colour");
+    }
+
+    @Test
+    public void splitTest() {
+        Partition partition = Partition.fromString("0,1,2,3|4,5");
+        int[][] values = { { 2, 1, 2, 1, 3, 3 }, { 0, 0, 1, 0, 0, 0 } };
+        assertEquals(Partition.fromString("1,3|0|2|4,5"), AtomInvariants.split(partition, values));
+    }
+
+    @Test
+    public void ringMembershipTest() {
+        AtomInvariant ring = AtomInvariants.fromNames("ring").get(0);
+        IAtomContainer cube = AtomContainerPrinter.fromString(MOLECULES[3], builder);
+        assertArrayEquals(new int[] { 1, 1, 1, 1, 1, 1, 1, 1 }, ring.getValues(cube));
+        IAtomContainer methylCyclopropane = AtomContainerPrinter.fromString(
+                "C0C1C2C3 0:1(1),1:2(1),0:2(1),0:3(1)", builder);
+        assertArrayEquals(new int[] { 1, 1, 1, 0 }, ring.getValues(methylCyclopropane));
+    }
+
+    @Test
+    public void sameGroupTest() {
+        for (String moleculeString : MOLECULES) {
+            IAtomContainer molecule = AtomContainerPrinter.fromString(moleculeString, builder);
+            PermutationGroup without = getRefiner(null).getAutomorphismGroup(molecule);
+            PermutationGroup with = getRefiner(AtomInvariants.getNames()).getAutomorphismGroup(molecule);
+            assertEquals(moleculeString, without.order(), with.order());
+        }
+    }
+
+    @Test
+    public void isomorphicKeysTest() {
+        String a = "C0C1C2C3N4O5 0:1(1),1:2(1),2:3(1),0:3(1),3:4(1),4:5(2)";
+        String b = "O0N1C2C3C4C5 0:1(2),1:2(1),2:3(1),3:4(1),4:5(1),2:5(1)";
+        AtomDiscretePartitionRefiner refiner = getRefiner("degree,ring");
+        Certificate keyA = refiner.getCanonicalKey(AtomContainerPrinter.fromString(a, builder));
+        Certificate keyB = refiner.getCanonicalKey(AtomContainerPrinter.fromString(b, builder));
+        assertEquals(keyA, keyB);
+    }
+
+}
@@ -0,0 +1,77 @@
+package group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import group.graph.GraphDiscretePartitionRefiner;
+import model.Graph;
+
+public class CertificateTest {
+
+    private Certificate getCanonicalCertificate(String graphString) {
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        refiner.refine(new Graph(graphString));
+        return refiner.getBestCertificate();
+    }
+
+    @Test
+    public void halfMatrixStringTest() {
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        refiner.refine(new Graph("C0C1C2C3C4 0:1(2),0:2(1),1:3(3),2:4(1),3:4(1)"));
+        Permutation best = refiner.getBest();
+        Certificate certificate = refiner.getCertificate(best);
+        assertEquals(refiner.getHalfMatrixString(best), certificate.toString());
+        assertEquals(refiner.getBestHalfMatrixString(), refiner.getBestCertificate().toString());
+    }
+
+    @Test
+    public void multipleWordsTest() {
+        // 12 vertices have 66 entries, so 3 words at 32 entries a word
+        StringBuffer atoms = new StringBuffer();
+        StringBuffer bonds = new StringBuffer();
+        for (int index = 0; index < 12; index++) {
+            atoms.append("C").append(index);
+            if (index > 0) {
+                bonds.append(index - 1).append(":").append(index).append("(").append(1 + (index % 3)).append("),");
+            }
+        }
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        refiner.refine(new Graph(atoms + " " + bonds.substring(0, bonds.length() - 1)));
+        Permutation identity = new Permutation(12);
+        Certificate certificate = refiner.getCertificate(identity);
+        assertEquals(refiner.getHalfMatrixString(identity), certificate.toString());
+        for (int i = 0; i < 11; i++) {
+            assertEquals(1 + ((i + 1) % 3), certificate.get(i, i + 1));
+        }
+    }
+
+    @Test
+    public void isomorphicTest() {
+        Certificate a = getCanonicalCertificate("C0C1C2C3C4 0:1(1),1:2(2),2:3(1),3:4(1)");
+        Certificate b = getCanonicalCertificate("C0C1C2C3C4 4:3(1),3:2(2),2:1(1),1:0(1)");
+        Certificate c = getCanonicalCertificate("C0C1C2C3C4 2:0(1),0:4(2),4:1(1),1:3(1)");
+        assertEquals(a, b);
+        assertEquals(a, c);
+        assertEquals(a.hashCode(), c.hashCode());
+    }
+
+    @Test
+    public void nonIsomorphicTest() {
+        Certificate chain = getCanonicalCertificate("C0C1C2C3 0:1(1),1:2(1),2:3(1)");
+        Certificate star = getCanonicalCertificate("C0C1C2C3 0:1(1),0:2(1),0:3(1)");
+        assertFalse(chain.equals(star));
+    }
+
+    @Test
+    public void orderTest() {
+        Certificate a = new Certificate(3, 2, new long[] { 0x01L });    // 001
+        Certificate b = new Certificate(3, 2, new long[] { 0x10L });    // 100
+        assertTrue(a.compareTo(b) < 0);
+        assertEquals("001", a.toString());
+        assertEquals("100", b.toString());
+    }
+
+}
@@ -1,5 +1,7 @@
 package group;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Test;
 
 import group.graph.GraphDiscretePartitionRefiner;
@@ -33,4 +35,35 @@ public class GraphAutomorphismGroupTest {
         test("C0C1C2C3C4C5C6C7C8 0:1(2),0:2(1),0:3(1),2:4(1),4:5(2),5:6(1),6:7(1),6:8(1)");
     }
 
+    private void testOrder(String graphString, long expectedOrder, String expectedOrbits) {
+        GraphDiscretePartitionRefiner refiner = new GraphDiscretePartitionRefiner();
+        PermutationGroup aut = refiner.getAutomorphismGroup(new Graph(graphString));
+        assertEquals(expectedOrder, aut.orderAsLong());
+        assertEquals(Partition.fromString(expectedOrbits), refiner.getAutomorphismPartition());
+    }
+    
+    @Test
+    public void cubeOrderTest() {
+        testOrder("C0C1C2C3C4C5C6C7 "
+                + "0:1(1),0:2(1),0:4(1),1:3(1),1:5(1),2:3(1),2:6(1),3:7(1),4:5(1),4:6(1),5:7(1),6:7(1)",
+                48, "0,1,2,3,4,5,6,7");
+    }
+    
+    @Test
+    public void petersenOrderTest() {
+        testOrder("C0C1C2C3C4C5C6C7C8C9 "
+                + "0:1(1),1:2(1),2:3(1),3:4(1),0:4(1),0:5(1),1:6(1),2:7(1),3:8(1),4:9(1),"
+                + "5:7(1),7:9(1),6:9(1),6:8(1),5:8(1)",
+                120, "0,1,2,3,4,5,6,7,8,9");
+    }
+    
+    @Test
+    public void branchedOrderTest() {
+        // a center with four neighbours, each with three leaves : 4! * 6^4
+        testOrder("C0C1C2C3C4C5C6C7C8C9C10C11C12C13C14C15C16 "
+                + "0:1(1),0:2(1),0:3(1),0:4(1),1:5(1),1:6(1),1:7(1),2:8(1),2:9(1),2:10(1),"
+                + "3:11(1),3:12(1),3:13(1),4:14(1),4:15(1),4:16(1)",
+                31104, "0|1,2,3,4|5,6,7,8,9,10,11,12,13,14,15,16");
+    }
+
 }
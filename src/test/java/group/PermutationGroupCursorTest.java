@@ -0,0 +1,86 @@
+package group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PermutationGroupCursorTest {
+
+    /**
+     * The elements in the order the group was listed in by recursion.
+     */
+    private void backtrack(PermutationGroup group, int level, Permutation g, List<Permutation> elements) {
+        int n = group.getSize();
+        if (level == n) {
+            elements.add(g);
+        } else {
+            for (int i = 0; i < n; i++) {
+                Permutation h = group.get(level, i);
+                if (h != null) {
+                    backtrack(group, level + 1, g.multiply(h), elements);
+                }
+            }
+        }
+    }
+
+    private void compare(PermutationGroup group) {
+        List<Permutation> expected = new ArrayList<Permutation>();
+        backtrack(group, 0, new Permutation(group.getSize()), expected);
+        PermutationGroup.Cursor cursor = group.cursor();
+        int index = 0;
+        while (cursor.next()) {
+            assertEquals(expected.get(index), cursor.current());
+            index++;
+        }
+        assertEquals(expected.size(), index);
+        assertEquals(expected, group.all());
+    }
+
+    @Test
+    public void symNTest() {
+        compare(PermutationGroup.makeSymN(5));
+    }
+
+    @Test
+    public void changedBaseTest() {
+        PermutationGroup group = PermutationGroup.makeSymN(4);
+        group.changeBase(new Permutation(2, 0, 3, 1));
+        compare(group);
+    }
+
+    @Test
+    public void trivialTest() {
+        compare(new PermutationGroup(6));
+    }
+
+    @Test
+    public void largeGroupTest() {
+        PermutationGroup group = PermutationGroup.makeSymN(13);
+        assertEquals(6227020800L, group.orderAsLong());
+        PermutationGroup.Cursor cursor = group.cursor();
+        for (int count = 0; count < 1000; count++) {
+            assertTrue(cursor.next());
+        }
+        try {
+            group.all();
+            fail("Listed all of Sym(13)");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+    }
+
+    @Test
+    public void transversalTest() {
+        PermutationGroup group = PermutationGroup.makeSymN(4);
+        List<Permutation> generators = new ArrayList<Permutation>();
+        generators.add(new Permutation(1, 0, 2, 3));
+        PermutationGroup subgroup = new PermutationGroup(4, generators);
+        assertEquals(12, group.transversal(subgroup).size());
+    }
+
+}
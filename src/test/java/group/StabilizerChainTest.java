@@ -0,0 +1,136 @@
+package group;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import group.graph.GraphDiscretePartitionRefiner;
+import model.Graph;
+
+public class StabilizerChainTest {
+
+    private static final String NEOPENTANE = "C0C1C2C3C4 0:1(1),0:2(1),0:3(1),0:4(1)";
+
+    private static final String BENZENE = "C0C1C2C3C4C5 0:1(1),0:2(1),1:3(1),2:4(1),3:5(1),4:5(1)";
+
+    private static final String CUBANE = "C0C1C2C3C4C5C6C7 "
+            + "0:1(1),0:2(1),0:4(1),1:3(1),1:5(1),2:3(1),2:6(1),3:7(1),4:5(1),4:6(1),5:7(1),6:7(1)";
+
+    private PermutationGroup getGroup(String graphString) {
+        return new GraphDiscretePartitionRefiner().getAutomorphismGroup(new Graph(graphString));
+    }
+
+    /**
+     * The test the chain replaces, checking every element of the group.
+     */
+    private boolean isLargestByAll(int[] array, List<Permutation> all) {
+        int size = array.length;
+        int[] permuted = new int[size];
+        for (Permutation p : all) {
+            for (int index = 0; index < size; index++) {
+                permuted[p.get(index)] = array[index];
+            }
+            for (int index = 0; index < size; index++) {
+                if (array[index] != permuted[index]) {
+                    if (array[index] < permuted[index]) {
+                        return false;
+                    }
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * All the arrays of values from 0 to max - 1.
+     */
+    private List<int[]> getArrays(int size, int max) {
+        List<int[]> arrays = new ArrayList<int[]>();
+        int total = (int) Math.pow(max, size);
+        for (int code = 0; code < total; code++) {
+            int[] array = new int[size];
+            int remainder = code;
+            for (int index = 0; index < size; index++) {
+                array[index] = remainder % max;
+                remainder /= max;
+            }
+            arrays.add(array);
+        }
+        return arrays;
+    }
+
+    private void compare(PermutationGroup group, int max) {
+        List<Permutation> all = group.all();
+        StabilizerChain chain = StabilizerChain.of(group);
+        for (int[] array : getArrays(group.getSize(), max)) {
+            assertEquals(isLargestByAll(array, all), chain.isLargestImage(array));
+        }
+    }
+
+    @Test
+    public void symNTest() {
+        compare(PermutationGroup.makeSymN(5), 4);
+    }
+
+    @Test
+    public void changedBaseTest() {
+        PermutationGroup group = PermutationGroup.makeSymN(5);
+        group.changeBase(new Permutation(3, 1, 4, 0, 2));
+        compare(group, 3);
+    }
+
+    @Test
+    public void neopentaneTest() {
+        compare(getGroup(NEOPENTANE), 4);
+    }
+
+    @Test
+    public void benzeneTest() {
+        compare(getGroup(BENZENE), 4);
+    }
+
+    @Test
+    public void cubaneTest() {
+        compare(getGroup(CUBANE), 3);
+    }
+
+    /**
+     * A center with four neighbours, each with three more neighbours - so the
+     * group has 4! * 6^4 elements.
+     */
+    private String getNeopentylNeopentane() {
+        StringBuffer atoms = new StringBuffer();
+        StringBuffer bonds = new StringBuffer();
+        for (int index = 0; index < 17; index++) {
+            atoms.append("C").append(index);
+        }
+        for (int branch = 1; branch <= 4; branch++) {
+            bonds.append("0:").append(branch).append("(1),");
+            for (int leaf = 0; leaf < 3; leaf++) {
+                bonds.append(branch).append(":").append(5 + (3 * (branch - 1)) + leaf).append("(1),");
+            }
+        }
+        return atoms + " " + bonds.substring(0, bonds.length() - 1);
+    }
+
+    /**
+     * The group is too large to compare every array, so only those that are
+     * zero past the center and the branches are compared.
+     */
+    @Test
+    public void neopentylNeopentaneTest() {
+        PermutationGroup group = getGroup(getNeopentylNeopentane());
+        List<Permutation> all = group.all();
+        StabilizerChain chain = StabilizerChain.of(group);
+        for (int[] array : getArrays(5, 3)) {
+            int[] padded = Arrays.copyOf(array, group.getSize());
+            assertEquals(isLargestByAll(padded, all), chain.isLargestImage(padded));
+        }
+    }
+
+}
@@ -63,4 +63,27 @@ public class TestGraphEquitablePartitionRefiner {
                 expect);
     }
 
+    @Test
+    public void cagesReverseOrder() {
+        Graph g = new Graph(
+                "C0C1C2C3C4C5C6C7 "
+                + "0:1(1),0:3(1),0:7(1),1:2(1),1:4(1),2:3(1),2:6(1),3:4(1),4:5(1),5:6(1),5:7(1),6:7(1)");
+        GraphEquitablePartitionRefiner refiner = 
+                new GraphEquitablePartitionRefiner(new GraphRefinable(g));
+        refiner.setSplitOrder(AbstractEquitablePartitionRefiner.SplitOrder.REVERSE);
+        Partition coarse = Partition.fromString("0|1,2,3,4,5,6,7");
+        Partition expect = Partition.fromString("0|1,3|7|2,4|5,6");
+        assertEquals(expect, refiner.refine(coarse));
+    }
+    
+    @Test
+    public void coloredEdges() {
+        Partition coarse = Partition.fromString("0,1,2,3,4");
+        Partition expect = Partition.fromString("1,2|3|0,4");
+        assertPartition(
+                coarse,
+                new Graph("C0C1C2C3C4 0:1(2),0:2(1),0:3(1),1:4(1),2:4(2),3:4(1)"),
+                expect);
+    }
+
 }
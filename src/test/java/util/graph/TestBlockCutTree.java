@@ -0,0 +1,126 @@
+package util.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import model.Edge;
+import model.Graph;
+
+public class TestBlockCutTree {
+    
+    private void compare(Graph graph, BlockCutTree tree) {
+        Set<Integer> cutVertices = CutCalculator.getCutVertices(graph);
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            assertEquals(graph + " " + vertex, cutVertices.contains(vertex), tree.isCutVertex(vertex));
+        }
+        // the calculator leaves out the edges to leaves of trees, but not of other graphs
+        boolean isTree = graph.getEdgeCount() == graph.getVertexCount() - 1;
+        Set<Integer> cutEdges = CutCalculator.getCutEdges(graph);
+        for (int edgeIndex = 0; edgeIndex < graph.getEdgeCount(); edgeIndex++) {
+            Edge edge = graph.getEdge(edgeIndex);
+            assertEquals(graph + " " + edge, 
+                    isTree || cutEdges.contains(edgeIndex), tree.isBridge(edge.getVertex(0), edge.getVertex(1)));
+        }
+    }
+    
+    /**
+     * Make a random connected graph by adding each vertex with edges to some 
+     * of the earlier ones, checking the tree made from the parent at each step.
+     */
+    private void randomByVertex(Random random, int vertexCount, double density) {
+        Graph graph = new Graph();
+        graph.addVertex("C");
+        BlockCutTree tree = new BlockCutTree();
+        tree.addVertex();
+        for (int vertex = 1; vertex < vertexCount; vertex++) {
+            List<Integer> neighbours = new ArrayList<Integer>();
+            neighbours.add(random.nextInt(vertex));
+            for (int other = 0; other < vertex; other++) {
+                if (!neighbours.contains(other) && random.nextDouble() < density) {
+                    neighbours.add(other);
+                }
+            }
+            graph.addVertex("C");
+            int[] neighbourArray = new int[neighbours.size()];
+            for (int index = 0; index < neighbours.size(); index++) {
+                neighbourArray[index] = neighbours.get(index);
+                graph.addEdge(neighbours.get(index), vertex, 1);
+            }
+            tree = new BlockCutTree(tree);
+            tree.addVertex(neighbourArray);
+            compare(graph, tree);
+        }
+    }
+    
+    @Test
+    public void randomByVertexTest() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 500; trial++) {
+            randomByVertex(random, 2 + random.nextInt(12), random.nextDouble() * 0.4);
+        }
+    }
+    
+    @Test
+    public void randomEdgeOrderTest() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 500; trial++) {
+            int vertexCount = 2 + random.nextInt(12);
+            Graph graph = new Graph();
+            List<int[]> edges = new ArrayList<int[]>();
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                graph.addVertex("C");
+                int first = (vertex > 0)? random.nextInt(vertex) : -1;
+                for (int other = 0; other < vertex; other++) {
+                    if (other == first || random.nextDouble() < 0.15) {
+                        edges.add(new int[] { other, vertex });
+                    }
+                }
+            }
+            // edges in any order, so that components are joined and rerooted
+            Collections.shuffle(edges, random);
+            BlockCutTree tree = new BlockCutTree();
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                tree.addVertex();
+            }
+            for (int[] edge : edges) {
+                graph.addEdge(edge[0], edge[1], 1);
+                tree.addEdge(edge[0], edge[1]);
+            }
+            compare(graph, tree);
+            compare(graph, CutCalculator.getBlockCutTree(graph));
+        }
+    }
+    
+    @Test
+    public void spiroTest() {
+        Graph graph = new Graph("C0C1C2C3C4C5C6 0:1(1),0:3(1),1:2(1),2:3(1),3:4(1),3:6(1),4:5(1),5:6(1)");
+        BlockCutTree tree = CutCalculator.getBlockCutTree(graph);
+        assertTrue(tree.isCutVertex(3));
+        assertFalse(tree.isCutVertex(0));
+        assertFalse(tree.isBridge(0, 1));
+    }
+    
+    @Test
+    public void pathTest() {
+        BlockCutTree tree = new BlockCutTree();
+        tree.addVertex();
+        tree.addVertex(0);
+        assertFalse(tree.isCutVertex(0));
+        assertTrue(tree.isBridge(0, 1));
+        tree.addVertex(1);
+        assertTrue(tree.isCutVertex(1));
+        tree.addEdge(0, 2);
+        assertFalse(tree.isCutVertex(1));
+        assertFalse(tree.isBridge(0, 1));
+    }
+
+}